@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import model.BallModel;
+import model.engine.GravitySystem;
+import model.strategies.update.IIntegratorStrategy;
+
+/**
+ * Checks that stepping the gravity system allocates nothing once it is warmed up, for every integrator. Each
+ * one is stepped on the calling thread alone, so the thread's allocation counter sees everything a step does.
+ * The JIT may still allocate a few bytes once while it settles, so a check only fails when the steps average a
+ * byte or more each, which any object allocated every step would be.
+ * <p>
+ * Usage: <code>AllocationCheck [--asteroids N] [--warmup STEPS] [--steps STEPS]</code>
+ * <p>
+ * Exits with status 1 if any integrator allocates, so a build can run it as a regression check.
+ */
+public class AllocationCheck {
+	/**
+	 * The integrators checked.
+	 */
+	public static final String[] INTEGRATORS = { "tick", "leapfrog", "verlet", "yoshida", "wh" };
+
+	/**
+	 * The number of asteroids to step.
+	 */
+	private int asteroidCount = 3000;
+
+	/**
+	 * The number of untimed steps that let the JIT settle.
+	 */
+	private int warmup = 5000;
+
+	/**
+	 * The number of steps whose allocation is measured.
+	 */
+	private int steps = 2000;
+
+	/**
+	 * Reads the calling thread's allocation counter.
+	 */
+	private com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Constructor for a new AllocationCheck.
+	 *
+	 * @param args the command line arguments
+	 */
+	public AllocationCheck(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--asteroids":
+				asteroidCount = Integer.parseInt(args[++i]);
+				break;
+			case "--warmup":
+				warmup = Integer.parseInt(args[++i]);
+				break;
+			case "--steps":
+				steps = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	/**
+	 * The check startup function.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		try {
+			if (!new AllocationCheck(args).check()) {
+				System.exit(1);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Steps every integrator and prints how much each allocated.
+	 *
+	 * @return whether none of them allocated
+	 */
+	public boolean check() {
+		boolean passed = true;
+		for (String name : INTEGRATORS) {
+			long bytes = measure(IIntegratorStrategy.MakeByName(name));
+			boolean ok = bytes < steps;
+			System.out.println(String.format("%-10s %,12d bytes over %,d steps  %s", name, bytes, steps,
+					ok ? "ok" : "FAILED"));
+			passed &= ok;
+		}
+		return passed;
+	}
+
+	/**
+	 * Steps a fresh system with the given integrator and measures what the steps after warmup allocate.
+	 *
+	 * @param integrator the integrator to step with
+	 * @return the bytes allocated by the measured steps
+	 */
+	private long measure(IIntegratorStrategy integrator) {
+		BallModel model = new BallModel();
+		model.setSeed(0);
+		model.setParallelism(1);
+		model.makeBalls(asteroidCount);
+		GravitySystem system = model.getSystem();
+		for (int i = 0; i < warmup; i++) {
+			system.step(integrator, 1);
+		}
+		long start = threadBean.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < steps; i++) {
+			system.step(integrator, 1);
+		}
+		return threadBean.getCurrentThreadAllocatedBytes() - start;
+	}
+}
@@ -0,0 +1,273 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import model.BallModel;
+
+/**
+ * Runs the benchmarks headless and reports throughput and allocation, the way a JMH run with the gc
+ * profiler would, without needing anything beyond the JDK. Each benchmark gets a fresh model per asteroid
+ * count, a few untimed warmup iterations, and then timed iterations that each run the operation for a fixed
+ * wall-clock time.
+ * <p>
+ * Usage: <code>BenchmarkRunner [--bench update,gravity,paint,paint-dots,construction] [--asteroids 3000,30000,300000]
+ * [--warmup N] [--iterations N] [--seconds S] [--threads N] [--csv FILE] [--check-allocation]</code>
+ * <p>
+ * With <code>--check-allocation</code> the {@link AllocationCheck} runs first, and the run fails if any
+ * integrator allocates on a warmed-up step.
+ */
+public class BenchmarkRunner {
+	/**
+	 * The benchmarks to run.
+	 */
+	private String[] benchmarks = IBenchmark.NAMES;
+
+	/**
+	 * The asteroid counts to run each benchmark with.
+	 */
+	private int[] asteroidCounts = { 3000, 30000, 300000 };
+
+	/**
+	 * The number of untimed iterations.
+	 */
+	private int warmup = 3;
+
+	/**
+	 * The number of timed iterations.
+	 */
+	private int iterations = 5;
+
+	/**
+	 * How long each iteration runs for, in seconds.
+	 */
+	private double seconds = 1;
+
+	/**
+	 * The number of threads the simulation steps with.
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The file the results are also written to as CSV, or null.
+	 */
+	private File csv = null;
+
+	/**
+	 * Whether to check that warmed-up steps allocate nothing before benchmarking.
+	 */
+	private boolean checkAllocation = false;
+
+	/**
+	 * Reads the allocation counters of every thread.
+	 */
+	private com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Constructor for a new BenchmarkRunner.
+	 *
+	 * @param args the command line arguments
+	 */
+	public BenchmarkRunner(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--bench":
+				benchmarks = args[++i].split(",");
+				break;
+			case "--asteroids":
+				String[] counts = args[++i].split(",");
+				asteroidCounts = new int[counts.length];
+				for (int j = 0; j < counts.length; j++) {
+					asteroidCounts[j] = Integer.parseInt(counts[j]);
+				}
+				break;
+			case "--warmup":
+				warmup = Integer.parseInt(args[++i]);
+				break;
+			case "--iterations":
+				iterations = Math.max(Integer.parseInt(args[++i]), 1);
+				break;
+			case "--seconds":
+				seconds = Double.parseDouble(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--csv":
+				csv = new File(args[++i]);
+				break;
+			case "--check-allocation":
+				checkAllocation = true;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		for (String name : benchmarks) {
+			IBenchmark.MakeByName(name);
+		}
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	/**
+	 * The benchmark startup function.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		try {
+			new BenchmarkRunner(args).start();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Runs every benchmark at every asteroid count and prints the results.
+	 *
+	 * @throws IOException if the CSV can't be written
+	 */
+	public void start() throws IOException {
+		if (checkAllocation && !new AllocationCheck(new String[0]).check()) {
+			throw new IllegalStateException("Warmed-up steps allocate");
+		}
+		PrintWriter out = csv == null ? null : new PrintWriter(csv);
+		try {
+			String header = String.format("%-14s %9s %14s %10s %12s %14s %12s %8s", "benchmark", "asteroids",
+					"ops/s", "error", "ms/op", "bytes/op", "alloc MB/s", "gc ms");
+			System.out.println(header);
+			if (out != null) {
+				out.println("benchmark,asteroids,threads,opsPerSecond,error,msPerOp,bytesPerOp,allocMBPerSecond,gcCount,gcMillis");
+			}
+			for (String name : benchmarks) {
+				for (int asteroidCount : asteroidCounts) {
+					run(name, asteroidCount, out);
+				}
+			}
+		} finally {
+			if (out != null) {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Runs one benchmark at one asteroid count.
+	 *
+	 * @param name the benchmark
+	 * @param asteroidCount the number of asteroids
+	 * @param out where to write the CSV, or null
+	 */
+	private void run(String name, int asteroidCount, PrintWriter out) {
+		IBenchmark benchmark = IBenchmark.MakeByName(name);
+		BallModel model = new BallModel();
+		model.setParallelism(threads);
+		benchmark.setup(model, asteroidCount);
+
+		for (int i = 0; i < warmup; i++) {
+			iterate(benchmark);
+		}
+
+		double[] opsPerSecond = new double[iterations];
+		long ops = 0;
+		long nanos = 0;
+		long allocated = allocatedBytes();
+		long gcCount = gcCount();
+		long gcMillis = gcMillis();
+		for (int i = 0; i < iterations; i++) {
+			long[] result = iterate(benchmark);
+			opsPerSecond[i] = result[0] * 1e9 / result[1];
+			ops += result[0];
+			nanos += result[1];
+		}
+		allocated = allocatedBytes() - allocated;
+		gcCount = gcCount() - gcCount;
+		gcMillis = gcMillis() - gcMillis;
+		model.setParallelism(1);
+
+		double mean = 0;
+		for (double value : opsPerSecond) {
+			mean += value;
+		}
+		mean /= iterations;
+		double variance = 0;
+		for (double value : opsPerSecond) {
+			variance += (value - mean) * (value - mean);
+		}
+		double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : Double.NaN;
+		double msPerOp = nanos / 1e6 / ops;
+		double bytesPerOp = (double) allocated / ops;
+		double allocRate = allocated / 1e6 / (nanos / 1e9);
+
+		System.out.println(String.format("%-14s %,9d %,14.1f %10.1f %12.4f %,14.1f %12.1f %8d", name, asteroidCount,
+				mean, error, msPerOp, bytesPerOp, allocRate, gcMillis));
+		if (out != null) {
+			out.println(name + "," + asteroidCount + "," + threads + "," + mean + "," + error + "," + msPerOp + ","
+					+ bytesPerOp + "," + allocRate + "," + gcCount + "," + gcMillis);
+		}
+	}
+
+	/**
+	 * Runs the operation over and over for one iteration.
+	 *
+	 * @param benchmark the benchmark
+	 * @return the number of operations run and the nanoseconds they took
+	 */
+	private long[] iterate(IBenchmark benchmark) {
+		long duration = (long) (seconds * 1e9);
+		long start = System.nanoTime();
+		long now = start;
+		long ops = 0;
+		do {
+			benchmark.run();
+			ops++;
+			now = System.nanoTime();
+		} while (now - start < duration);
+		return new long[] { ops, now - start };
+	}
+
+	/**
+	 * @return the bytes allocated so far by every live thread, including the simulation's worker threads
+	 */
+	private long allocatedBytes() {
+		long[] ids = threadBean.getAllThreadIds();
+		long total = 0;
+		for (long allocated : threadBean.getThreadAllocatedBytes(ids)) {
+			if (allocated > 0) {
+				total += allocated;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return the number of garbage collections so far
+	 */
+	private static long gcCount() {
+		long total = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			total += Math.max(collector.getCollectionCount(), 0);
+		}
+		return total;
+	}
+
+	/**
+	 * @return the milliseconds spent collecting garbage so far
+	 */
+	private static long gcMillis() {
+		long total = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			total += Math.max(collector.getCollectionTime(), 0);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,35 @@
+package benchmark;
+
+import model.BallModel;
+
+/**
+ * Times clearing the model and building the bodies and asteroids from scratch.
+ */
+public class ConstructionBenchmark implements IBenchmark {
+	/**
+	 * The model being built.
+	 */
+	private BallModel model;
+
+	/**
+	 * The number of asteroids to build.
+	 */
+	private int asteroidCount;
+
+	@Override
+	public void setup(BallModel model, int asteroidCount) {
+		this.model = model;
+		this.asteroidCount = asteroidCount;
+	}
+
+	@Override
+	public void run() {
+		this.model.clearBalls();
+		this.model.makeBalls(this.asteroidCount);
+	}
+
+	@Override
+	public String toString() {
+		return "construction";
+	}
+}
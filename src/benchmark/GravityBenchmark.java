@@ -0,0 +1,31 @@
+package benchmark;
+
+import model.BallModel;
+import model.engine.GravitySystem;
+
+/**
+ * Times a gravity pass alone: the acceleration of every asteroid and body, without moving anything.
+ */
+public class GravityBenchmark implements IBenchmark {
+	/**
+	 * The system whose accelerations are calculated.
+	 */
+	private GravitySystem system;
+
+	@Override
+	public void setup(BallModel model, int asteroidCount) {
+		model.makeBalls(asteroidCount);
+		this.system = model.getSystem();
+		this.system.getAttractors().load(this.system.getBodies());
+	}
+
+	@Override
+	public void run() {
+		this.system.computeAccelerations();
+	}
+
+	@Override
+	public String toString() {
+		return "gravity";
+	}
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import model.BallModel;
+import model.strategies.paint.AsteroidOvalStrategy;
+import model.strategies.paint.AsteroidRasterStrategy;
+
+/**
+ * One operation to time, run over and over against a model that has already been set up.
+ */
+public interface IBenchmark {
+	/**
+	 * Gets the model ready before any operations are timed.
+	 *
+	 * @param model a headless model with nothing in it
+	 * @param asteroidCount the number of asteroids to benchmark with
+	 */
+	public void setup(BallModel model, int asteroidCount);
+
+	/**
+	 * Runs the operation once.
+	 */
+	public void run();
+
+	/**
+	 * The names of every benchmark, in the order they run by default.
+	 */
+	public static final String[] NAMES = { "update", "gravity", "paint", "paint-dots", "construction" };
+
+	/**
+	 * Makes a new benchmark from its name.
+	 *
+	 * @param name one of {@link #NAMES}
+	 * @return a new benchmark
+	 */
+	public static IBenchmark MakeByName(String name) {
+		switch (name) {
+		case "update":
+			return new UpdateBenchmark();
+		case "gravity":
+			return new GravityBenchmark();
+		case "paint":
+			return new PaintBenchmark(new AsteroidRasterStrategy());
+		case "paint-dots":
+			return new PaintBenchmark(new AsteroidOvalStrategy());
+		case "construction":
+			return new ConstructionBenchmark();
+		default:
+			throw new IllegalArgumentException("Unknown benchmark: " + name);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import model.BallModel;
+import model.engine.Snapshot;
+import model.strategies.paint.IAsteroidPaintStrategy;
+
+/**
+ * Times taking a snapshot and painting it into an offscreen image the size of the canvas, with a given
+ * strategy for the asteroids.
+ */
+public class PaintBenchmark implements IBenchmark {
+	/**
+	 * The model being painted.
+	 */
+	private BallModel model;
+
+	/**
+	 * Paints the asteroids.
+	 */
+	private IAsteroidPaintStrategy asteroidPainter;
+
+	/**
+	 * The snapshot that is filled and painted.
+	 */
+	private Snapshot snapshot = new Snapshot();
+
+	/**
+	 * The image painted into.
+	 */
+	private BufferedImage image = new BufferedImage(1445, 791, BufferedImage.TYPE_INT_RGB);
+
+	/**
+	 * Constructor for a new PaintBenchmark.
+	 *
+	 * @param asteroidPainter the strategy that paints the asteroids
+	 */
+	public PaintBenchmark(IAsteroidPaintStrategy asteroidPainter) {
+		this.asteroidPainter = asteroidPainter;
+	}
+
+	@Override
+	public void setup(BallModel model, int asteroidCount) {
+		this.model = model;
+		model.makeBalls(asteroidCount);
+	}
+
+	@Override
+	public void run() {
+		this.snapshot.capture(this.model.getSystem());
+		Graphics2D g = this.image.createGraphics();
+		try {
+			g.setClip(0, 0, this.image.getWidth(), this.image.getHeight());
+			g.clearRect(0, 0, this.image.getWidth(), this.image.getHeight());
+			this.snapshot.paint(g, this.asteroidPainter);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "paint " + this.asteroidPainter;
+	}
+}
@@ -0,0 +1,29 @@
+package benchmark;
+
+import model.BallModel;
+
+/**
+ * Times a single {@link BallModel#update()} step, with the bodies, asteroids and analysis.
+ */
+public class UpdateBenchmark implements IBenchmark {
+	/**
+	 * The model being stepped.
+	 */
+	private BallModel model;
+
+	@Override
+	public void setup(BallModel model, int asteroidCount) {
+		this.model = model;
+		model.makeBalls(asteroidCount);
+	}
+
+	@Override
+	public void run() {
+		this.model.update();
+	}
+
+	@Override
+	public String toString() {
+		return "update";
+	}
+}
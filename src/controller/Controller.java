@@ -10,6 +10,7 @@ import javax.swing.SwingUtilities;
 import model.BallModel;
 import model.adapters.IViewControlAdapter;
 import model.adapters.IViewUpdateAdapter;
+import model.strategies.paint.IAsteroidPaintStrategy;
 import provided.utils.displayModel.IATImage;
 import view.BallGUI;
 import view.IModelControlAdapter;
@@ -55,6 +56,11 @@ public class Controller {
 				SwingUtilities.invokeLater(() -> view.update());
 			}
 
+			@Override
+			public void setStatus(String status) {
+				view.setStatus(status);
+			}
+
 		});
 
 		this.view = new BallGUI(
@@ -65,6 +71,7 @@ public class Controller {
 						new Thread() {
 							public void run() {
 								model.clearBalls();
+								syncPaused();
 							}
 						}.start();
 					}
@@ -74,9 +81,45 @@ public class Controller {
 						new Thread() {
 							public void run() {
 								model.loadBalls();
+								syncPaused();
 							}
 						}.start();
 					}
+
+					@Override
+					public void pause() {
+						model.getScheduler().pause();
+					}
+
+					@Override
+					public void resume() {
+						model.getScheduler().resume();
+					}
+
+					@Override
+					public void step() {
+						model.getScheduler().step();
+					}
+
+					@Override
+					public boolean isPaused() {
+						return model.getScheduler().isPaused();
+					}
+
+					@Override
+					public void setStepsPerSecond(double stepsPerSecond) {
+						model.getScheduler().setTargetStepsPerSecond(stepsPerSecond);
+					}
+
+					@Override
+					public void setStepsPerPaint(int stepsPerPaint) {
+						model.getScheduler().setStepsPerFrame(stepsPerPaint);
+					}
+
+					@Override
+					public void setAsteroidView(String view) {
+						model.setAsteroidPaintStrategy(IAsteroidPaintStrategy.MakeByName(view));
+					}
 				}, new IModelUpdateAdapter() {
 
 					@Override
@@ -113,4 +156,12 @@ public class Controller {
 		view.start();
 	}
 
+	/**
+	 * Labels the view's pause button from the model's paused flag, after a load or reset has changed it.
+	 */
+	private void syncPaused() {
+		boolean paused = model.getScheduler().isPaused();
+		SwingUtilities.invokeLater(() -> view.setPaused(paused));
+	}
+
 }
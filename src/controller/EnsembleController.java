@@ -0,0 +1,241 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+
+import model.Constants;
+import model.SimulationParameters;
+import model.analysis.AxisHistogram;
+import model.analysis.KirkwoodAnalysis;
+import model.analysis.Resonance;
+import model.ensemble.EnsembleMember;
+import model.ensemble.EnsembleRunner;
+import model.strategies.update.IIntegratorStrategy;
+
+/**
+ * Runs an ensemble of independent simulations without a view and merges their semi-major axis histograms.
+ * <p>
+ * Usage: <code>EnsembleController [--members M] [--steps N | --years Y] [--asteroids N] [--seed S]
+ * [--integrator tick|leapfrog|verlet|yoshida|wh] [--dt DT] [--threads N] [--jupiter-mass KG[,KG...]]
+ * [--no-mars] [--distance MIN:MAX] [--out DIR]</code>
+ * <p>
+ * Each member's seed is drawn from the ensemble seed, so the whole ensemble can be reproduced. When more than
+ * one Jupiter mass is given, the members take them in turn. The merged histogram is written to
+ * <code>histogram.csv</code>, each member's gaps to <code>members.csv</code> and the totals to
+ * <code>summary.txt</code>.
+ */
+public class EnsembleController {
+
+	/**
+	 * The number of members.
+	 */
+	private int memberCount = 8;
+
+	/**
+	 * The number of steps to run, or -1 to go by simulated years.
+	 */
+	private long steps = -1;
+
+	/**
+	 * The number of simulated years to run, when not going by steps.
+	 */
+	private double years = 1;
+
+	/**
+	 * The number of asteroids in each member.
+	 */
+	private int asteroidCount = 3000;
+
+	/**
+	 * The seed the members' seeds are drawn from.
+	 */
+	private long seed = 0;
+
+	/**
+	 * The name of the integrator.
+	 */
+	private String integrator = "tick";
+
+	/**
+	 * The time step, in ticks.
+	 */
+	private double dt = 1;
+
+	/**
+	 * The number of threads the ensemble runs on.
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The masses of Jupiter the members take in turn, in kg.
+	 */
+	private double[] jupiterMasses = { SimulationParameters.DEFAULT.getJupiterMass() };
+
+	/**
+	 * The setup shared by every member, apart from Jupiter's mass.
+	 */
+	private SimulationParameters parameters = SimulationParameters.DEFAULT;
+
+	/**
+	 * The directory results are written to.
+	 */
+	private File outDir = new File("ensemble");
+
+	/**
+	 * Constructor for a new EnsembleController.
+	 *
+	 * @param args the command line arguments
+	 */
+	public EnsembleController(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--members":
+				memberCount = Integer.parseInt(args[++i]);
+				break;
+			case "--steps":
+				steps = Long.parseLong(args[++i]);
+				break;
+			case "--years":
+				years = Double.parseDouble(args[++i]);
+				steps = -1;
+				break;
+			case "--asteroids":
+				asteroidCount = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--integrator":
+				integrator = args[++i];
+				break;
+			case "--dt":
+				dt = Double.parseDouble(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--jupiter-mass":
+				String[] masses = args[++i].split(",");
+				jupiterMasses = new double[masses.length];
+				for (int j = 0; j < masses.length; j++) {
+					jupiterMasses[j] = Double.parseDouble(masses[j]);
+				}
+				break;
+			case "--no-mars":
+				parameters = parameters.withMars(false);
+				break;
+			case "--distance":
+				String[] range = args[++i].split(":");
+				parameters = parameters.withAsteroidDistances(Double.parseDouble(range[0]),
+						Double.parseDouble(range[1]));
+				break;
+			case "--out":
+				outDir = new File(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+		IIntegratorStrategy.MakeByName(integrator).checkDt(dt);
+	}
+
+	/**
+	 * The ensemble startup function.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		try {
+			new EnsembleController(args).start();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Runs the ensemble and writes out the results.
+	 *
+	 * @throws IOException if the results can't be written
+	 * @throws ExecutionException if a member fails
+	 * @throws InterruptedException if interrupted while waiting for the members
+	 */
+	public void start() throws IOException, ExecutionException, InterruptedException {
+		if (!outDir.isDirectory() && !outDir.mkdirs()) {
+			throw new IOException("Can't create " + outDir);
+		}
+
+		double ticksPerYear = Constants.calculateTicksPerYear();
+		long totalSteps = steps >= 0 ? steps : (long) Math.ceil(years * ticksPerYear / dt);
+		SplittableRandom seeds = new SplittableRandom(seed);
+		List<EnsembleMember> members = new ArrayList<EnsembleMember>();
+		for (int i = 0; i < memberCount; i++) {
+			members.add(new EnsembleMember(seeds.nextLong(),
+					parameters.withJupiterMass(jupiterMasses[i % jupiterMasses.length]), asteroidCount, integrator,
+					dt, totalSteps));
+		}
+
+		long runStart = System.nanoTime();
+		List<KirkwoodAnalysis> results;
+		int parallelism;
+		try (EnsembleRunner runner = new EnsembleRunner(threads)) {
+			parallelism = runner.getParallelism();
+			results = runner.run(members);
+		}
+		double seconds = (System.nanoTime() - runStart) / 1e9;
+		AxisHistogram merged = EnsembleRunner.merge(results);
+
+		double perturberAxis = 0;
+		try (PrintWriter out = new PrintWriter(new File(outDir, "members.csv"))) {
+			out.print("member,seed,jupiterMass,mars,minDistance,maxDistance,jupiterAxisAU");
+			for (Resonance resonance : Resonance.values()) {
+				out.print(",depth" + resonance);
+			}
+			out.println();
+			for (int i = 0; i < members.size(); i++) {
+				EnsembleMember member = members.get(i);
+				KirkwoodAnalysis result = results.get(i);
+				SimulationParameters memberParameters = member.getParameters();
+				out.print(i + "," + member.getSeed() + "," + memberParameters.getJupiterMass() + ","
+						+ memberParameters.hasMars() + "," + memberParameters.getMinAsteroidDistance() + ","
+						+ memberParameters.getMaxAsteroidDistance() + "," + result.getPerturberAxis());
+				for (Resonance resonance : Resonance.values()) {
+					out.print("," + result.getDepth(resonance));
+				}
+				out.println();
+				perturberAxis += result.getPerturberAxis() / members.size();
+			}
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(outDir, "histogram.csv"))) {
+			out.println("axisAU,count,meanEccentricity");
+			for (int bin = 0; bin < merged.getBins(); bin++) {
+				out.println(merged.getBinCenter(bin) + "," + merged.getCount(bin) + ","
+						+ merged.getMeanEccentricity(bin));
+			}
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(outDir, "summary.txt"))) {
+			out.println("members=" + members.size());
+			out.println("threads=" + parallelism);
+			out.println("integrator=" + integrator);
+			out.println("dt=" + dt);
+			out.println("asteroidsPerMember=" + asteroidCount);
+			out.println("seed=" + seed);
+			out.println("steps=" + totalSteps);
+			out.println("simulatedYears=" + totalSteps * dt / ticksPerYear);
+			out.println("runSeconds=" + seconds);
+			out.println("memberStepsPerSecond=" + members.size() * totalSteps / seconds);
+			out.println("jupiterAxisAU=" + perturberAxis);
+			for (Resonance resonance : Resonance.values()) {
+				out.println("depth" + resonance + "=" + KirkwoodAnalysis.depth(merged, resonance, perturberAxis));
+			}
+		}
+	}
+}
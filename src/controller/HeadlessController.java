@@ -0,0 +1,439 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+import model.BallModel;
+import model.Constants;
+import model.analysis.AxisHistogram;
+import model.analysis.KirkwoodAnalysis;
+import model.analysis.Resonance;
+import model.balls.AsteroidField;
+import model.balls.IBall;
+import model.engine.BarnesHutTree;
+import model.engine.BlockTimeSteps;
+import model.engine.CollisionMerger;
+import model.engine.EncounterDetector;
+import model.engine.GravitySystem;
+import model.export.FrameExporter;
+import model.metrics.PhaseStats;
+import model.metrics.SimulationMetrics;
+import model.record.TrajectoryRecorder;
+import model.strategies.update.IIntegratorStrategy;
+
+/**
+ * Runs the simulation without a view, as fast as possible, and writes the results to files.
+ * <p>
+ * Usage: <code>HeadlessController [--steps N | --years Y] [--asteroids N] [--seed S] [--integrator tick|leapfrog|verlet|yoshida|wh]
+ * [--dt DT] [--threads N] [--sample-every K] [--checkpoint-every N] [--resume FILE] [--out DIR]
+ * [--export-every YEARS] [--export-size WxH] [--export-format png|rgb] [--export-dir DIR]
+ * [--record-every K] [--record-chunk FRAMES] [--record-raw] [--self-gravity THETA] [--softening PX]
+ * [--collisions INFLATION] [--density KG_PER_M3] [--encounters HILL_RADII] [--encounter-accuracy FRACTION]
+ * [--block-steps FRACTION] [--block-every K]</code>
+ * <p>
+ * The run stops once the total number of steps or years is reached, counting any already taken by a resumed
+ * checkpoint. A resumed run carries on with the integrator and time step it was checkpointed with. The tick
+ * integrator always advances one tick, so it only takes <code>--dt 1</code>. Frames are
+ * only exported when <code>--export-every</code> is given, to <code>frames</code> in the output directory unless
+ * <code>--export-dir</code> says otherwise. The run is recorded to <code>trajectory.bin</code> in the output
+ * directory every K steps when <code>--record-every</code> is given. With <code>--self-gravity</code> the
+ * asteroids pull on each other through a Barnes-Hut tree with the given opening angle, more than 0 and at
+ * most 1. With <code>--collisions</code> asteroids that overlap, with their radii blown up by the given factor,
+ * merge.
+ * With <code>--encounters</code> asteroids within the given number of Hill radii of a planet are sub-stepped.
+ * With <code>--block-steps</code> each asteroid takes power-of-two steps no longer than the given fraction of its
+ * dynamical time, with the levels assigned again every K steps.
+ */
+public class HeadlessController {
+
+	/**
+	 * The model being run.
+	 */
+	private BallModel model = new BallModel();
+
+	/**
+	 * The number of steps to run, or -1 to go by simulated years.
+	 */
+	private long steps = -1;
+
+	/**
+	 * The number of simulated years to run, when not going by steps.
+	 */
+	private double years = 1;
+
+	/**
+	 * The number of asteroids to make.
+	 */
+	private int asteroidCount = 3000;
+
+	/**
+	 * The number of steps between checkpoints, or 0 for none.
+	 */
+	private long checkpointInterval = 0;
+
+	/**
+	 * The checkpoint to resume from, or null to start afresh.
+	 */
+	private File resume = null;
+
+	/**
+	 * The directory results are written to.
+	 */
+	private File outDir = new File("headless");
+
+	/**
+	 * The number of simulated years between exported frames, or 0 for none.
+	 */
+	private double exportYears = 0;
+
+	/**
+	 * The width of the exported frames in pixels.
+	 */
+	private int exportWidth = Constants.canvasWidth;
+
+	/**
+	 * The height of the exported frames in pixels.
+	 */
+	private int exportHeight = Constants.canvasHeight;
+
+	/**
+	 * The format of the exported frames.
+	 */
+	private String exportFormat = FrameExporter.PNG;
+
+	/**
+	 * The directory frames are exported to, or null for one in the output directory.
+	 */
+	private File exportDir = null;
+
+	/**
+	 * The number of steps between recorded frames, or 0 for no recording.
+	 */
+	private int recordInterval = 0;
+
+	/**
+	 * The most recorded frames in a chunk.
+	 */
+	private int recordChunk = 64;
+
+	/**
+	 * Whether the recorded chunks are deflated, which makes the file smaller but means a player has to inflate
+	 * each chunk into memory rather than decode it straight from the mapped file.
+	 */
+	private boolean recordDeflate = true;
+
+	/**
+	 * The opening angle of the asteroids' self-gravity, or -1 for none.
+	 */
+	private double selfGravityTheta = -1;
+
+	/**
+	 * The softening length of the asteroids' self-gravity, in pixels.
+	 */
+	private double softening = 0.5;
+
+	/**
+	 * How many times bigger than their true size the asteroids are when colliding, or 0 for no collisions.
+	 */
+	private double collisionInflation = 0;
+
+	/**
+	 * The density of the asteroids when colliding, in kg/m^3.
+	 */
+	private double density = CollisionMerger.DEFAULT_DENSITY;
+
+	/**
+	 * How many Hill radii from a planet an encounter starts, or 0 for no sub-stepping.
+	 */
+	private double encounterHillRadii = 0;
+
+	/**
+	 * The largest fraction of an encounter's free-fall time a sub-step may take.
+	 */
+	private double encounterAccuracy = EncounterDetector.DEFAULT_ACCURACY;
+
+	/**
+	 * The largest fraction of an asteroid's dynamical time a block step may take, or 0 for no block steps.
+	 */
+	private double blockAccuracy = 0;
+
+	/**
+	 * The number of steps between block level assignments.
+	 */
+	private int blockInterval = BlockTimeSteps.DEFAULT_INTERVAL;
+
+	/**
+	 * Constructor for a new HeadlessController.
+	 *
+	 * @param args the command line arguments
+	 */
+	public HeadlessController(String[] args) {
+		IIntegratorStrategy integrator = model.getIntegrator();
+		double dt = model.getDt();
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--steps":
+				steps = Long.parseLong(args[++i]);
+				break;
+			case "--years":
+				years = Double.parseDouble(args[++i]);
+				steps = -1;
+				break;
+			case "--asteroids":
+				asteroidCount = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				model.setSeed(Long.parseLong(args[++i]));
+				break;
+			case "--integrator":
+				integrator = IIntegratorStrategy.MakeByName(args[++i]);
+				break;
+			case "--dt":
+				dt = Double.parseDouble(args[++i]);
+				break;
+			case "--sample-every":
+				model.getAnalysis().setInterval(Integer.parseInt(args[++i]));
+				break;
+			case "--checkpoint-every":
+				checkpointInterval = Long.parseLong(args[++i]);
+				break;
+			case "--resume":
+				resume = new File(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--out":
+				outDir = new File(args[++i]);
+				break;
+			case "--export-every":
+				exportYears = Double.parseDouble(args[++i]);
+				break;
+			case "--export-size":
+				String[] size = args[++i].split("x");
+				exportWidth = Integer.parseInt(size[0]);
+				exportHeight = Integer.parseInt(size[1]);
+				break;
+			case "--export-format":
+				exportFormat = args[++i];
+				break;
+			case "--export-dir":
+				exportDir = new File(args[++i]);
+				break;
+			case "--record-every":
+				recordInterval = Integer.parseInt(args[++i]);
+				break;
+			case "--record-chunk":
+				recordChunk = Integer.parseInt(args[++i]);
+				break;
+			case "--record-raw":
+				recordDeflate = false;
+				break;
+			case "--self-gravity":
+				selfGravityTheta = Double.parseDouble(args[++i]);
+				break;
+			case "--softening":
+				softening = Double.parseDouble(args[++i]);
+				break;
+			case "--collisions":
+				collisionInflation = Double.parseDouble(args[++i]);
+				break;
+			case "--density":
+				density = Double.parseDouble(args[++i]);
+				break;
+			case "--encounters":
+				encounterHillRadii = Double.parseDouble(args[++i]);
+				break;
+			case "--encounter-accuracy":
+				encounterAccuracy = Double.parseDouble(args[++i]);
+				break;
+			case "--block-steps":
+				blockAccuracy = Double.parseDouble(args[++i]);
+				break;
+			case "--block-every":
+				blockInterval = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+
+		model.setIntegrator(integrator, dt);
+		model.setParallelism(threads);
+		if (selfGravityTheta >= 0) {
+			model.setSelfGravity(new BarnesHutTree(selfGravityTheta, softening));
+		}
+		if (collisionInflation > 0) {
+			model.setCollisions(new CollisionMerger(density, collisionInflation));
+		}
+		if (encounterHillRadii > 0) {
+			model.setEncounters(new EncounterDetector(encounterHillRadii, encounterAccuracy));
+		}
+		if (blockAccuracy > 0) {
+			model.setBlockSteps(new BlockTimeSteps(blockAccuracy, blockInterval));
+		}
+	}
+
+	/**
+	 * The headless startup function.
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		try {
+			new HeadlessController(args).start();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Builds the system, runs it and writes out the results.
+	 *
+	 * @throws IOException if the results can't be written
+	 */
+	public void start() throws IOException {
+		if (!outDir.isDirectory() && !outDir.mkdirs()) {
+			throw new IOException("Can't create " + outDir);
+		}
+
+		long buildStart = System.nanoTime();
+		if (resume != null) {
+			model.restoreCheckpoint(resume);
+		} else {
+			model.makeBalls(asteroidCount);
+		}
+		long buildEnd = System.nanoTime();
+
+		double ticksPerYear = Constants.calculateTicksPerYear();
+		long totalSteps = steps >= 0 ? steps : (long) Math.ceil(years * ticksPerYear / model.getDt());
+		long startStep = model.getSystem().getSteps();
+		model.getMetrics().register();
+		model.setCheckpointing(new File(outDir, "checkpoint.bin"), checkpointInterval);
+		FrameExporter exporter = null;
+		if (exportYears > 0) {
+			exporter = new FrameExporter(exportDir != null ? exportDir : new File(outDir, "frames"),
+					exportYears * ticksPerYear, exportWidth, exportHeight, exportFormat, 4,
+					Math.max(Runtime.getRuntime().availableProcessors() / 4, 1));
+			model.setFrameExporter(exporter);
+		}
+		if (recordInterval > 0) {
+			model.setTrajectoryRecorder(new TrajectoryRecorder(new File(outDir, "trajectory.bin"), recordInterval,
+					recordChunk, recordDeflate, model.getDt(), model.getSeed()));
+		}
+
+		model.getMetrics().resetTimings();
+		while (model.getSystem().getSteps() < totalSteps) {
+			model.update();
+		}
+		long runEnd = System.nanoTime();
+		model.flushCheckpoints();
+		model.setFrameExporter(null);
+		model.setTrajectoryRecorder(null);
+
+		writeState(new File(outDir, "state.csv"));
+		model.getAnalysis().sample(model.getSystem());
+		writeHistogram(new File(outDir, "histogram.csv"));
+
+		double seconds = (runEnd - buildEnd) / 1e9;
+		GravitySystem system = model.getSystem();
+		try (PrintWriter out = new PrintWriter(new File(outDir, "summary.txt"))) {
+			out.println("integrator=" + model.getIntegrator());
+			out.println("dt=" + model.getDt());
+			out.println("threads=" + system.getEngine().getParallelism());
+			out.println("asteroids=" + system.getAsteroids().size());
+			out.println("seed=" + model.getSeed());
+			out.println("steps=" + system.getSteps());
+			out.println("startStep=" + startStep);
+			out.println("simulatedYears=" + system.getTime() / ticksPerYear);
+			out.println("buildSeconds=" + (buildEnd - buildStart) / 1e9);
+			out.println("runSeconds=" + seconds);
+			out.println("stepsPerSecond=" + (system.getSteps() - startStep) / seconds);
+			out.println("yearsPerSecond=" + (system.getSteps() - startStep) * model.getDt() / ticksPerYear / seconds);
+			KirkwoodAnalysis analysis = model.getAnalysis();
+			if (system.getSelfGravity() != null) {
+				out.println("selfGravityTheta=" + system.getSelfGravity().getTheta());
+				out.println("softening=" + system.getSelfGravity().getSoftening());
+			}
+			if (system.getCollisions() != null) {
+				out.println("collisionInflation=" + system.getCollisions().getInflation());
+				out.println("merged=" + system.getCollisions().getMerged());
+			}
+			if (system.getEncounters() != null) {
+				out.println("encounterHillRadii=" + system.getEncounters().getHillRadii());
+				out.println("encounterSteps=" + system.getEncounters().getEncounters());
+			}
+			if (system.getBlockSteps() != null) {
+				out.println("blockAccuracy=" + system.getBlockSteps().getAccuracy());
+				out.println("blockInterval=" + system.getBlockSteps().getInterval());
+				out.println("levelled=" + system.getBlockSteps().getLevelled());
+			}
+			if (system.getEncounters() != null || system.getBlockSteps() != null) {
+				out.println("substeps=" + system.getSubstepper().getSubsteps());
+			}
+			out.println("jupiterAxisAU=" + analysis.getPerturberAxis());
+			for (Resonance resonance : Resonance.values()) {
+				out.println("depth" + resonance + "=" + analysis.getDepth(resonance));
+			}
+			if (exporter != null) {
+				out.println("framesWritten=" + exporter.getWritten());
+				out.println("framesDropped=" + exporter.getDropped());
+			}
+			SimulationMetrics metrics = model.getMetrics();
+			out.println("allocationBytesPerSecond=" + metrics.getAllocationBytesPerSecond());
+			for (Map.Entry<String, PhaseStats> phase : metrics.getPhases().entrySet()) {
+				out.println("phase." + phase.getKey() + "=" + phase.getValue());
+			}
+		}
+		model.getMetrics().unregister();
+		model.setParallelism(1);
+	}
+
+	/**
+	 * Writes the semi-major axis histogram of the final state.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file can't be written
+	 */
+	private void writeHistogram(File file) throws IOException {
+		AxisHistogram histogram = model.getAnalysis().getHistogram();
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println("axisAU,count,meanEccentricity");
+			for (int bin = 0; bin < histogram.getBins(); bin++) {
+				out.println(histogram.getBinCenter(bin) + "," + histogram.getCount(bin) + ","
+						+ histogram.getMeanEccentricity(bin));
+			}
+		}
+	}
+
+	/**
+	 * Writes the position, velocity and mass of every body and asteroid.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file can't be written
+	 */
+	private void writeState(File file) throws IOException {
+		GravitySystem system = model.getSystem();
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println("type,colorClass,x,y,vx,vy,mass");
+			List<IBall> bodies = system.getBodies();
+			for (IBall body : bodies) {
+				out.println(body.getClass().getSimpleName() + ",," + body.getX() + "," + body.getY() + ","
+						+ body.getVelocityX() + "," + body.getVelocityY() + "," + body.getMass());
+			}
+			AsteroidField asteroids = system.getAsteroids();
+			for (int i = 0; i < asteroids.size(); i++) {
+				out.println("AsteroidBall," + asteroids.getColorClass()[i] + "," + asteroids.getX()[i] + ","
+						+ asteroids.getY()[i] + "," + asteroids.getVx()[i] + "," + asteroids.getVy()[i] + ","
+						+ asteroids.getMass()[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.io.File;
+import java.io.IOException;
+
+import model.ReplayModel;
+import model.adapters.IViewControlAdapter;
+import model.adapters.IViewUpdateAdapter;
+import model.strategies.paint.IAsteroidPaintStrategy;
+import provided.utils.displayModel.IATImage;
+import view.IModelUpdateAdapter;
+import view.IReplayControlAdapter;
+import view.ReplayGUI;
+
+/**
+ * The controller for playing back a recorded run.
+ * <p>
+ * Usage: <code>ReplayController [FILE]</code>
+ */
+public class ReplayController {
+
+	/**
+	 * The model that plays the recording.
+	 */
+	private ReplayModel model;
+
+	/**
+	 * The frame where everything is displayed (the view).
+	 */
+	private ReplayGUI view;
+
+	/**
+	 * Constructor for a new ReplayController.
+	 */
+	public ReplayController() {
+		this.model = new ReplayModel(new IViewControlAdapter() {
+
+			@Override
+			public Component getCanvas() {
+				return view.getCanvas();
+			}
+
+			@Override
+			public IATImage getIATImage(Image image) {
+				return IATImage.FACTORY.apply(image, view.getCanvas());
+			}
+
+		}, new IViewUpdateAdapter() {
+
+			@Override
+			public void update() {
+				view.update(model.getFrame(), model.getFrameCount(), model.isPlaying());
+			}
+
+			@Override
+			public void setStatus(String status) {
+				view.setStatus(status);
+			}
+
+		});
+
+		this.view = new ReplayGUI(new IReplayControlAdapter() {
+
+			@Override
+			public void open(File file) {
+				try {
+					model.open(file);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+
+			@Override
+			public void play() {
+				model.play();
+				view.update(model.getFrame(), model.getFrameCount(), model.isPlaying());
+			}
+
+			@Override
+			public void pause() {
+				model.pause();
+				view.update(model.getFrame(), model.getFrameCount(), model.isPlaying());
+			}
+
+			@Override
+			public void setSpeed(int speed) {
+				model.setSpeed(speed);
+			}
+
+			@Override
+			public void seek(int frame) {
+				model.seek(frame);
+			}
+
+			@Override
+			public void seekYears(double years) {
+				model.seekYears(years);
+			}
+
+			@Override
+			public void setAsteroidView(String view) {
+				model.setAsteroidPaintStrategy(IAsteroidPaintStrategy.MakeByName(view));
+			}
+		}, new IModelUpdateAdapter() {
+
+			@Override
+			public void update(Graphics g) {
+				model.paint(g);
+			}
+		});
+	}
+
+	/**
+	 * The replay startup function.
+	 *
+	 * @param args the recording to open, if any
+	 */
+	public static void main(String[] args) {
+		EventQueue.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					ReplayController controller = new ReplayController();
+					controller.start();
+					if (args.length > 0) {
+						controller.model.open(new File(args[0]));
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Start up the view.
+	 */
+	public void start() {
+		view.start();
+	}
+
+}
@@ -2,25 +2,50 @@ package model;
 
 import java.awt.Graphics;
 import java.awt.Image;
-import java.awt.Rectangle;
-import java.awt.Robot;
-import java.awt.Toolkit;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.swing.Timer;
 
 import model.adapters.IModel2BallAdapter;
 import model.adapters.IViewControlAdapter;
 import model.adapters.IViewUpdateAdapter;
-import model.balls.AsteroidBall;
+import model.analysis.KirkwoodAnalysis;
+import model.analysis.Resonance;
+import model.balls.AsteroidField;
 import model.balls.IBall;
 import model.balls.JupiterBall;
 import model.balls.MarsBall;
 import model.balls.SunBall;
+import model.checkpoint.Checkpoint;
+import model.checkpoint.CheckpointWriter;
+import model.engine.BarnesHutTree;
+import model.engine.BlockTimeSteps;
+import model.engine.CollisionMerger;
+import model.engine.DensityGrid;
+import model.engine.EncounterDetector;
+import model.engine.GravitySystem;
+import model.engine.InitialConditions;
+import model.engine.SimulationScheduler;
+import model.engine.Snapshot;
+import model.engine.SnapshotBuffer;
+import model.engine.StepEngine;
+import model.export.FrameExporter;
+import model.metrics.PaintFrameEvent;
+import model.metrics.Phase;
+import model.metrics.SimulationMetrics;
+import model.metrics.StepEvent;
+import model.record.TrajectoryRecorder;
+import model.strategies.paint.AsteroidRasterStrategy;
+import model.strategies.paint.IAsteroidPaintStrategy;
+import model.strategies.update.IIntegratorStrategy;
+import model.strategies.update.TickStrategy;
 import model.visitors.cmds.IBallCmd;
 import provided.utils.dispatcher.IDispatcher;
-import provided.utils.dispatcher.IObserver;
 import provided.utils.dispatcher.impl.SequentialDispatcher;
 import provided.utils.displayModel.IATImage;
 
@@ -29,13 +54,41 @@ import provided.utils.displayModel.IATImage;
  */
 public class BallModel {
 	/**
-	 * The number of screenshots taken.
+	 * The number of simulated years between the pictures of the progress the GUI saves.
 	 */
-	private int captures = 0;
+	private static final double PROGRESS_YEARS = 1000;
 	/**
 	 * The IDispatcher whose IObservers are ABall objects.
 	 */
 	private IDispatcher<IBallCmd> ballDispatcher = new SequentialDispatcher<IBallCmd>();
+	/**
+	 * The massive bodies, in the order they were added to the dispatcher.
+	 */
+	private List<IBall> bodies = new ArrayList<IBall>();
+	/**
+	 * The asteroids, which are stepped directly instead of through the dispatcher.
+	 */
+	private AsteroidField asteroids = new AsteroidField(3000);
+	/**
+	 * Runs the asteroid updates, in parallel chunks when there is more than one thread.
+	 */
+	private StepEngine engine = new StepEngine(Runtime.getRuntime().availableProcessors());
+	/**
+	 * The massive bodies and asteroids, advanced together.
+	 */
+	private GravitySystem system = new GravitySystem(bodies, asteroids, engine);
+	/**
+	 * Tracks the Kirkwood gaps as the system evolves.
+	 */
+	private KirkwoodAnalysis analysis = new KirkwoodAnalysis(100);
+	/**
+	 * The integrator that advances the system.
+	 */
+	private IIntegratorStrategy integrator = new TickStrategy();
+	/**
+	 * The time step, in ticks.
+	 */
+	private double dt = 1;
 	/**
 	 * The model to view update adapter created by the controller.
 	 */
@@ -45,18 +98,75 @@ public class BallModel {
 	 */
 	private IViewControlAdapter viewCtrlAdpt = IViewControlAdapter.NULL_OBJECT;
 	/**
-	 * The timer managing the update time.
+	 * Runs the simulation on its own thread.
+	 */
+	private SimulationScheduler scheduler = new SimulationScheduler(this::update, this::requestFrame);
+	/**
+	 * The snapshots the simulation publishes for painting.
 	 */
-	private Timer timer = new Timer(200, (e) -> viewUpdtAdpt.update());
+	private SnapshotBuffer snapshots = new SnapshotBuffer();
+	/**
+	 * Paints the asteroids in each snapshot.
+	 */
+	private volatile IAsteroidPaintStrategy asteroidPainter = new AsteroidRasterStrategy();
+	/**
+	 * Counts the asteroids for the density heat map, made the first time it is needed.
+	 */
+	private DensityGrid densityGrid;
+	/**
+	 * Whether a repaint has been requested and not yet painted, so frames don't pile up on the view.
+	 */
+	private AtomicBoolean framePending = new AtomicBoolean(false);
+	/**
+	 * The seed the asteroids were last drawn from.
+	 */
+	private long seed = 0;
+	/**
+	 * Whether every population is drawn from {@link #seed}, rather than a fresh one each time.
+	 */
+	private boolean fixedSeed = false;
+	/**
+	 * The physical setup the next population is made with.
+	 */
+	private SimulationParameters parameters = SimulationParameters.DEFAULT;
+	/**
+	 * Writes checkpoints in the background.
+	 */
+	private CheckpointWriter checkpointWriter = new CheckpointWriter();
+	/**
+	 * The file periodic checkpoints are written to.
+	 */
+	private File checkpointFile = null;
+	/**
+	 * The number of steps between checkpoints, or 0 for none.
+	 */
+	private long checkpointInterval = 0;
+	/**
+	 * Exports frames as the simulation runs, or null for none.
+	 */
+	private FrameExporter frameExporter = null;
+	/**
+	 * Records the run as it goes, or null for none.
+	 */
+	private TrajectoryRecorder recorder = null;
+	/**
+	 * Lets the bodies wrap their images for the view.
+	 */
+	private IModel2BallAdapter ballAdapter = new IModel2BallAdapter() {
+		@Override
+		public IATImage getImageWrapper(Image image) {
+			return viewCtrlAdpt.getIATImage(image);
+		}
+	};
 	/**
 	 * The timer managing the update time.
 	 */
-	private Timer timer2 = new Timer(900000, (e) -> {
-		new Thread() {
-			public void run() {
-				screenshot();
-			}
-		}.start();
+	private Timer timer = new Timer(200, (e) -> {
+		viewUpdtAdpt.update();
+		viewUpdtAdpt.setStatus(String.format("%,.0f steps/s   gaps 3:1 %.2f  5:2 %.2f  7:3 %.2f  2:1 %.2f",
+				scheduler.getAchievedStepsPerSecond(), analysis.getDepth(Resonance.THREE_ONE),
+				analysis.getDepth(Resonance.FIVE_TWO), analysis.getDepth(Resonance.SEVEN_THREE),
+				analysis.getDepth(Resonance.TWO_ONE)));
 	});
 
 	/**
@@ -70,109 +180,416 @@ public class BallModel {
 	}
 
 	/**
-	 * Starts the timer.
+	 * Constructor for a headless BallModel, which has no view to paint to.
+	 */
+	public BallModel() {
+		this(IViewControlAdapter.NULL_OBJECT, IViewUpdateAdapter.NULL_OBJECT);
+	}
+
+	/**
+	 * Starts the timer, and saves a picture of the progress every {@link #PROGRESS_YEARS} simulated years.
 	 */
 	public void start() {
 		this.timer.start();
-		this.timer2.start();
+		this.setFrameExporter(new FrameExporter(new File(System.getProperty("user.home"), "Kirkwood Progress"),
+				PROGRESS_YEARS * Constants.calculateTicksPerYear(), Constants.canvasWidth,
+				Constants.canvasHeight, FrameExporter.PNG, 2, 1));
 	}
 
 	/**
-	 * Clears all Balls from the dispatcher.
+	 * Stops the simulation and clears all Balls from the dispatcher. The metrics stop being published until the
+	 * next run is loaded.
 	 */
-	public void clearBalls() {
+	public synchronized void clearBalls() {
+		scheduler.stop();
+		system.getMetrics().unregister();
 		ballDispatcher.removeAllObservers();
+		bodies.clear();
+		asteroids.clear();
+		system.reset();
+		system.setClock(0, 0);
+		analysis.clear();
+		snapshots.publish(system);
 	}
 
 	/**
-	 * Loads all the balls in.
+	 * Loads all the balls in, publishes their metrics and starts the simulation, replacing anything already
+	 * running.
 	 */
-	public void loadBalls() {		
-		IObserver<IBallCmd> mars = new MarsBall(viewCtrlAdpt.getCanvas(), new IModel2BallAdapter() {
-			@Override
-			public IATImage getImageWrapper(Image image) {
-				return viewCtrlAdpt.getIATImage(image);
-			}
-		});
-		
-		ballDispatcher.addObserver(mars);
-		
-		IObserver<IBallCmd> sun = new SunBall(viewCtrlAdpt.getCanvas(), new IModel2BallAdapter() {
-			@Override
-			public IATImage getImageWrapper(Image image) {
-				return viewCtrlAdpt.getIATImage(image);
-			}
-		});
-		
-		ballDispatcher.addObserver(sun);
-		
-		IObserver<IBallCmd> jupiter = new JupiterBall(viewCtrlAdpt.getCanvas(), new IModel2BallAdapter() {
-			@Override
-			public IATImage getImageWrapper(Image image) {
-				return viewCtrlAdpt.getIATImage(image);
-			}
-		});
-		
-		ballDispatcher.addObserver(jupiter);
-		
-		for (int i = 0; i < 3000; i++) {
-			IObserver<IBallCmd> asteroid = new AsteroidBall(viewCtrlAdpt.getCanvas(), new IModel2BallAdapter() {
-				@Override
-				public IATImage getImageWrapper(Image image) {
-					return viewCtrlAdpt.getIATImage(image);
-				}
-			});
-			
-			ballDispatcher.addObserver(asteroid);
+	public synchronized void loadBalls() {
+		clearBalls();
+		makeBalls(3000);
+		snapshots.publish(system);
+		system.getMetrics().register();
+		scheduler.start();
+	}
+
+	/**
+	 * @return the scheduler running the simulation
+	 */
+	public SimulationScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Publishes a snapshot at a frame boundary and asks the view to repaint it, unless a repaint is already
+	 * on its way.
+	 */
+	private void requestFrame() {
+		snapshots.publish(system);
+		if (framePending.compareAndSet(false, true)) {
+			viewUpdtAdpt.update();
 		}
-		
-		while (true) {
-			update();
+	}
+
+	/**
+	 * Makes the sun, Mars, Jupiter and the given number of asteroids, drawn from the seed if one was set
+	 * and from a fresh random seed otherwise.
+	 * Nothing here needs a view, so this also works headless.
+	 *
+	 * @param asteroidCount the number of asteroids to make
+	 */
+	public void makeBalls(int asteroidCount) {
+		if (parameters.hasMars()) {
+			addBody(new MarsBall(viewCtrlAdpt.getCanvas(), ballAdapter));
 		}
+
+		addBody(new SunBall(viewCtrlAdpt.getCanvas(), ballAdapter));
+
+		addBody(new JupiterBall(viewCtrlAdpt.getCanvas(), ballAdapter, parameters.getJupiterMass()));
+		
+
+		seed = fixedSeed ? seed : InitialConditions.randomSeed();
+		new InitialConditions(seed, parameters).populate(asteroids, asteroidCount, engine);
+		system.reset();
+		analysis.sample(system);
 	}
 
 	/**
-	 * Updates all that ABalls that are observers.
+	 * Adds a massive body to the dispatcher and the system.
+	 *
+	 * @param body the body to add
+	 */
+	private void addBody(IBall body) {
+		ballDispatcher.addObserver(body);
+		bodies.add(body);
+	}
+
+	/**
+	 * Advances the massive bodies and asteroids by one step of the integrator, sampling the gaps and writing
+	 * a checkpoint when due.
 	 */
 	public void update() {
-		ballDispatcher.updateAll(new IBallCmd() {
+		SimulationMetrics metrics = system.getMetrics();
+		StepEvent event = new StepEvent();
+		event.begin();
+		long start = SimulationMetrics.start();
+		system.step(integrator, dt);
+
+		long phaseStart = SimulationMetrics.start();
+		if (analysis.afterStep(system)) {
+			metrics.end(Phase.ANALYSIS, phaseStart);
+		}
+
+		phaseStart = SimulationMetrics.start();
+		boolean output = false;
+		if (checkpointInterval > 0 && system.getSteps() % checkpointInterval == 0) {
+			output = checkpointWriter.write(system, integrator.toString(), dt, seed, checkpointFile);
+		}
+		if (frameExporter != null) {
+			output |= frameExporter.afterStep(system);
+		}
+		if (recorder != null) {
+			output |= recorder.afterStep(system);
+		}
+		if (output) {
+			metrics.end(Phase.OUTPUT, phaseStart);
+		}
+
+		metrics.afterStep(system);
+		metrics.end(Phase.STEP, start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.step = system.getSteps();
+			event.bodyCount = system.getBodies().size();
+			event.asteroidCount = system.getAsteroids().size();
+			event.integrator = integrator.toString();
+			event.commit();
+		}
+	}
 
-			@Override
-			public void apply(IBall context, IDispatcher<IBallCmd> disp) {
-				context.move();
-				context.interact(disp);
-				context.updateState(disp);
+	/**
+	 * @return the timings and throughput of the run
+	 */
+	public SimulationMetrics getMetrics() {
+		return system.getMetrics();
+	}
+
+	/**
+	 * Records the run with the given recorder from now on, finishing and closing the previous one.
+	 *
+	 * @param recorder the recorder, or null to stop recording
+	 */
+	public void setTrajectoryRecorder(TrajectoryRecorder recorder) {
+		scheduler.runExclusive(() -> {
+			if (this.recorder != null && this.recorder != recorder) {
+				try {
+					this.recorder.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}
+			this.recorder = recorder;
+		});
+	}
 
+	/**
+	 * Exports frames with the given exporter from now on, replacing the previous one, which is closed once
+	 * it has written its queued frames.
+	 *
+	 * @param exporter the exporter, or null to stop exporting
+	 */
+	public void setFrameExporter(FrameExporter exporter) {
+		FrameExporter[] previous = new FrameExporter[1];
+		if (exporter != null) {
+			exporter.setMetrics(system.getMetrics());
+		}
+		scheduler.runExclusive(() -> {
+			previous[0] = frameExporter;
+			frameExporter = exporter;
 		});
+		if (previous[0] != null && previous[0] != exporter) {
+			previous[0].close();
+		}
 	}
-	
+
 	/**
-	 * Paints the system to the view.
+	 * Draws every population from the given seed, so runs can be reproduced.
 	 *
-	 * @param g the graphics object provided by the view.
+	 * @param seed the seed
 	 */
-	public void paint(Graphics g) {
-		ballDispatcher.updateAll(new IBallCmd() {
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.fixedSeed = true;
+	}
 
-			@Override
-			public void apply(IBall context, IDispatcher<IBallCmd> disp) {
-				context.paint(g);
-			}
+	/**
+	 * @return the seed the current asteroids were drawn from
+	 */
+	public long getSeed() {
+		return seed;
+	}
 
+	/**
+	 * Writes a checkpoint every so many steps, replacing the previous one.
+	 *
+	 * @param file the file to write the checkpoints to
+	 * @param interval the number of steps between checkpoints, or 0 to stop writing them
+	 */
+	public void setCheckpointing(File file, long interval) {
+		scheduler.runExclusive(() -> {
+			checkpointFile = file;
+			checkpointInterval = file == null ? 0 : Math.max(interval, 0);
 		});
 	}
+
+	/**
+	 * Writes a checkpoint of the current state in the background, between steps.
+	 *
+	 * @param file the file to write to
+	 */
+	public void saveCheckpoint(File file) {
+		scheduler.runExclusive(() -> checkpointWriter.write(system, integrator.toString(), dt, seed, file));
+	}
+
+	/**
+	 * Waits for every checkpoint that has been started to be written.
+	 */
+	public void flushCheckpoints() {
+		checkpointWriter.flush();
+	}
+
+	/**
+	 * Stops the simulation and replaces everything with the state in a checkpoint, along with the integrator
+	 * and time step it was running with, so carrying on from here gives exactly the same results as the
+	 * original run.
+	 *
+	 * @param file the checkpoint to restore
+	 * @throws IOException if the checkpoint can't be read
+	 */
+	public synchronized void restoreCheckpoint(File file) throws IOException {
+		Checkpoint checkpoint = new Checkpoint();
+		checkpoint.load(file);
+		IIntegratorStrategy restoredIntegrator = IIntegratorStrategy.MakeByName(checkpoint.getIntegrator());
+
+		clearBalls();
+		for (int j = 0; j < checkpoint.getBodyCount(); j++) {
+			IBall body = Checkpoint.makeBody(checkpoint.getBodyType(j), viewCtrlAdpt.getCanvas(), ballAdapter);
+			checkpoint.restoreBody(j, body);
+			addBody(body);
+		}
+		checkpoint.restoreAsteroids(asteroids);
+		setIntegrator(restoredIntegrator, checkpoint.getDt());
+		seed = checkpoint.getSeed();
+		system.setClock(checkpoint.getStep(), checkpoint.getTime());
+		system.reset();
+		analysis.sample(system);
+		snapshots.publish(system);
+	}
+
+	/**
+	 * Selects the integrator and the time step it advances by.
+	 *
+	 * @param integrator the integrator to use
+	 * @param dt the time step, in ticks
+	 * @throws IllegalArgumentException if the integrator can't take that time step
+	 */
+	public void setIntegrator(IIntegratorStrategy integrator, double dt) {
+		integrator.checkDt(dt);
+		this.integrator = integrator;
+		this.dt = dt;
+	}
+
+	/**
+	 * @return the analysis tracking the Kirkwood gaps
+	 */
+	public KirkwoodAnalysis getAnalysis() {
+		return analysis;
+	}
+
+	/**
+	 * @return the massive bodies and asteroids being simulated
+	 */
+	public GravitySystem getSystem() {
+		return system;
+	}
+
+	/**
+	 * @return the integrator in use
+	 */
+	public IIntegratorStrategy getIntegrator() {
+		return integrator;
+	}
+
+	/**
+	 * @return the time step, in ticks
+	 */
+	public double getDt() {
+		return dt;
+	}
+
+	/**
+	 * Sets how many threads step the asteroids.
+	 *
+	 * @param parallelism the number of threads, where 1 steps everything on the simulation thread
+	 */
+	public void setParallelism(int parallelism) {
+		engine.setParallelism(parallelism);
+	}
+
+	/**
+	 * Makes the asteroids pull on each other through a Barnes-Hut tree, or stops them.
+	 *
+	 * @param selfGravity the tree to pull through, or null for none
+	 */
+	public void setSelfGravity(BarnesHutTree selfGravity) {
+		scheduler.runExclusive(() -> system.setSelfGravity(selfGravity));
+	}
+
+	/**
+	 * Makes overlapping asteroids merge after each step, or stops them.
+	 *
+	 * @param collisions the merger to use, or null for none
+	 */
+	public void setCollisions(CollisionMerger collisions) {
+		scheduler.runExclusive(() -> system.setCollisions(collisions));
+	}
+
+	/**
+	 * Sub-steps the asteroids having close encounters with the planets, or stops.
+	 *
+	 * @param encounters what finds the encounters, or null for none
+	 */
+	public void setEncounters(EncounterDetector encounters) {
+		scheduler.runExclusive(() -> system.setEncounters(encounters));
+	}
+
+	/**
+	 * Gives the asteroids power-of-two step levels from their dynamical times, or stops.
+	 *
+	 * @param blockSteps what assigns the levels, or null for none
+	 */
+	public void setBlockSteps(BlockTimeSteps blockSteps) {
+		scheduler.runExclusive(() -> system.setBlockSteps(blockSteps));
+	}
+
+	/**
+	 * Runs the asteroid updates on a pool shared with other models, which this one won't shut down.
+	 *
+	 * @param pool the shared pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		engine.setPool(pool);
+	}
+
+	/**
+	 * @param parameters the physical setup the next population is made with
+	 */
+	public void setParameters(SimulationParameters parameters) {
+		this.parameters = parameters;
+	}
+
+	/**
+	 * @return the physical setup the next population is made with
+	 */
+	public SimulationParameters getParameters() {
+		return parameters;
+	}
 	
 	/**
-	 * Takes a screenshot of the progress.
+	 * @param asteroidPainter the strategy that paints the asteroids
+	 */
+	public void setAsteroidPaintStrategy(IAsteroidPaintStrategy asteroidPainter) {
+		scheduler.runExclusive(() -> {
+			this.asteroidPainter = asteroidPainter;
+			if (asteroidPainter.usesDensity() && densityGrid == null) {
+				densityGrid = new DensityGrid();
+			}
+			snapshots.setDensityGrid(asteroidPainter.usesDensity() ? densityGrid : null);
+			snapshots.publish(system);
+		});
+		viewUpdtAdpt.update();
+	}
+
+	/**
+	 * @return the strategy that paints the asteroids
 	 */
-	public void screenshot() {
-		try {
-			Rectangle screenRect = new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
-			BufferedImage capture = new Robot().createScreenCapture(screenRect);
-			ImageIO.write(capture, "bmp", new File("C:\\Users\\2scac\\Desktop\\Kirkwood Progress\\" + captures++ + ".bmp"));
-		} catch (Exception e1) {
-			e1.printStackTrace();
+	public IAsteroidPaintStrategy getAsteroidPaintStrategy() {
+		return asteroidPainter;
+	}
+
+	/**
+	 * Paints the latest snapshot of the system to the view. This never touches the live simulation,
+	 * so it needs no locking and never holds up the simulation thread.
+	 *
+	 * @param g the graphics object provided by the view.
+	 */
+	public void paint(Graphics g) {
+		framePending.set(false);
+		Snapshot snapshot = snapshots.acquire();
+		if (snapshot != null) {
+			PaintFrameEvent event = new PaintFrameEvent();
+			event.begin();
+			long start = SimulationMetrics.start();
+			snapshot.paint(g, asteroidPainter);
+			system.getMetrics().end(Phase.PAINT, start);
+			event.end();
+			if (event.shouldCommit()) {
+				event.step = snapshot.getStep();
+				event.asteroidCount = snapshot.getAsteroidCount();
+				event.painter = asteroidPainter.getClass().getSimpleName();
+				event.commit();
+			}
 		}
 	}
 }
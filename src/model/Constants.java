@@ -1,12 +1,14 @@
 package model;
 
 import java.awt.geom.Point2D;
+import java.util.SplittableRandom;
 
 import provided.utils.valueGenerator.impl.Randomizer;
 import provided.utils.valueGenerator.impl.VectorUtil;
 
 /**
- * Holds the constants.
+ * Holds the constants. None of them change, so any number of simulations can share them; what differs from
+ * one simulation to the next lives in a {@link SimulationParameters}.
  * 
  * @author Phoebe Scaccia
  */
@@ -14,37 +16,57 @@ public class Constants {
 	/**
 	 * The mass of the sun.
 	 */
-	public static double sunMass = 1.9885e30;
+	public static final double sunMass = 1.9885e30;
 	
 	/**
 	 * The gravitational constant.
 	 */
-	public static double gravitationalConstant = 6.673e-11;
+	public static final double gravitationalConstant = 6.673e-11;
 	
 	/**
-	 * The position of the sun in the GUI.
+	 * The x position of the sun in the GUI.
 	 */
-	public static Point2D.Double sunPosition = new Point2D.Double(722.5, 395.5);
+	public static final double sunX = 722.5;
+	
+	/**
+	 * The y position of the sun in the GUI.
+	 */
+	public static final double sunY = 395.5;
+	
+	/**
+	 * The width of the canvas in the GUI, which has the sun in the middle.
+	 */
+	public static final int canvasWidth = (int) (2 * sunX);
+	
+	/**
+	 * The height of the canvas in the GUI, which has the sun in the middle.
+	 */
+	public static final int canvasHeight = (int) (2 * sunY);
 	
 	/**
 	 * Conversion value for km to pixels for GUI display.
 	 */
-	public static double kmToPixels = 2e6;
+	public static final double kmToPixels = 2e6;
+	
+	/**
+	 * The length of an astronomical unit in km.
+	 */
+	public static final double auToKm = 1.495978707e8;
 	
 	/**
 	 * The scaling for the radii.
 	 */
-	private static double radiusScale = 1e3;
+	private static final double radiusScale = 1e3;
 	
 	/**
-	 * The mass range for an asteroid.
+	 * The mass range for an asteroid, in kg.
 	 */
-	private static Point2D.Double asteroidMassRange = new Point2D.Double(1e10, 1e18);
+	private static final Point2D.Double asteroidMassRange = new Point2D.Double(1e10, 1e18);
 	
 	/**
-	 * The distance range for an asteroid.
+	 * The distance range for an asteroid, in km.
 	 */
-	private static Point2D.Double asteroidDistanceRange = new Point2D.Double(3.08e8, 4.79e8);
+	private static final Point2D.Double asteroidDistanceRange = new Point2D.Double(3.08e8, 4.79e8);
 	
 	/**
 	 * Calculates the starting position.
@@ -58,8 +80,8 @@ public class Constants {
 		
 		VectorUtil.Singleton.rotate(position, angle);
 		
-		position.x += sunPosition.x;
-		position.y += sunPosition.y;
+		position.x += sunX;
+		position.y += sunY;
 		
 		return position;
 		
@@ -82,6 +104,26 @@ public class Constants {
 		return velocity;
 	}
 	
+	/**
+	 * Calculates the gravitational parameter used by the simulation, with G scaled to pixels.
+	 *
+	 * @param mass the mass of the gravitational source
+	 * @return G times the mass
+	 */
+	public static double calculateGM(double mass) {
+		return (gravitationalConstant / 1e17) * mass;
+	}
+	
+	/**
+	 * Calculates how many ticks make up a year, i.e. one orbit at 1 AU around the sun.
+	 *
+	 * @return the number of ticks in a year
+	 */
+	public static double calculateTicksPerYear() {
+		double distance = auToKm / kmToPixels;
+		return 2 * Math.PI * Math.sqrt(distance * distance * distance / calculateGM(sunMass));
+	}
+	
 	/**
 	 * Scales the radius.
 	 *
@@ -109,4 +151,52 @@ public class Constants {
 	public static double getRandomAsteroidDistance() {
 		return Randomizer.Singleton.randomDouble(asteroidDistanceRange.x, asteroidDistanceRange.y);		
 	}
+	
+	/**
+	 * @return the smallest mass an asteroid starts with, in kg
+	 */
+	public static double getMinAsteroidMass() {
+		return asteroidMassRange.x;
+	}
+	
+	/**
+	 * @return the largest mass an asteroid starts with, in kg
+	 */
+	public static double getMaxAsteroidMass() {
+		return asteroidMassRange.y;
+	}
+	
+	/**
+	 * @return the closest an asteroid starts to the sun, in km
+	 */
+	public static double getMinAsteroidDistance() {
+		return asteroidDistanceRange.x;
+	}
+	
+	/**
+	 * @return the furthest an asteroid starts from the sun, in km
+	 */
+	public static double getMaxAsteroidDistance() {
+		return asteroidDistanceRange.y;
+	}
+	
+	/**
+	 * Gets a random asteroid mass from the given generator.
+	 *
+	 * @param random the generator to draw from
+	 * @return a mass
+	 */
+	public static double getRandomAsteroidMass(SplittableRandom random) {
+		return random.nextDouble(asteroidMassRange.x, asteroidMassRange.y);
+	}
+	
+	/**
+	 * Gets a random asteroid distance from the given generator.
+	 *
+	 * @param random the generator to draw from
+	 * @return a distance
+	 */
+	public static double getRandomAsteroidDistance(SplittableRandom random) {
+		return random.nextDouble(asteroidDistanceRange.x, asteroidDistanceRange.y);
+	}
 }
@@ -0,0 +1,237 @@
+package model;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.Timer;
+
+import model.adapters.IModel2BallAdapter;
+import model.adapters.IViewControlAdapter;
+import model.adapters.IViewUpdateAdapter;
+import model.balls.IBall;
+import model.checkpoint.Checkpoint;
+import model.engine.Snapshot;
+import model.record.TrajectoryReader;
+import model.strategies.paint.AsteroidRasterStrategy;
+import model.strategies.paint.IAsteroidPaintStrategy;
+import provided.utils.displayModel.IATImage;
+
+/**
+ * Plays back a recorded run. Frames are read from the recording into a snapshot and painted just like the
+ * live simulation's, without any integrating. Everything happens on the GUI thread, so the snapshot is never
+ * painted while it is being filled in.
+ */
+public class ReplayModel {
+	/**
+	 * The time between frames while playing, in milliseconds.
+	 */
+	private static final int FRAME_MILLIS = 33;
+
+	/**
+	 * The model to view control adapter.
+	 */
+	private IViewControlAdapter viewCtrlAdpt;
+
+	/**
+	 * The model to view update adapter.
+	 */
+	private IViewUpdateAdapter viewUpdtAdpt;
+
+	/**
+	 * Lets the bodies wrap their images for the view.
+	 */
+	private IModel2BallAdapter ballAdapter = new IModel2BallAdapter() {
+		@Override
+		public IATImage getImageWrapper(Image image) {
+			return viewCtrlAdpt.getIATImage(image);
+		}
+	};
+
+	/**
+	 * The recording being played, or null if none is open.
+	 */
+	private TrajectoryReader reader = null;
+
+	/**
+	 * The bodies, which paint themselves at the recorded positions.
+	 */
+	private IBall[] bodies = new IBall[0];
+
+	/**
+	 * The frame being shown.
+	 */
+	private Snapshot snapshot = new Snapshot();
+
+	/**
+	 * The index of the frame being shown, or -1 for none.
+	 */
+	private int frame = -1;
+
+	/**
+	 * The number of frames to advance each time the timer fires.
+	 */
+	private int speed = 1;
+
+	/**
+	 * The strategy that paints the asteroids.
+	 */
+	private IAsteroidPaintStrategy asteroidPainter = new AsteroidRasterStrategy();
+
+	/**
+	 * Advances the playback.
+	 */
+	private Timer timer = new Timer(FRAME_MILLIS, (e) -> {
+		if (this.frame + 1 >= this.getFrameCount()) {
+			this.pause();
+		} else {
+			this.seek(Math.min(this.frame + this.speed, this.getFrameCount() - 1));
+		}
+	});
+
+	/**
+	 * Constructor for a new ReplayModel.
+	 *
+	 * @param viewCtrlAdpt the model to view control adapter
+	 * @param viewUpdtAdpt the model to view update adapter
+	 */
+	public ReplayModel(IViewControlAdapter viewCtrlAdpt, IViewUpdateAdapter viewUpdtAdpt) {
+		this.viewCtrlAdpt = viewCtrlAdpt;
+		this.viewUpdtAdpt = viewUpdtAdpt;
+	}
+
+	/**
+	 * Opens a recording, closing the one before, and shows its first frame.
+	 *
+	 * @param file the recording
+	 * @throws IOException if it can't be opened
+	 */
+	public void open(File file) throws IOException {
+		TrajectoryReader opened = new TrajectoryReader(file);
+		this.close();
+		this.reader = opened;
+		byte[] types = opened.getBodyTypes();
+		this.bodies = new IBall[types.length];
+		for (int j = 0; j < types.length; j++) {
+			this.bodies[j] = Checkpoint.makeBody(types[j], this.viewCtrlAdpt.getCanvas(), this.ballAdapter);
+		}
+		this.frame = -1;
+		if (opened.getFrameCount() > 0) {
+			this.seek(0);
+		}
+	}
+
+	/**
+	 * Stops playing and closes the recording.
+	 */
+	public void close() {
+		this.pause();
+		if (this.reader != null) {
+			try {
+				this.reader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		this.reader = null;
+		this.frame = -1;
+	}
+
+	/**
+	 * Starts playing from the frame being shown.
+	 */
+	public void play() {
+		if (this.reader != null) {
+			this.timer.start();
+		}
+	}
+
+	/**
+	 * Stops playing, leaving the frame being shown.
+	 */
+	public void pause() {
+		this.timer.stop();
+	}
+
+	/**
+	 * @return <code>true</code> if playing, <code>false</code> otherwise
+	 */
+	public boolean isPlaying() {
+		return this.timer.isRunning();
+	}
+
+	/**
+	 * @param speed the number of recorded frames to advance on each displayed frame
+	 */
+	public void setSpeed(int speed) {
+		this.speed = Math.max(speed, 1);
+	}
+
+	/**
+	 * Shows the given frame.
+	 *
+	 * @param frame the index of the frame
+	 */
+	public void seek(int frame) {
+		if (this.reader == null || frame == this.frame) {
+			return;
+		}
+		try {
+			this.reader.read(frame, this.snapshot, this.bodies);
+			this.frame = frame;
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.pause();
+			return;
+		}
+		this.viewUpdtAdpt.setStatus(String.format("step %,d   %,.1f years", this.reader.getStep(),
+				this.reader.getTime() / Constants.calculateTicksPerYear()));
+		this.viewUpdtAdpt.update();
+	}
+
+	/**
+	 * Shows the frame nearest the given simulated time.
+	 *
+	 * @param years the simulated time in years
+	 */
+	public void seekYears(double years) {
+		if (this.reader != null) {
+			long step = Math.round(years * Constants.calculateTicksPerYear() / this.reader.getDt());
+			this.seek(this.reader.frameOfStep(step));
+		}
+	}
+
+	/**
+	 * @param asteroidPainter the strategy that paints the asteroids
+	 */
+	public void setAsteroidPaintStrategy(IAsteroidPaintStrategy asteroidPainter) {
+		this.asteroidPainter = asteroidPainter;
+		this.viewUpdtAdpt.update();
+	}
+
+	/**
+	 * @return the index of the frame being shown, or -1 for none
+	 */
+	public int getFrame() {
+		return this.frame;
+	}
+
+	/**
+	 * @return the number of frames in the recording, or 0 if none is open
+	 */
+	public int getFrameCount() {
+		return this.reader == null ? 0 : this.reader.getFrameCount();
+	}
+
+	/**
+	 * Paints the frame being shown.
+	 *
+	 * @param g the graphics object provided by the view
+	 */
+	public void paint(Graphics g) {
+		if (this.frame >= 0) {
+			this.snapshot.paint(g, this.asteroidPainter);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.util.SplittableRandom;
+
+import model.balls.JupiterBall;
+
+/**
+ * The physical setup of one simulation: how massive Jupiter is, whether Mars is there, and the ranges the
+ * asteroids are drawn from. It never changes once made, so simulations running side by side can each have
+ * their own without sharing anything mutable.
+ */
+public class SimulationParameters {
+	/**
+	 * The solar system as it is.
+	 */
+	public static final SimulationParameters DEFAULT = new SimulationParameters(JupiterBall.MASS, true,
+			Constants.getMinAsteroidDistance(), Constants.getMaxAsteroidDistance());
+
+	/**
+	 * The mass of Jupiter, in kg.
+	 */
+	private final double jupiterMass;
+
+	/**
+	 * Whether Mars is in the system.
+	 */
+	private final boolean mars;
+
+	/**
+	 * The closest an asteroid starts to the sun, in km.
+	 */
+	private final double minAsteroidDistance;
+
+	/**
+	 * The furthest an asteroid starts from the sun, in km.
+	 */
+	private final double maxAsteroidDistance;
+
+	/**
+	 * Constructor for a new SimulationParameters.
+	 *
+	 * @param jupiterMass the mass of Jupiter, in kg
+	 * @param mars whether Mars is in the system
+	 * @param minAsteroidDistance the closest an asteroid starts to the sun, in km
+	 * @param maxAsteroidDistance the furthest an asteroid starts from the sun, in km
+	 */
+	public SimulationParameters(double jupiterMass, boolean mars, double minAsteroidDistance,
+			double maxAsteroidDistance) {
+		if (!(minAsteroidDistance > 0 && maxAsteroidDistance > minAsteroidDistance)) {
+			throw new IllegalArgumentException(
+					"Bad asteroid distance range: " + minAsteroidDistance + " to " + maxAsteroidDistance);
+		}
+		this.jupiterMass = jupiterMass;
+		this.mars = mars;
+		this.minAsteroidDistance = minAsteroidDistance;
+		this.maxAsteroidDistance = maxAsteroidDistance;
+	}
+
+	/**
+	 * @param jupiterMass the mass of Jupiter, in kg
+	 * @return these parameters with Jupiter's mass changed
+	 */
+	public SimulationParameters withJupiterMass(double jupiterMass) {
+		return new SimulationParameters(jupiterMass, this.mars, this.minAsteroidDistance, this.maxAsteroidDistance);
+	}
+
+	/**
+	 * @param mars whether Mars is in the system
+	 * @return these parameters with Mars added or taken away
+	 */
+	public SimulationParameters withMars(boolean mars) {
+		return new SimulationParameters(this.jupiterMass, mars, this.minAsteroidDistance, this.maxAsteroidDistance);
+	}
+
+	/**
+	 * @param min the closest an asteroid starts to the sun, in km
+	 * @param max the furthest an asteroid starts from the sun, in km
+	 * @return these parameters with the asteroids' distance range changed
+	 */
+	public SimulationParameters withAsteroidDistances(double min, double max) {
+		return new SimulationParameters(this.jupiterMass, this.mars, min, max);
+	}
+
+	/**
+	 * Gets a random asteroid distance from the given generator.
+	 *
+	 * @param random the generator to draw from
+	 * @return a distance, in km
+	 */
+	public double getRandomAsteroidDistance(SplittableRandom random) {
+		return random.nextDouble(this.minAsteroidDistance, this.maxAsteroidDistance);
+	}
+
+	/**
+	 * @return the mass of Jupiter, in kg
+	 */
+	public double getJupiterMass() {
+		return this.jupiterMass;
+	}
+
+	/**
+	 * @return whether Mars is in the system
+	 */
+	public boolean hasMars() {
+		return this.mars;
+	}
+
+	/**
+	 * @return the closest an asteroid starts to the sun, in km
+	 */
+	public double getMinAsteroidDistance() {
+		return this.minAsteroidDistance;
+	}
+
+	/**
+	 * @return the furthest an asteroid starts from the sun, in km
+	 */
+	public double getMaxAsteroidDistance() {
+		return this.maxAsteroidDistance;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("jupiterMass=%g mars=%b asteroidDistance=%g-%g", this.jupiterMass, this.mars,
+				this.minAsteroidDistance, this.maxAsteroidDistance);
+	}
+}
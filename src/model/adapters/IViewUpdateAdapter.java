@@ -10,6 +10,13 @@ public interface IViewUpdateAdapter {
 	 */
 	public void update();
 
+	/**
+	 * Shows the given status, e.g. the simulation's throughput.
+	 *
+	 * @param status the status to show
+	 */
+	public void setStatus(String status);
+
 	/**
 	 * Default null object for the adapter.
 	 */
@@ -18,6 +25,9 @@ public interface IViewUpdateAdapter {
 		public void update() {
 		}
 
+		public void setStatus(String status) {
+		}
+
 	};
 
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package model.analysis;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of semi-major axes over a fixed range, with the mean eccentricity in each bin. The bins are
+ * allocated once, so adding to it never allocates.
+ */
+public class AxisHistogram {
+	/**
+	 * The lower edge of the first bin.
+	 */
+	private final double min;
+
+	/**
+	 * The width of each bin.
+	 */
+	private final double binWidth;
+
+	/**
+	 * The number of asteroids in each bin.
+	 */
+	private final long[] counts;
+
+	/**
+	 * The sum of the eccentricities in each bin.
+	 */
+	private final double[] eccentricities;
+
+	/**
+	 * The number of asteroids outside the range, including unbound ones.
+	 */
+	private long outside = 0;
+
+	/**
+	 * Constructor for a new AxisHistogram.
+	 *
+	 * @param min the smallest semi-major axis binned
+	 * @param max the largest semi-major axis binned
+	 * @param bins the number of bins
+	 */
+	public AxisHistogram(double min, double max, int bins) {
+		if (!(max > min) || bins < 1) {
+			throw new IllegalArgumentException("Bad histogram range: " + min + " to " + max + " in " + bins);
+		}
+		this.min = min;
+		this.binWidth = (max - min) / bins;
+		this.counts = new long[bins];
+		this.eccentricities = new double[bins];
+	}
+
+	/**
+	 * Constructor for a new AxisHistogram with the same bins and counts as another.
+	 *
+	 * @param other the histogram to copy
+	 */
+	public AxisHistogram(AxisHistogram other) {
+		this.min = other.min;
+		this.binWidth = other.binWidth;
+		this.counts = other.counts.clone();
+		this.eccentricities = other.eccentricities.clone();
+		this.outside = other.outside;
+	}
+
+	/**
+	 * Adds an asteroid to the histogram.
+	 *
+	 * @param axis the semi-major axis, or NaN if unbound
+	 * @param eccentricity the eccentricity
+	 */
+	public void add(double axis, double eccentricity) {
+		int bin = this.binOf(axis);
+		if (bin < 0) {
+			this.outside++;
+		} else {
+			this.counts[bin]++;
+			this.eccentricities[bin] += eccentricity;
+		}
+	}
+
+	/**
+	 * Adds everything in another histogram with the same bins to this one.
+	 *
+	 * @param other the histogram to add
+	 */
+	public void merge(AxisHistogram other) {
+		if (other.counts.length != this.counts.length || other.min != this.min || other.binWidth != this.binWidth) {
+			throw new IllegalArgumentException("Can't merge histograms with different bins");
+		}
+		for (int bin = 0; bin < this.counts.length; bin++) {
+			this.counts[bin] += other.counts[bin];
+			this.eccentricities[bin] += other.eccentricities[bin];
+		}
+		this.outside += other.outside;
+	}
+
+	/**
+	 * Empties every bin.
+	 */
+	public void clear() {
+		Arrays.fill(this.counts, 0);
+		Arrays.fill(this.eccentricities, 0);
+		this.outside = 0;
+	}
+
+	/**
+	 * Finds the bin a semi-major axis falls in.
+	 *
+	 * @param axis the semi-major axis
+	 * @return the bin, or -1 if it is outside the range
+	 */
+	public int binOf(double axis) {
+		double bin = (axis - this.min) / this.binWidth;
+		return bin >= 0 && bin < this.counts.length ? (int) bin : -1;
+	}
+
+	/**
+	 * Measures how empty the bins around a semi-major axis are compared to the bins on either side of them.
+	 * 0 means there is no gap, 1 means the gap is completely empty.
+	 *
+	 * @param axis the semi-major axis at the middle of the gap
+	 * @param gapHalfWidth the number of bins either side of the middle that count as the gap
+	 * @param backgroundWidth the number of bins either side of the gap that count as the background
+	 * @return the depth of the gap, or NaN if the background is empty or out of range
+	 */
+	public double depth(double axis, int gapHalfWidth, int backgroundWidth) {
+		int center = this.binOf(axis);
+		if (center < 0) {
+			return Double.NaN;
+		}
+		double gap = this.meanCount(center - gapHalfWidth, center + gapHalfWidth);
+		double background = (this.meanCount(center - gapHalfWidth - backgroundWidth, center - gapHalfWidth - 1)
+				+ this.meanCount(center + gapHalfWidth + 1, center + gapHalfWidth + backgroundWidth)) / 2;
+		return background > 0 ? 1 - gap / background : Double.NaN;
+	}
+
+	/**
+	 * Averages the counts over a range of bins, clipped to the histogram.
+	 *
+	 * @param from the first bin
+	 * @param to the last bin, inclusive
+	 * @return the mean count, or NaN if the range is empty
+	 */
+	private double meanCount(int from, int to) {
+		from = Math.max(from, 0);
+		to = Math.min(to, this.counts.length - 1);
+		long sum = 0;
+		for (int bin = from; bin <= to; bin++) {
+			sum += this.counts[bin];
+		}
+		return to >= from ? (double) sum / (to - from + 1) : Double.NaN;
+	}
+
+	/**
+	 * @return the number of bins
+	 */
+	public int getBins() {
+		return this.counts.length;
+	}
+
+	/**
+	 * @param bin the bin
+	 * @return the semi-major axis at the middle of the bin
+	 */
+	public double getBinCenter(int bin) {
+		return this.min + (bin + 0.5) * this.binWidth;
+	}
+
+	/**
+	 * @param bin the bin
+	 * @return the number of asteroids in the bin
+	 */
+	public long getCount(int bin) {
+		return this.counts[bin];
+	}
+
+	/**
+	 * @param bin the bin
+	 * @return the mean eccentricity of the asteroids in the bin, or NaN if it is empty
+	 */
+	public double getMeanEccentricity(int bin) {
+		return this.counts[bin] > 0 ? this.eccentricities[bin] / this.counts[bin] : Double.NaN;
+	}
+
+	/**
+	 * @return the number of asteroids outside the range, including unbound ones
+	 */
+	public long getOutside() {
+		return this.outside;
+	}
+}
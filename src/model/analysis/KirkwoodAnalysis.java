@@ -0,0 +1,290 @@
+package model.analysis;
+
+import java.util.Arrays;
+
+import model.Constants;
+import model.balls.AsteroidField;
+import model.balls.Attractors;
+import model.engine.GravitySystem;
+import model.metrics.AnalysisSampleEvent;
+
+/**
+ * Watches the Kirkwood gaps open. Every few steps it works out each asteroid's osculating orbit around the
+ * central body, bins the semi-major axes, and measures how deep the bins at each {@link Resonance} with the
+ * most massive orbiting body are. Each sample is one pass over the asteroids into preallocated bins.
+ */
+public class KirkwoodAnalysis {
+	/**
+	 * The number of bins either side of a resonance that count as the gap.
+	 */
+	private static final int GAP_HALF_WIDTH = 2;
+
+	/**
+	 * The number of bins either side of a gap that count as the background.
+	 */
+	private static final int BACKGROUND_WIDTH = 6;
+
+	/**
+	 * Every resonance, cached because values() copies the array on every call.
+	 */
+	private static final Resonance[] RESONANCES = Resonance.values();
+
+	/**
+	 * The semi-major axes of the latest sample, in AU.
+	 */
+	private final AxisHistogram histogram;
+
+	/**
+	 * The number of steps between samples.
+	 */
+	private volatile int interval;
+
+	/**
+	 * The depths of the resonances, swapped with {@link #spareDepths} so a reader never sees one half written.
+	 */
+	private volatile double[] depths = new double[RESONANCES.length];
+
+	/**
+	 * The depths being written by the next sample.
+	 */
+	private double[] spareDepths = new double[RESONANCES.length];
+
+	/**
+	 * The semi-major axis of the perturbing body in the latest sample, in AU.
+	 */
+	private volatile double perturberAxis = Double.NaN;
+
+	/**
+	 * The step the latest sample was taken after, or -1 if there hasn't been one.
+	 */
+	private volatile long sampledStep = -1;
+
+	/**
+	 * The bodies, loaded fresh for each sample so the system's own copy is never touched between steps.
+	 */
+	private final Attractors attractors = new Attractors();
+
+	/**
+	 * Constructor for a new KirkwoodAnalysis, binning 1.5 to 4 AU in 0.01 AU bins.
+	 *
+	 * @param interval the number of steps between samples
+	 */
+	public KirkwoodAnalysis(int interval) {
+		this(interval, new AxisHistogram(1.5, 4, 250));
+	}
+
+	/**
+	 * Constructor for a new KirkwoodAnalysis.
+	 *
+	 * @param interval the number of steps between samples
+	 * @param histogram the histogram to fill, in AU
+	 */
+	public KirkwoodAnalysis(int interval, AxisHistogram histogram) {
+		this.histogram = histogram;
+		this.setInterval(interval);
+		this.clear();
+	}
+
+	/**
+	 * Takes a sample if the system has reached the next one. Called after every step.
+	 *
+	 * @param system the system that was stepped
+	 * @return <code>true</code> if a sample was taken, <code>false</code> otherwise
+	 */
+	public boolean afterStep(GravitySystem system) {
+		if (system.getSteps() % this.interval == 0) {
+			this.sample(system);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Rebuilds the histogram and the resonance depths from the current state of the system. Must be called on
+	 * the thread that steps the system. Without a central body every depth is NaN.
+	 *
+	 * @param system the system to sample
+	 */
+	public void sample(GravitySystem system) {
+		AnalysisSampleEvent event = new AnalysisSampleEvent();
+		event.begin();
+		Attractors attractors = this.attractors;
+		attractors.load(system.getBodies());
+		int central = attractors.getCentral();
+		if (central < 0) {
+			// nothing to measure orbits against, so don't leave the last system's depths showing
+			this.histogram.clear();
+			double[] written = this.spareDepths;
+			Arrays.fill(written, Double.NaN);
+			this.spareDepths = this.depths;
+			this.depths = written;
+			this.perturberAxis = Double.NaN;
+			this.sampledStep = system.getSteps();
+			this.commit(event, this.sampledStep, 0, Double.NaN);
+			return;
+		}
+		double cx = attractors.getX()[central];
+		double cy = attractors.getY()[central];
+		double cvx = attractors.getVx()[central];
+		double cvy = attractors.getVy()[central];
+		double mu = attractors.getGM()[central];
+		double pixelsToAU = Constants.kmToPixels / Constants.auToKm;
+
+		int perturber = -1;
+		for (int j = 0; j < attractors.size(); j++) {
+			if (!attractors.getPinned()[j] && (perturber < 0 || attractors.getGM()[j] > attractors.getGM()[perturber])) {
+				perturber = j;
+			}
+		}
+		double jupiterAxis = perturber < 0 ? Double.NaN
+				: semiMajorAxis(attractors.getX()[perturber] - cx, attractors.getY()[perturber] - cy,
+						attractors.getVx()[perturber] - cvx, attractors.getVy()[perturber] - cvy, mu) * pixelsToAU;
+
+		AsteroidField asteroids = system.getAsteroids();
+		double[] x = asteroids.getX();
+		double[] y = asteroids.getY();
+		double[] vx = asteroids.getVx();
+		double[] vy = asteroids.getVy();
+		this.histogram.clear();
+		for (int i = 0; i < asteroids.size(); i++) {
+			double rx = x[i] - cx;
+			double ry = y[i] - cy;
+			double pvx = vx[i] - cvx;
+			double pvy = vy[i] - cvy;
+			double axis = semiMajorAxis(rx, ry, pvx, pvy, mu);
+			this.histogram.add(axis * pixelsToAU, eccentricity(rx, ry, pvx, pvy, mu));
+		}
+
+		double[] written = this.spareDepths;
+		for (Resonance resonance : RESONANCES) {
+			written[resonance.ordinal()] = depth(this.histogram, resonance, jupiterAxis);
+		}
+		this.spareDepths = this.depths;
+		this.depths = written;
+		this.perturberAxis = jupiterAxis;
+		this.sampledStep = system.getSteps();
+		this.commit(event, this.sampledStep, asteroids.size(), jupiterAxis);
+	}
+
+	/**
+	 * Ends a sample's event and records it if it is enabled.
+	 *
+	 * @param event the event begun by the sample
+	 * @param step the step the sample was taken after
+	 * @param asteroidCount the number of asteroids binned
+	 * @param perturberAxis the semi-major axis of the perturbing body, in AU
+	 */
+	private void commit(AnalysisSampleEvent event, long step, int asteroidCount, double perturberAxis) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.step = step;
+			event.asteroidCount = asteroidCount;
+			event.perturberAxis = perturberAxis;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Forgets the latest sample.
+	 */
+	public void clear() {
+		this.histogram.clear();
+		Arrays.fill(this.depths, Double.NaN);
+		this.perturberAxis = Double.NaN;
+		this.sampledStep = -1;
+	}
+
+	/**
+	 * Measures how deep the gap at a resonance is in a histogram, which may hold more than one sample.
+	 *
+	 * @param histogram the semi-major axes, in AU
+	 * @param resonance the resonance
+	 * @param perturberAxis the semi-major axis of the perturbing body, in AU
+	 * @return 0 for no gap up to 1 for an empty gap, or NaN if it can't be measured
+	 */
+	public static double depth(AxisHistogram histogram, Resonance resonance, double perturberAxis) {
+		return histogram.depth(resonance.getSemiMajorAxis(perturberAxis), GAP_HALF_WIDTH, BACKGROUND_WIDTH);
+	}
+
+	/**
+	 * Calculates the osculating semi-major axis of a two-body orbit.
+	 *
+	 * @param rx the x position relative to the central body
+	 * @param ry the y position relative to the central body
+	 * @param vx the x velocity relative to the central body
+	 * @param vy the y velocity relative to the central body
+	 * @param mu the gravitational parameter of the central body
+	 * @return the semi-major axis, or NaN if the orbit is unbound
+	 */
+	public static double semiMajorAxis(double rx, double ry, double vx, double vy, double mu) {
+		double inverse = 2 / Math.sqrt(rx * rx + ry * ry) - (vx * vx + vy * vy) / mu;
+		return inverse > 0 ? 1 / inverse : Double.NaN;
+	}
+
+	/**
+	 * Calculates the osculating eccentricity of a two-body orbit, from the length of its eccentricity vector.
+	 *
+	 * @param rx the x position relative to the central body
+	 * @param ry the y position relative to the central body
+	 * @param vx the x velocity relative to the central body
+	 * @param vy the y velocity relative to the central body
+	 * @param mu the gravitational parameter of the central body
+	 * @return the eccentricity
+	 */
+	public static double eccentricity(double rx, double ry, double vx, double vy, double mu) {
+		double r = Math.sqrt(rx * rx + ry * ry);
+		double radial = (vx * vx + vy * vy) / mu - 1 / r;
+		double dot = (rx * vx + ry * vy) / mu;
+		double ex = radial * rx - dot * vx;
+		double ey = radial * ry - dot * vy;
+		return Math.sqrt(ex * ex + ey * ey);
+	}
+
+	/**
+	 * @param interval the number of steps between samples
+	 */
+	public void setInterval(int interval) {
+		this.interval = Math.max(interval, 1);
+	}
+
+	/**
+	 * @return the number of steps between samples
+	 */
+	public int getInterval() {
+		return this.interval;
+	}
+
+	/**
+	 * Gets how deep a gap is in the latest sample. Safe to call from any thread.
+	 *
+	 * @param resonance the resonance
+	 * @return 0 for no gap up to 1 for an empty gap, or NaN if it can't be measured yet
+	 */
+	public double getDepth(Resonance resonance) {
+		return this.depths[resonance.ordinal()];
+	}
+
+	/**
+	 * @return the semi-major axis of the perturbing body in the latest sample, in AU
+	 */
+	public double getPerturberAxis() {
+		return this.perturberAxis;
+	}
+
+	/**
+	 * @return the step the latest sample was taken after, or -1 if there hasn't been one
+	 */
+	public long getSampledStep() {
+		return this.sampledStep;
+	}
+
+	/**
+	 * Gets the histogram of the latest sample. It is rebuilt in place, so only read it on the thread that
+	 * steps the system, or between steps.
+	 *
+	 * @return the histogram, in AU
+	 */
+	public AxisHistogram getHistogram() {
+		return this.histogram;
+	}
+}
@@ -0,0 +1,62 @@
+package model.analysis;
+
+/**
+ * The mean-motion resonances with Jupiter where the Kirkwood gaps open up.
+ */
+public enum Resonance {
+	/**
+	 * Three asteroid orbits for every Jupiter orbit, at about 2.5 AU.
+	 */
+	THREE_ONE(3, 1),
+
+	/**
+	 * Five asteroid orbits for every two Jupiter orbits, at about 2.82 AU.
+	 */
+	FIVE_TWO(5, 2),
+
+	/**
+	 * Seven asteroid orbits for every three Jupiter orbits, at about 2.95 AU.
+	 */
+	SEVEN_THREE(7, 3),
+
+	/**
+	 * Two asteroid orbits for every Jupiter orbit, at about 3.28 AU.
+	 */
+	TWO_ONE(2, 1);
+
+	/**
+	 * The number of asteroid orbits.
+	 */
+	private final int asteroidOrbits;
+
+	/**
+	 * The number of Jupiter orbits.
+	 */
+	private final int jupiterOrbits;
+
+	/**
+	 * Constructor for a new Resonance.
+	 *
+	 * @param asteroidOrbits the number of asteroid orbits
+	 * @param jupiterOrbits the number of Jupiter orbits they take
+	 */
+	private Resonance(int asteroidOrbits, int jupiterOrbits) {
+		this.asteroidOrbits = asteroidOrbits;
+		this.jupiterOrbits = jupiterOrbits;
+	}
+
+	/**
+	 * Calculates where the resonance is from Kepler's third law.
+	 *
+	 * @param jupiterAxis Jupiter's semi-major axis
+	 * @return the semi-major axis of the resonance, in the same units
+	 */
+	public double getSemiMajorAxis(double jupiterAxis) {
+		return jupiterAxis * Math.pow((double) this.jupiterOrbits / this.asteroidOrbits, 2.0 / 3);
+	}
+
+	@Override
+	public String toString() {
+		return this.asteroidOrbits + ":" + this.jupiterOrbits;
+	}
+}
@@ -125,6 +125,42 @@ public abstract class ABall extends ABallHost<IBall> implements IBall {
 	 */
 	private IModel2BallAdapter modelAdapter;
 
+	/**
+	 * The dispatcher the current interaction is running over.
+	 */
+	private transient IDispatcher<IBallCmd> interactDispatcher;
+
+	/**
+	 * The command sent to every other ball during an interaction, made once so interacting doesn't allocate.
+	 */
+	private final IBallCmd interactCmd = new IBallCmd() {
+		@Override
+		public void apply(IBall other, IDispatcher<IBallCmd> disp) {
+			IBall context = ABall.this;
+			IBallCmd contextPostInteractCmd = null;
+//			IBallCmd otherPostInteractCmd = null;
+
+			if (context.getCriteriaStrategy().satisfied(context, other)) {
+				// Have the balls interact based on their interact strategies
+
+				contextPostInteractCmd = context.interactWith(other, disp);
+			}
+
+//			if (other.getCriteriaStrategy().satisfied(other, context)) {
+//				// Have the balls interact based on their interact strategies
+//				otherPostInteractCmd = other.interactWith(context, disp);
+//			}
+
+			// Apply the interactions
+			if (contextPostInteractCmd != null) {
+				context.update(interactDispatcher, contextPostInteractCmd);
+			}
+//			if (otherPostInteractCmd != null) {
+//				other.update(interactDispatcher, otherPostInteractCmd);
+//			}
+		}
+	};
+
 	/**
 	 * Constructor for an ABall.
 	 * 
@@ -169,6 +205,22 @@ public abstract class ABall extends ABallHost<IBall> implements IBall {
 		this.pos = pos;
 	}
 
+	@Override
+	public void setLocation(double x, double y) {
+		this.pos.x = x;
+		this.pos.y = y;
+	}
+
+	@Override
+	public double getX() {
+		return this.pos.x;
+	}
+
+	@Override
+	public double getY() {
+		return this.pos.y;
+	}
+
 	/**
 	 * @return the ABall's radius.
 	 */
@@ -201,6 +253,28 @@ public abstract class ABall extends ABallHost<IBall> implements IBall {
 		this.vel = velocity;
 	}
 
+	@Override
+	public void setVelocity(double vx, double vy) {
+		this.vel.x = vx;
+		this.vel.y = vy;
+	}
+
+	@Override
+	public double getVelocityX() {
+		return this.vel.x;
+	}
+
+	@Override
+	public double getVelocityY() {
+		return this.vel.y;
+	}
+
+	@Override
+	public void accelerate(double dvx, double dvy) {
+		this.vel.x += dvx;
+		this.vel.y += dvy;
+	}
+
 	/**
 	 * @return the paintStrategy
 	 */
@@ -300,34 +374,8 @@ public abstract class ABall extends ABallHost<IBall> implements IBall {
 	}
 
 	public void interact(IDispatcher<IBallCmd> dispatcher) {
-		IBall context = this;
-
-		dispatcher.updateAll(new IBallCmd() {
-			@Override
-			public void apply(IBall other, IDispatcher<IBallCmd> disp) {
-				IBallCmd contextPostInteractCmd = null;
-//				IBallCmd otherPostInteractCmd = null;
-
-				if (context.getCriteriaStrategy().satisfied(context, other)) {
-					// Have the balls interact based on their interact strategies
-
-					contextPostInteractCmd = context.interactWith(other, disp);
-				}
-
-//				if (other.getCriteriaStrategy().satisfied(other, context)) {
-//					// Have the balls interact based on their interact strategies
-//					otherPostInteractCmd = other.interactWith(context, disp);
-//				}
-
-				// Apply the interactions
-				if (contextPostInteractCmd != null) {
-					context.update(dispatcher, contextPostInteractCmd);
-				}
-//				if (otherPostInteractCmd != null) {
-//					other.update(dispatcher, otherPostInteractCmd);
-//				}
-			}
-		});
+		this.interactDispatcher = dispatcher;
+		dispatcher.updateAll(this.interactCmd);
 	}
 
 	@Override
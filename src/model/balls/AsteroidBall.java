@@ -2,7 +2,6 @@ package model.balls;
 
 import java.awt.Color;
 import java.awt.Component;
-import java.awt.geom.Point2D;
 
 import model.Constants;
 import model.adapters.IModel2BallAdapter;
@@ -11,7 +10,6 @@ import model.visitors.cmds.IBallCmd;
 import provided.ballworld.extVisitors.IBallHostID;
 import provided.ballworld.extVisitors.impl.BallHostIDFactory;
 import provided.utils.dispatcher.IDispatcher;
-import provided.utils.valueGenerator.impl.VectorUtil;
 
 /**
  * An asteroid ball.
@@ -35,23 +33,30 @@ public class AsteroidBall extends ABall {
 	private Color color;
 	
 	/**
-	 * Constructor for a new MarsBall.
+	 * Constructor for a new AsteroidBall at a random place on a circular orbit.
 	 * 
 	 * @param container the ABall's container.
 	 * @param modelAdapter The adapter to the model this ball is used in
 	 */
 	public AsteroidBall(Component container, IModel2BallAdapter modelAdapter) {
-		super(AsteroidBall.id, Constants.getRandomAsteroidDistance(), Math.toRadians(Math.random() * 360), 20, 
-				Constants.getRandomAsteroidMass(), container, new ConfigAsteroidBallAlgo(), modelAdapter);
-		Point2D distanceVector = VectorUtil.Singleton.vectorTo(Constants.sunPosition, this.getLocation());
-		double distance = Math.sqrt(Math.pow(distanceVector.getX(), 2) + Math.pow(distanceVector.getY(), 2));
-		this.color = Color.WHITE;
-		if (distance > (3.74e8 / Constants.kmToPixels)) {
-			this.color = Color.CYAN;
-		}
-		if (distance > (4.22e8 / Constants.kmToPixels)) {
-			this.color = Color.MAGENTA;
-		}
+		this(container, modelAdapter, Constants.getRandomAsteroidDistance(), Math.toRadians(Math.random() * 360),
+				Constants.getRandomAsteroidMass());
+	}
+	
+	/**
+	 * Constructor for a new AsteroidBall at the given place on a circular orbit, e.g. drawn from a seeded
+	 * generator.
+	 * 
+	 * @param container the ABall's container.
+	 * @param modelAdapter The adapter to the model this ball is used in
+	 * @param distance the distance from the sun in km
+	 * @param angle the angle around the sun in radians
+	 * @param mass the mass of the asteroid
+	 */
+	public AsteroidBall(Component container, IModel2BallAdapter modelAdapter, double distance, double angle,
+			double mass) {
+		super(AsteroidBall.id, distance, angle, 20, mass, container, ConfigAsteroidBallAlgo.Singleton, modelAdapter);
+		this.color = AsteroidField.COLORS[AsteroidField.colorClassOf(distance / Constants.kmToPixels)];
 	}
 	
 	/**
@@ -0,0 +1,482 @@
+package model.balls;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import model.Constants;
+import model.engine.KeplerDrift;
+import model.strategies.interact.GravitationStrategy;
+
+/**
+ * A packed population of asteroids, stored as parallel primitive arrays instead of one ABall per asteroid.
+ * Asteroids are massless test particles, so the model steps the whole field directly against the massive
+ * IBalls rather than dispatching to each asteroid as an observer.
+ */
+public class AsteroidField {
+	/**
+	 * The colors an asteroid can be painted in, indexed by its color class.
+	 */
+	public static final Color[] COLORS = { Color.WHITE, Color.CYAN, Color.MAGENTA };
+
+	/**
+	 * The x positions.
+	 */
+	private double[] x;
+
+	/**
+	 * The y positions.
+	 */
+	private double[] y;
+
+	/**
+	 * The x velocities.
+	 */
+	private double[] vx;
+
+	/**
+	 * The y velocities.
+	 */
+	private double[] vy;
+
+	/**
+	 * The x accelerations, filled in by {@link #accelerate}.
+	 */
+	private double[] ax;
+
+	/**
+	 * The y accelerations, filled in by {@link #accelerate}.
+	 */
+	private double[] ay;
+
+	/**
+	 * The masses.
+	 */
+	private double[] mass;
+
+	/**
+	 * The color classes, indices into {@link #COLORS}.
+	 */
+	private byte[] colorClass;
+
+	/**
+	 * The step levels: 0 for asteroids that take the shared step, or n for those stepped 2^n times within it.
+	 */
+	private byte[] level;
+
+	/**
+	 * Whether any asteroid has a step level this step, so the cheapest kernels must check.
+	 */
+	private boolean substepping = false;
+
+	/**
+	 * The number of asteroids in the field.
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructor for a new AsteroidField.
+	 *
+	 * @param capacity the number of asteroids to make room for up front
+	 */
+	public AsteroidField(int capacity) {
+		this.x = new double[capacity];
+		this.y = new double[capacity];
+		this.vx = new double[capacity];
+		this.vy = new double[capacity];
+		this.ax = new double[capacity];
+		this.ay = new double[capacity];
+		this.mass = new double[capacity];
+		this.colorClass = new byte[capacity];
+		this.level = new byte[capacity];
+	}
+
+	/**
+	 * Adds an asteroid on a circular orbit around the sun.
+	 *
+	 * @param distance the distance from the sun in km
+	 * @param angle the angle around the sun in radians
+	 * @param mass the mass of the asteroid
+	 */
+	public void add(double distance, double angle, double mass) {
+		this.resize(this.size + 1);
+		this.set(this.size - 1, distance, angle, mass);
+	}
+
+	/**
+	 * Adds an asteroid with the given state.
+	 *
+	 * @param x the x position
+	 * @param y the y position
+	 * @param vx the x velocity
+	 * @param vy the y velocity
+	 * @param mass the mass
+	 * @param colorClass the color class
+	 */
+	public void add(double x, double y, double vx, double vy, double mass, byte colorClass) {
+		this.ensureCapacity(this.size + 1);
+		this.x[this.size] = x;
+		this.y[this.size] = y;
+		this.vx[this.size] = vx;
+		this.vy[this.size] = vy;
+		this.mass[this.size] = mass;
+		this.colorClass[this.size] = colorClass;
+		this.level[this.size] = 0;
+		this.size++;
+	}
+
+	/**
+	 * Sets an asteroid already in the field to a circular orbit around the sun. This is the same orbit
+	 * {@link Constants#calculateStartingPosition} and {@link Constants#calculateVelocity} give, worked out
+	 * with one sine and cosine and no temporary points, so a whole population can be built quickly and
+	 * in parallel.
+	 *
+	 * @param i the index of the asteroid
+	 * @param distance the distance from the sun in km
+	 * @param angle the angle around the sun in radians
+	 * @param mass the mass of the asteroid
+	 */
+	public void set(int i, double distance, double angle, double mass) {
+		double radius = distance / Constants.kmToPixels;
+		double speed = Math.sqrt(Constants.gravitationalConstant * (Constants.sunMass / 1e17) / radius);
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		this.x[i] = Constants.sunX + radius * cos;
+		this.y[i] = Constants.sunY + radius * sin;
+		this.vx[i] = speed * sin;
+		this.vy[i] = -speed * cos;
+		this.mass[i] = mass;
+		this.colorClass[i] = colorClassOf(radius);
+		this.level[i] = 0;
+	}
+
+	/**
+	 * Changes the number of asteroids in the field, growing the arrays if needed. New asteroids are left
+	 * unset until they are filled in with {@link #set}.
+	 *
+	 * @param size the number of asteroids
+	 */
+	public void resize(int size) {
+		this.ensureCapacity(size);
+		if (size > this.size) {
+			Arrays.fill(this.level, this.size, size, (byte) 0);
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Grows the arrays so they hold at least the given number of asteroids.
+	 *
+	 * @param capacity the number of asteroids to make room for
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= this.x.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, 2 * this.x.length);
+		this.x = Arrays.copyOf(this.x, newCapacity);
+		this.y = Arrays.copyOf(this.y, newCapacity);
+		this.vx = Arrays.copyOf(this.vx, newCapacity);
+		this.vy = Arrays.copyOf(this.vy, newCapacity);
+		this.ax = Arrays.copyOf(this.ax, newCapacity);
+		this.ay = Arrays.copyOf(this.ay, newCapacity);
+		this.mass = Arrays.copyOf(this.mass, newCapacity);
+		this.colorClass = Arrays.copyOf(this.colorClass, newCapacity);
+		this.level = Arrays.copyOf(this.level, newCapacity);
+	}
+
+	/**
+	 * Gets the color class for an asteroid starting at the given distance.
+	 *
+	 * @param distance the distance from the sun in pixels
+	 * @return the color class
+	 */
+	public static byte colorClassOf(double distance) {
+		if (distance > (4.22e8 / Constants.kmToPixels)) {
+			return 2;
+		}
+		if (distance > (3.74e8 / Constants.kmToPixels)) {
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Removes the marked asteroids, sliding the rest down so they stay in the same order with no gaps.
+	 *
+	 * @param removed whether each asteroid is to be removed
+	 * @return the number removed
+	 */
+	public int compact(boolean[] removed) {
+		int kept = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (removed[i]) {
+				continue;
+			}
+			if (kept != i) {
+				this.x[kept] = this.x[i];
+				this.y[kept] = this.y[i];
+				this.vx[kept] = this.vx[i];
+				this.vy[kept] = this.vy[i];
+				this.ax[kept] = this.ax[i];
+				this.ay[kept] = this.ay[i];
+				this.mass[kept] = this.mass[i];
+				this.colorClass[kept] = this.colorClass[i];
+				this.level[kept] = this.level[i];
+			}
+			kept++;
+		}
+		int count = this.size - kept;
+		this.size = kept;
+		return count;
+	}
+
+	/**
+	 * Removes every asteroid from the field.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of asteroids in the field
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the x positions
+	 */
+	public double[] getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return the y positions
+	 */
+	public double[] getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return the x velocities
+	 */
+	public double[] getVx() {
+		return this.vx;
+	}
+
+	/**
+	 * @return the y velocities
+	 */
+	public double[] getVy() {
+		return this.vy;
+	}
+
+	/**
+	 * @return the x accelerations
+	 */
+	public double[] getAx() {
+		return this.ax;
+	}
+
+	/**
+	 * @return the y accelerations
+	 */
+	public double[] getAy() {
+		return this.ay;
+	}
+
+	/**
+	 * @return the masses
+	 */
+	public double[] getMass() {
+		return this.mass;
+	}
+
+	/**
+	 * @return the color classes
+	 */
+	public byte[] getColorClass() {
+		return this.colorClass;
+	}
+
+	/**
+	 * @return the step levels
+	 */
+	public byte[] getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Puts every asteroid back on the shared step.
+	 */
+	public void clearLevels() {
+		Arrays.fill(this.level, 0, this.size, (byte) 0);
+		this.substepping = false;
+	}
+
+	/**
+	 * @param substepping whether any asteroid has a step level this step
+	 */
+	public void setSubstepping(boolean substepping) {
+		this.substepping = substepping;
+	}
+
+	/**
+	 * Steps every asteroid: each attractor pulls on it, in order, and then it moves according to its velocity.
+	 * This is the same update the asteroids got as observers, where each attractor's GravitationStrategy kicked
+	 * them before they moved.
+	 *
+	 * @param attractors the massive bodies, in the order they are updated
+	 */
+	public void step(Attractors attractors) {
+		this.step(attractors, 0, this.size);
+	}
+
+	/**
+	 * Steps the asteroids in the given range. Nothing is allocated, so this can be called on every step.
+	 * Asteroids with a step level are left for the sub-stepper, here and in the kernels below.
+	 *
+	 * @param attractors the massive bodies, in the order they are updated
+	 * @param from the first asteroid to step
+	 * @param to one past the last asteroid to step
+	 */
+	public void step(Attractors attractors, int from, int to) {
+		double[] ax = attractors.getX();
+		double[] ay = attractors.getY();
+		double[] gm = attractors.getGM();
+		int count = attractors.size();
+
+		for (int i = from; i < to; i++) {
+			if (this.level[i] != 0) {
+				continue;
+			}
+			double px = this.x[i];
+			double py = this.y[i];
+			double pvx = this.vx[i];
+			double pvy = this.vy[i];
+
+			for (int j = 0; j < count; j++) {
+				double dx = px - ax[j];
+				double dy = py - ay[j];
+				double dist = Math.sqrt(dx * dx + dy * dy);
+				double acceleration = GravitationStrategy.calcAcceleration(gm[j], dist);
+				pvx += (ax[j] - px) / dist * acceleration;
+				pvy += (ay[j] - py) / dist * acceleration;
+			}
+
+			this.vx[i] = pvx;
+			this.vy[i] = pvy;
+			this.x[i] = px + pvx;
+			this.y[i] = py + pvy;
+		}
+	}
+
+	/**
+	 * Calculates the acceleration of the asteroids in the given range due to the attractors.
+	 *
+	 * @param attractors the massive bodies
+	 * @param includePinned whether pinned bodies pull, or only the perturbing bodies do
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 */
+	public void accelerate(Attractors attractors, boolean includePinned, int from, int to) {
+		double[] bx = attractors.getX();
+		double[] by = attractors.getY();
+		double[] gm = attractors.getGM();
+		boolean[] pinned = attractors.getPinned();
+		int count = attractors.size();
+
+		for (int i = from; i < to; i++) {
+			if (this.level[i] != 0) {
+				continue;
+			}
+			double px = this.x[i];
+			double py = this.y[i];
+			double sumX = 0;
+			double sumY = 0;
+
+			for (int j = 0; j < count; j++) {
+				if (includePinned || !pinned[j]) {
+					double dx = bx[j] - px;
+					double dy = by[j] - py;
+					double dist = Math.sqrt(dx * dx + dy * dy);
+					double acceleration = GravitationStrategy.calcAcceleration(gm[j], dist);
+					sumX += dx / dist * acceleration;
+					sumY += dy / dist * acceleration;
+				}
+			}
+
+			this.ax[i] = sumX;
+			this.ay[i] = sumY;
+		}
+	}
+
+	/**
+	 * Changes the velocity of the asteroids in the given range by their acceleration over the given time.
+	 *
+	 * @param dt the time step
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 */
+	public void kick(double dt, int from, int to) {
+		if (!this.substepping) {
+			for (int i = from; i < to; i++) {
+				this.vx[i] += this.ax[i] * dt;
+				this.vy[i] += this.ay[i] * dt;
+			}
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			if (this.level[i] != 0) {
+				continue;
+			}
+			this.vx[i] += this.ax[i] * dt;
+			this.vy[i] += this.ay[i] * dt;
+		}
+	}
+
+	/**
+	 * Moves the asteroids in the given range along their velocity, plus the given multiple of their acceleration.
+	 *
+	 * @param dt the time step
+	 * @param accelerationWeight how much of the acceleration to add to the position, e.g. dt * dt / 2
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 */
+	public void drift(double dt, double accelerationWeight, int from, int to) {
+		if (!this.substepping) {
+			for (int i = from; i < to; i++) {
+				this.x[i] += this.vx[i] * dt + this.ax[i] * accelerationWeight;
+				this.y[i] += this.vy[i] * dt + this.ay[i] * accelerationWeight;
+			}
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			if (this.level[i] != 0) {
+				continue;
+			}
+			this.x[i] += this.vx[i] * dt + this.ax[i] * accelerationWeight;
+			this.y[i] += this.vy[i] * dt + this.ay[i] * accelerationWeight;
+		}
+	}
+
+	/**
+	 * Moves the asteroids in the given range along their Kepler orbits around a fixed central body.
+	 *
+	 * @param cx the x position of the central body
+	 * @param cy the y position of the central body
+	 * @param mu the gravitational parameter of the central body
+	 * @param dt the time step
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 */
+	public void keplerDrift(double cx, double cy, double mu, double dt, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (this.level[i] != 0) {
+				continue;
+			}
+			KeplerDrift.drift(this.x, this.y, this.vx, this.vy, i, cx, cy, mu, dt);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package model.balls;
+
+import java.util.List;
+
+import model.Constants;
+import model.engine.KeplerDrift;
+import model.strategies.interact.GravitationStrategy;
+
+/**
+ * The state of the massive bodies, copied into primitive arrays so the integrators and asteroid kernels
+ * can work on it without touching the IBalls.
+ */
+public class Attractors {
+	/**
+	 * The x positions.
+	 */
+	private double[] x = new double[0];
+
+	/**
+	 * The y positions.
+	 */
+	private double[] y = new double[0];
+
+	/**
+	 * The x velocities.
+	 */
+	private double[] vx = new double[0];
+
+	/**
+	 * The y velocities.
+	 */
+	private double[] vy = new double[0];
+
+	/**
+	 * The x accelerations.
+	 */
+	private double[] ax = new double[0];
+
+	/**
+	 * The y accelerations.
+	 */
+	private double[] ay = new double[0];
+
+	/**
+	 * The gravitational parameters (G times mass).
+	 */
+	private double[] gm = new double[0];
+
+	/**
+	 * Whether each body is held in place, like the sun.
+	 */
+	private boolean[] pinned = new boolean[0];
+
+	/**
+	 * The number of attractors.
+	 */
+	private int size = 0;
+
+	/**
+	 * Copies the current state of the given bodies, reusing the arrays when they are big enough.
+	 *
+	 * @param bodies the massive bodies, in the order they should pull
+	 */
+	public void load(List<IBall> bodies) {
+		this.size = bodies.size();
+		if (this.x.length < this.size) {
+			this.x = new double[this.size];
+			this.y = new double[this.size];
+			this.vx = new double[this.size];
+			this.vy = new double[this.size];
+			this.ax = new double[this.size];
+			this.ay = new double[this.size];
+			this.gm = new double[this.size];
+			this.pinned = new boolean[this.size];
+		}
+		for (int j = 0; j < this.size; j++) {
+			IBall body = bodies.get(j);
+			this.x[j] = body.getX();
+			this.y[j] = body.getY();
+			this.vx[j] = body.getVelocityX();
+			this.vy[j] = body.getVelocityY();
+			this.gm[j] = Constants.calculateGM(body.getMass());
+			this.pinned[j] = body instanceof SunBall;
+		}
+	}
+
+	/**
+	 * Copies the positions and velocities back into the given bodies.
+	 *
+	 * @param bodies the massive bodies, in the order they were loaded
+	 */
+	public void store(List<IBall> bodies) {
+		for (int j = 0; j < this.size; j++) {
+			IBall body = bodies.get(j);
+			body.setLocation(this.x[j], this.y[j]);
+			body.setVelocity(this.vx[j], this.vy[j]);
+		}
+	}
+
+	/**
+	 * Advances the bodies by one fixed tick the way the balls always have, one after another: each moves along
+	 * its velocity and then pulls on every other body, so later bodies are pulled from where earlier ones have
+	 * already moved to. Pinned bodies aren't pulled.
+	 */
+	public void tick() {
+		for (int j = 0; j < this.size; j++) {
+			this.x[j] += this.vx[j];
+			this.y[j] += this.vy[j];
+			for (int k = 0; k < this.size; k++) {
+				if (k != j && !this.pinned[k]) {
+					double dx = this.x[k] - this.x[j];
+					double dy = this.y[k] - this.y[j];
+					double dist = Math.sqrt(dx * dx + dy * dy);
+					double acceleration = GravitationStrategy.calcAcceleration(this.gm[j], dist);
+					this.vx[k] += (this.x[j] - this.x[k]) / dist * acceleration;
+					this.vy[k] += (this.y[j] - this.y[k]) / dist * acceleration;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the acceleration of every body due to all the others. Pinned bodies don't accelerate.
+	 *
+	 * @param includePinned whether pinned bodies pull, or only the perturbing bodies do
+	 */
+	public void computeAccelerations(boolean includePinned) {
+		for (int j = 0; j < this.size; j++) {
+			double sumX = 0;
+			double sumY = 0;
+			if (!this.pinned[j]) {
+				for (int k = 0; k < this.size; k++) {
+					if (k != j && (includePinned || !this.pinned[k])) {
+						double dx = this.x[k] - this.x[j];
+						double dy = this.y[k] - this.y[j];
+						double dist = Math.sqrt(dx * dx + dy * dy);
+						double acceleration = GravitationStrategy.calcAcceleration(this.gm[k], dist);
+						sumX += dx / dist * acceleration;
+						sumY += dy / dist * acceleration;
+					}
+				}
+			}
+			this.ax[j] = sumX;
+			this.ay[j] = sumY;
+		}
+	}
+
+	/**
+	 * Moves every unpinned body along its Kepler orbit around the given central body.
+	 *
+	 * @param central the index of the central body
+	 * @param dt the time step
+	 */
+	public void keplerDrift(int central, double dt) {
+		for (int j = 0; j < this.size; j++) {
+			if (!this.pinned[j]) {
+				KeplerDrift.drift(this.x, this.y, this.vx, this.vy, j, this.x[central], this.y[central],
+						this.gm[central], dt);
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the first pinned body, which the others orbit, or -1 if nothing is pinned
+	 */
+	public int getCentral() {
+		for (int j = 0; j < this.size; j++) {
+			if (this.pinned[j]) {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Changes every body's velocity by its acceleration over the given time.
+	 *
+	 * @param dt the time step
+	 */
+	public void kick(double dt) {
+		for (int j = 0; j < this.size; j++) {
+			this.vx[j] += this.ax[j] * dt;
+			this.vy[j] += this.ay[j] * dt;
+		}
+	}
+
+	/**
+	 * Moves every unpinned body along its velocity, plus the given multiple of its acceleration.
+	 *
+	 * @param dt the time step
+	 * @param accelerationWeight how much of the acceleration to add to the position, e.g. dt * dt / 2
+	 */
+	public void drift(double dt, double accelerationWeight) {
+		for (int j = 0; j < this.size; j++) {
+			if (!this.pinned[j]) {
+				this.x[j] += this.vx[j] * dt + this.ax[j] * accelerationWeight;
+				this.y[j] += this.vy[j] * dt + this.ay[j] * accelerationWeight;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of attractors
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the x positions
+	 */
+	public double[] getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return the y positions
+	 */
+	public double[] getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return the x velocities
+	 */
+	public double[] getVx() {
+		return this.vx;
+	}
+
+	/**
+	 * @return the y velocities
+	 */
+	public double[] getVy() {
+		return this.vy;
+	}
+
+	/**
+	 * @return the gravitational parameters
+	 */
+	public double[] getGM() {
+		return this.gm;
+	}
+
+	/**
+	 * @return whether each body is held in place
+	 */
+	public boolean[] getPinned() {
+		return this.pinned;
+	}
+}
@@ -68,6 +68,24 @@ public interface IBall extends IObserver<IBallCmd>, IBallHost<IBall> {
 	 */
 	void setLocation(Point2D.Double pos);
 
+	/**
+	 * Moves the ABall to the given position in place.
+	 *
+	 * @param x the new x position
+	 * @param y the new y position
+	 */
+	void setLocation(double x, double y);
+
+	/**
+	 * @return the ABall's x position, without copying its location.
+	 */
+	double getX();
+
+	/**
+	 * @return the ABall's y position, without copying its location.
+	 */
+	double getY();
+
 	/**
 	 * @return the ABall's radius.
 	 */
@@ -98,6 +116,32 @@ public interface IBall extends IObserver<IBallCmd>, IBallHost<IBall> {
 	 */
 	void setVelocity(Point2D.Double velocity);
 
+	/**
+	 * Sets the ABall's velocity in place.
+	 *
+	 * @param vx the new x velocity
+	 * @param vy the new y velocity
+	 */
+	void setVelocity(double vx, double vy);
+
+	/**
+	 * @return the ABall's x velocity, without copying its velocity.
+	 */
+	double getVelocityX();
+
+	/**
+	 * @return the ABall's y velocity, without copying its velocity.
+	 */
+	double getVelocityY();
+
+	/**
+	 * Adds the given change in velocity to the ABall's velocity in place.
+	 *
+	 * @param dvx the change in x velocity
+	 * @param dvy the change in y velocity
+	 */
+	void accelerate(double dvx, double dvy);
+
 	/**
 	 * @return the ABall's paint strategy.
 	 */
@@ -23,6 +23,11 @@ public class JupiterBall extends ABall {
 	 */
 	public static final IBallHostID id = BallHostIDFactory.Singleton.makeID(JupiterBall.class.getName());
 	
+	/**
+	 * The mass of Jupiter, in kg.
+	 */
+	public static final double MASS = 1.8982e27;
+	
 	/**
 	 * Constructor for a new MarsBall.
 	 * 
@@ -30,6 +35,17 @@ public class JupiterBall extends ABall {
 	 * @param modelAdapter The adapter to the model this ball is used in
 	 */
 	public JupiterBall(Component container, IModel2BallAdapter modelAdapter) {
-		super(JupiterBall.id, 778.479e6, 0, 69911, 1.8982e27, container, new ConfigJupiterBallAlgo(), modelAdapter);
+		this(container, modelAdapter, MASS);
+	}
+	
+	/**
+	 * Constructor for a new JupiterBall with a different mass.
+	 * 
+	 * @param container the ABall's container.
+	 * @param modelAdapter The adapter to the model this ball is used in
+	 * @param mass the mass, in kg
+	 */
+	public JupiterBall(Component container, IModel2BallAdapter modelAdapter, double mass) {
+		super(JupiterBall.id, 778.479e6, 0, 69911, mass, container, new ConfigJupiterBallAlgo(), modelAdapter);
 	}
 }
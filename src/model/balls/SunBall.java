@@ -45,6 +45,23 @@ public class SunBall extends ABall {
 		return;
 	}
 	
+	/**
+	 * @param vx : the ABall's new x velocity.
+	 * @param vy : the ABall's new y velocity.
+	 */
+	@Override
+	public void setVelocity(double vx, double vy) {
+		return;
+	}
+	
+	/**
+	 * The sun stays put, so pulls on it are ignored.
+	 */
+	@Override
+	public void accelerate(double dvx, double dvy) {
+		return;
+	}
+	
 	/**
 	 * @param pos : the ABall's new location.
 	 */
@@ -52,5 +69,14 @@ public class SunBall extends ABall {
 	public void setLocation(Point2D.Double pos) {
 		return;
 	}
+	
+	/**
+	 * @param x : the ABall's new x position.
+	 * @param y : the ABall's new y position.
+	 */
+	@Override
+	public void setLocation(double x, double y) {
+		return;
+	}
 
-}
+}
\ No newline at end of file
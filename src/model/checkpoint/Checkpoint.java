@@ -0,0 +1,493 @@
+package model.checkpoint;
+
+import java.awt.Component;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import model.adapters.IModel2BallAdapter;
+import model.balls.AsteroidField;
+import model.balls.IBall;
+import model.balls.JupiterBall;
+import model.balls.MarsBall;
+import model.balls.SunBall;
+import model.engine.GravitySystem;
+
+/**
+ * The full state of a run: every body and asteroid exactly as it was after some step, plus what is needed to
+ * carry on from there. It is filled in on the simulation thread and can then be written out on another.
+ * <p>
+ * The binary format is big-endian: a magic number and version, the step, time, seed, integrator and time
+ * step, then each body's type, position, velocity and mass, then the asteroids column by column, including
+ * their step levels, then a CRC32 of everything before it. Doubles are written raw, so a restored run carries
+ * on bit for bit. Version 1 files, written before the levels were, are read with every level 0.
+ */
+public class Checkpoint {
+	/**
+	 * Marks a checkpoint file.
+	 */
+	public static final int MAGIC = 0x4B474350;
+
+	/**
+	 * The version of the format written.
+	 */
+	public static final short VERSION = 2;
+
+	/**
+	 * The type of a SunBall.
+	 */
+	public static final byte SUN = 0;
+
+	/**
+	 * The type of a JupiterBall.
+	 */
+	public static final byte JUPITER = 1;
+
+	/**
+	 * The type of a MarsBall.
+	 */
+	public static final byte MARS = 2;
+
+	/**
+	 * The step the checkpoint was taken after.
+	 */
+	private long step;
+
+	/**
+	 * The simulated time, in ticks.
+	 */
+	private double time;
+
+	/**
+	 * The seed the initial conditions were drawn from.
+	 */
+	private long seed;
+
+	/**
+	 * The name of the integrator.
+	 */
+	private String integrator = "tick";
+
+	/**
+	 * The time step, in ticks.
+	 */
+	private double dt;
+
+	/**
+	 * The number of massive bodies.
+	 */
+	private int bodyCount;
+
+	/**
+	 * The types of the massive bodies.
+	 */
+	private byte[] bodyType = new byte[0];
+
+	/**
+	 * The state of the massive bodies, five doubles each: x, y, vx, vy and mass.
+	 */
+	private double[] bodyState = new double[0];
+
+	/**
+	 * The number of asteroids.
+	 */
+	private int asteroidCount;
+
+	/**
+	 * The asteroid x positions.
+	 */
+	private double[] x = new double[0];
+
+	/**
+	 * The asteroid y positions.
+	 */
+	private double[] y = new double[0];
+
+	/**
+	 * The asteroid x velocities.
+	 */
+	private double[] vx = new double[0];
+
+	/**
+	 * The asteroid y velocities.
+	 */
+	private double[] vy = new double[0];
+
+	/**
+	 * The asteroid masses.
+	 */
+	private double[] mass = new double[0];
+
+	/**
+	 * The asteroid color classes.
+	 */
+	private byte[] colorClass = new byte[0];
+
+	/**
+	 * The asteroid step levels.
+	 */
+	private byte[] level = new byte[0];
+
+	/**
+	 * Copies the state of the system, reusing the arrays when they are big enough. Must be called on the
+	 * thread that steps the system.
+	 *
+	 * @param system the system to copy
+	 * @param integrator the name of the integrator advancing it
+	 * @param dt the time step
+	 * @param seed the seed the initial conditions were drawn from
+	 */
+	public void capture(GravitySystem system, String integrator, double dt, long seed) {
+		this.step = system.getSteps();
+		this.time = system.getTime();
+		this.seed = seed;
+		this.integrator = integrator;
+		this.dt = dt;
+
+		List<IBall> bodies = system.getBodies();
+		this.resizeBodies(bodies.size());
+		for (int j = 0; j < this.bodyCount; j++) {
+			IBall body = bodies.get(j);
+			this.bodyType[j] = typeOf(body);
+			this.bodyState[5 * j] = body.getX();
+			this.bodyState[5 * j + 1] = body.getY();
+			this.bodyState[5 * j + 2] = body.getVelocityX();
+			this.bodyState[5 * j + 3] = body.getVelocityY();
+			this.bodyState[5 * j + 4] = body.getMass();
+		}
+
+		AsteroidField asteroids = system.getAsteroids();
+		this.resizeAsteroids(asteroids.size());
+		System.arraycopy(asteroids.getX(), 0, this.x, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getY(), 0, this.y, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getVx(), 0, this.vx, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getVy(), 0, this.vy, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getMass(), 0, this.mass, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getColorClass(), 0, this.colorClass, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getLevel(), 0, this.level, 0, this.asteroidCount);
+	}
+
+	/**
+	 * Puts the asteroids back into a field, along with their step levels, replacing what was there.
+	 *
+	 * @param asteroids the field to fill
+	 */
+	public void restoreAsteroids(AsteroidField asteroids) {
+		asteroids.clear();
+		asteroids.ensureCapacity(this.asteroidCount);
+		for (int i = 0; i < this.asteroidCount; i++) {
+			asteroids.add(this.x[i], this.y[i], this.vx[i], this.vy[i], this.mass[i], this.colorClass[i]);
+		}
+		System.arraycopy(this.level, 0, asteroids.getLevel(), 0, this.asteroidCount);
+	}
+
+	/**
+	 * Puts a body's state back.
+	 *
+	 * @param j the index of the body
+	 * @param body the body to restore, which must be of the type recorded
+	 */
+	public void restoreBody(int j, IBall body) {
+		if (typeOf(body) != this.bodyType[j]) {
+			throw new IllegalArgumentException("Body " + j + " is not of type " + this.bodyType[j]);
+		}
+		body.setLocation(this.bodyState[5 * j], this.bodyState[5 * j + 1]);
+		body.setVelocity(this.bodyState[5 * j + 2], this.bodyState[5 * j + 3]);
+		body.setMass(this.bodyState[5 * j + 4]);
+	}
+
+	/**
+	 * Saves the checkpoint to a file. It is written next to the file first and then moved over it, so a crash
+	 * part way through never leaves a broken checkpoint behind.
+	 *
+	 * @param file the file to save to
+	 * @throws IOException if it can't be written
+	 */
+	public void save(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Can't create " + parent);
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		CRC32 crc = new CRC32();
+		try (DataOutputStream out = new DataOutputStream(
+				new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16), crc))) {
+			this.write(out);
+			out.writeLong(crc.getValue());
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Loads a checkpoint from a file, reusing this one's arrays.
+	 *
+	 * @param file the file to load
+	 * @throws IOException if it can't be read, isn't a checkpoint, is a version this can't read or is corrupt
+	 */
+	public void load(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		try (DataInputStream in = new DataInputStream(
+				new CheckedInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16), crc))) {
+			this.read(in);
+			long expected = crc.getValue();
+			if (in.readLong() != expected) {
+				throw new IOException("Checkpoint " + file + " is corrupt");
+			}
+		}
+	}
+
+	/**
+	 * Writes the checkpoint in the binary format.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if it can't be written
+	 */
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeLong(this.step);
+		out.writeDouble(this.time);
+		out.writeLong(this.seed);
+		out.writeUTF(this.integrator);
+		out.writeDouble(this.dt);
+
+		out.writeInt(this.bodyCount);
+		for (int j = 0; j < this.bodyCount; j++) {
+			out.writeByte(this.bodyType[j]);
+			for (int k = 0; k < 5; k++) {
+				out.writeDouble(this.bodyState[5 * j + k]);
+			}
+		}
+
+		out.writeInt(this.asteroidCount);
+		writeColumn(out, this.x, this.asteroidCount);
+		writeColumn(out, this.y, this.asteroidCount);
+		writeColumn(out, this.vx, this.asteroidCount);
+		writeColumn(out, this.vy, this.asteroidCount);
+		writeColumn(out, this.mass, this.asteroidCount);
+		out.write(this.colorClass, 0, this.asteroidCount);
+		out.write(this.level, 0, this.asteroidCount);
+	}
+
+	/**
+	 * Reads a checkpoint written by {@link #write}, reusing this one's arrays.
+	 *
+	 * @param in the stream to read from
+	 * @throws IOException if it can't be read, isn't a checkpoint or is a version this can't read
+	 */
+	private void read(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a checkpoint");
+		}
+		short version = in.readShort();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported checkpoint version " + version);
+		}
+		this.step = in.readLong();
+		this.time = in.readDouble();
+		this.seed = in.readLong();
+		this.integrator = in.readUTF();
+		this.dt = in.readDouble();
+
+		this.resizeBodies(in.readInt());
+		for (int j = 0; j < this.bodyCount; j++) {
+			this.bodyType[j] = in.readByte();
+			for (int k = 0; k < 5; k++) {
+				this.bodyState[5 * j + k] = in.readDouble();
+			}
+		}
+
+		this.resizeAsteroids(in.readInt());
+		readColumn(in, this.x, this.asteroidCount);
+		readColumn(in, this.y, this.asteroidCount);
+		readColumn(in, this.vx, this.asteroidCount);
+		readColumn(in, this.vy, this.asteroidCount);
+		readColumn(in, this.mass, this.asteroidCount);
+		in.readFully(this.colorClass, 0, this.asteroidCount);
+		if (version >= 2) {
+			in.readFully(this.level, 0, this.asteroidCount);
+		} else {
+			Arrays.fill(this.level, 0, this.asteroidCount, (byte) 0);
+		}
+	}
+
+	/**
+	 * Gets the type code of a massive body.
+	 *
+	 * @param body the body
+	 * @return its type
+	 */
+	public static byte typeOf(IBall body) {
+		if (body instanceof SunBall) {
+			return SUN;
+		} else if (body instanceof JupiterBall) {
+			return JUPITER;
+		} else if (body instanceof MarsBall) {
+			return MARS;
+		}
+		throw new IllegalArgumentException("Can't checkpoint a " + body.getClass().getSimpleName());
+	}
+
+	/**
+	 * Makes a massive body of the given type.
+	 *
+	 * @param type one of the body types
+	 * @param container the component the body is shown in
+	 * @param modelAdapter the adapter back to the model
+	 * @return a new body
+	 */
+	public static IBall makeBody(byte type, Component container, IModel2BallAdapter modelAdapter) {
+		switch (type) {
+		case SUN:
+			return new SunBall(container, modelAdapter);
+		case JUPITER:
+			return new JupiterBall(container, modelAdapter);
+		case MARS:
+			return new MarsBall(container, modelAdapter);
+		default:
+			throw new IllegalArgumentException("Unknown body type " + type);
+		}
+	}
+
+	/**
+	 * Makes room for the given number of bodies.
+	 *
+	 * @param count the number of bodies
+	 * @throws IllegalArgumentException if the count is negative
+	 */
+	private void resizeBodies(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Negative body count " + count);
+		}
+		this.bodyCount = count;
+		if (this.bodyType.length < count) {
+			this.bodyType = new byte[count];
+			this.bodyState = new double[5 * count];
+		}
+	}
+
+	/**
+	 * Makes room for the given number of asteroids.
+	 *
+	 * @param count the number of asteroids
+	 * @throws IllegalArgumentException if the count is negative
+	 */
+	private void resizeAsteroids(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Negative asteroid count " + count);
+		}
+		this.asteroidCount = count;
+		if (this.x.length < count) {
+			this.x = new double[count];
+			this.y = new double[count];
+			this.vx = new double[count];
+			this.vy = new double[count];
+			this.mass = new double[count];
+			this.colorClass = new byte[count];
+			this.level = new byte[count];
+		}
+	}
+
+	/**
+	 * Writes the first values of an array.
+	 *
+	 * @param out the stream to write to
+	 * @param values the array
+	 * @param count the number of values
+	 * @throws IOException if they can't be written
+	 */
+	private static void writeColumn(DataOutputStream out, double[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeDouble(values[i]);
+		}
+	}
+
+	/**
+	 * Reads values into the start of an array.
+	 *
+	 * @param in the stream to read from
+	 * @param values the array
+	 * @param count the number of values
+	 * @throws IOException if they can't be read
+	 */
+	private static void readColumn(DataInputStream in, double[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			values[i] = in.readDouble();
+		}
+	}
+
+	/**
+	 * @return the step the checkpoint was taken after
+	 */
+	public long getStep() {
+		return this.step;
+	}
+
+	/**
+	 * @return the simulated time, in ticks
+	 */
+	public double getTime() {
+		return this.time;
+	}
+
+	/**
+	 * @return the seed the initial conditions were drawn from
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * @return the name of the integrator
+	 */
+	public String getIntegrator() {
+		return this.integrator;
+	}
+
+	/**
+	 * @return the time step, in ticks
+	 */
+	public double getDt() {
+		return this.dt;
+	}
+
+	/**
+	 * @return the number of massive bodies
+	 */
+	public int getBodyCount() {
+		return this.bodyCount;
+	}
+
+	/**
+	 * @param j the index of a body
+	 * @return its type
+	 */
+	public byte getBodyType(int j) {
+		return this.bodyType[j];
+	}
+
+	/**
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount() {
+		return this.asteroidCount;
+	}
+}
@@ -0,0 +1,103 @@
+package model.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.engine.GravitySystem;
+import model.metrics.OutputWriteEvent;
+
+/**
+ * Writes checkpoints on a background thread. The state is copied into a recycled {@link Checkpoint} on the
+ * simulation thread, which is quick, and the slow part of writing it out happens while the simulation
+ * carries on.
+ */
+public class CheckpointWriter {
+	/**
+	 * The most checkpoints that can wait to be written before new ones are skipped.
+	 */
+	private static final int MAX_PENDING = 2;
+
+	/**
+	 * Writes the checkpoints, one at a time and in order.
+	 */
+	private final ExecutorService executor = Executors.newSingleThreadExecutor((r) -> {
+		Thread thread = new Thread(r, "Checkpoint writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Checkpoints that have been written and can be filled again.
+	 */
+	private final Queue<Checkpoint> spares = new ConcurrentLinkedQueue<Checkpoint>();
+
+	/**
+	 * The number of checkpoints waiting to be written.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * Copies the state of the system and writes it out in the background. Must be called on the thread that
+	 * steps the system.
+	 *
+	 * @param system the system to checkpoint
+	 * @param integrator the name of the integrator advancing it
+	 * @param dt the time step
+	 * @param seed the seed the initial conditions were drawn from
+	 * @param file the file to write to
+	 * @return <code>true</code> if the checkpoint was queued, <code>false</code> if the writer is too far behind
+	 */
+	public boolean write(GravitySystem system, String integrator, double dt, long seed, File file) {
+		if (this.pending.incrementAndGet() > MAX_PENDING) {
+			this.pending.decrementAndGet();
+			return false;
+		}
+		Checkpoint checkpoint = this.spares.poll();
+		if (checkpoint == null) {
+			checkpoint = new Checkpoint();
+		}
+		checkpoint.capture(system, integrator, dt, seed);
+
+		Checkpoint captured = checkpoint;
+		this.executor.execute(() -> {
+			OutputWriteEvent event = new OutputWriteEvent();
+			event.begin();
+			try {
+				captured.save(file);
+				event.end();
+				if (event.shouldCommit()) {
+					event.kind = "checkpoint";
+					event.path = file.getPath();
+					event.bytes = file.length();
+					event.commit();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				this.spares.add(captured);
+				this.pending.decrementAndGet();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Waits for every queued checkpoint to be written.
+	 */
+	public void flush() {
+		try {
+			this.executor.submit(() -> {
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,784 @@
+package model.engine;
+
+import java.util.Arrays;
+
+import model.Constants;
+import model.balls.AsteroidField;
+
+/**
+ * A Barnes-Hut quadtree over the asteroids, so they can pull on each other in O(N log N) instead of O(N^2).
+ * It is rebuilt from the packed arrays before every force calculation: the asteroids are given Morton codes
+ * and sorted by them, which puts every cell of the tree in one contiguous run, and the sixteen cells two levels
+ * down are built as separate subtrees in parallel before being joined under the root. The codes are sorted by
+ * a radix sort in chunks on the engine, into a reused spare array, so building allocates nothing once warm.
+ * <p>
+ * The nodes are laid out depth first, each knowing where its subtree ends, so walking the tree for an
+ * asteroid is a single loop with no stack. A node far enough away, where its width is less than the opening
+ * angle times its distance from the asteroid to the node's center of mass less that center's offset from the
+ * middle of the cell, pulls as one mass; otherwise its children are visited, or
+ * the asteroids in it one by one if it is a leaf. Gravity is softened so close pairs don't blow up.
+ */
+public class BarnesHutTree {
+	/**
+	 * The number of bits per axis in a Morton code, which is also the deepest a node can be.
+	 */
+	private static final int BITS = 15;
+
+	/**
+	 * The most asteroids a leaf holds, unless it is already as deep as a node can be.
+	 */
+	private static final int LEAF_SIZE = 16;
+
+	/**
+	 * The depth of the subtrees that are built in parallel.
+	 */
+	private static final int TOP_LEVEL = 2;
+
+	/**
+	 * The number of subtrees that are built in parallel, one per cell at {@link #TOP_LEVEL}.
+	 */
+	private static final int TOP_CELLS = 1 << (2 * TOP_LEVEL);
+
+	/**
+	 * How far the sort keys are shifted to get the cell at {@link #TOP_LEVEL}.
+	 */
+	private static final int TOP_SHIFT = 32 + 2 * (BITS - TOP_LEVEL);
+
+	/**
+	 * The number of bits of the Morton code sorted on by each pass of the radix sort.
+	 */
+	private static final int RADIX_BITS = 10;
+
+	/**
+	 * The number of digits in each pass of the radix sort.
+	 */
+	private static final int RADIX = 1 << RADIX_BITS;
+
+	/**
+	 * The number of passes of the radix sort, enough to cover a Morton code.
+	 */
+	private static final int PASSES = (2 * BITS + RADIX_BITS - 1) / RADIX_BITS;
+
+	/**
+	 * The opening angle: the largest width to distance ratio at which a node pulls as a single mass.
+	 */
+	private double theta;
+
+	/**
+	 * The softening length, in pixels.
+	 */
+	private double softening;
+
+	/**
+	 * The Morton code of each asteroid in the high bits and its index in the low bits, sorted.
+	 */
+	private long[] keys = new long[0];
+
+	/**
+	 * The keys being sorted into by a pass of the radix sort, swapped with {@link #keys} after each one.
+	 */
+	private long[] spareKeys = new long[0];
+
+	/**
+	 * The number of keys in each chunk with each digit, chunk by chunk, and then where the first of them goes.
+	 */
+	private int[] digitStart = new int[0];
+
+	/**
+	 * How far the keys are shifted to get the digit of the current radix sort pass.
+	 */
+	private int digitShift;
+
+	/**
+	 * The x positions, in sorted order.
+	 */
+	private double[] sortedX = new double[0];
+
+	/**
+	 * The y positions, in sorted order.
+	 */
+	private double[] sortedY = new double[0];
+
+	/**
+	 * The gravitational parameters, in sorted order.
+	 */
+	private double[] sortedGM = new double[0];
+
+	/**
+	 * The number of asteroids in the tree.
+	 */
+	private int count = 0;
+
+	/**
+	 * The lowest x of each chunk, while finding the bounds.
+	 */
+	private double[] chunkMinX = new double[0];
+
+	/**
+	 * The lowest y of each chunk, while finding the bounds.
+	 */
+	private double[] chunkMinY = new double[0];
+
+	/**
+	 * The highest x of each chunk, while finding the bounds.
+	 */
+	private double[] chunkMaxX = new double[0];
+
+	/**
+	 * The highest y of each chunk, while finding the bounds.
+	 */
+	private double[] chunkMaxY = new double[0];
+
+	/**
+	 * The left edge of the root cell.
+	 */
+	private double minX;
+
+	/**
+	 * The top edge of the root cell.
+	 */
+	private double minY;
+
+	/**
+	 * The width of the root cell.
+	 */
+	private double rootSize;
+
+	/**
+	 * The first sorted index in each top cell, with one more entry for the end.
+	 */
+	private final int[] cellStart = new int[TOP_CELLS + 1];
+
+	/**
+	 * The subtree of each top cell, built in parallel.
+	 */
+	private final Nodes[] subtrees = new Nodes[TOP_CELLS];
+
+	/**
+	 * The whole tree, depth first.
+	 */
+	private final Nodes nodes = new Nodes();
+
+	/**
+	 * The asteroids being built into the tree, handed to the chunk commands.
+	 */
+	private AsteroidField field;
+
+	/**
+	 * Finds the bounds of a chunk of asteroids, ignoring any that have flown off to infinity.
+	 */
+	private final IRangeCmd boundsCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			double lowX = Double.POSITIVE_INFINITY;
+			double lowY = Double.POSITIVE_INFINITY;
+			double highX = Double.NEGATIVE_INFINITY;
+			double highY = Double.NEGATIVE_INFINITY;
+			for (int i = start; i < end; i++) {
+				if (Double.isFinite(x[i]) && Double.isFinite(y[i])) {
+					lowX = Math.min(lowX, x[i]);
+					lowY = Math.min(lowY, y[i]);
+					highX = Math.max(highX, x[i]);
+					highY = Math.max(highY, y[i]);
+				}
+			}
+			int chunk = start / StepEngine.CHUNK_SIZE;
+			this.chunkMinX[chunk] = lowX;
+			this.chunkMinY[chunk] = lowY;
+			this.chunkMaxX[chunk] = highX;
+			this.chunkMaxY[chunk] = highY;
+		}
+	};
+
+	/**
+	 * Works out the sort key of a chunk of asteroids.
+	 */
+	private final IRangeCmd keyCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		double scale = (1 << BITS) / this.rootSize;
+		for (int i = from; i < to; i++) {
+			this.keys[i] = ((long) morton(quantize((x[i] - this.minX) * scale),
+					quantize((y[i] - this.minY) * scale)) << 32) | i;
+		}
+	};
+
+	/**
+	 * Counts the digits of the current radix sort pass in a chunk of keys.
+	 */
+	private final IRangeCmd digitCountCmd = (from, to) -> {
+		long[] unsorted = this.keys;
+		int shift = this.digitShift;
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			int base = start / StepEngine.CHUNK_SIZE * RADIX;
+			Arrays.fill(this.digitStart, base, base + RADIX, 0);
+			for (int k = start; k < end; k++) {
+				this.digitStart[base + ((int) (unsorted[k] >>> shift) & (RADIX - 1))]++;
+			}
+		}
+	};
+
+	/**
+	 * Moves a chunk of keys to their places for the current radix sort pass, keeping keys with the same digit
+	 * in order.
+	 */
+	private final IRangeCmd scatterCmd = (from, to) -> {
+		long[] unsorted = this.keys;
+		long[] sorted = this.spareKeys;
+		int shift = this.digitShift;
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			int base = start / StepEngine.CHUNK_SIZE * RADIX;
+			for (int k = start; k < end; k++) {
+				long key = unsorted[k];
+				sorted[this.digitStart[base + ((int) (key >>> shift) & (RADIX - 1))]++] = key;
+			}
+		}
+	};
+
+	/**
+	 * Copies a chunk of asteroids into sorted order.
+	 */
+	private final IRangeCmd gatherCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		double[] mass = this.field.getMass();
+		for (int k = from; k < to; k++) {
+			int i = (int) this.keys[k];
+			if (Double.isFinite(x[i]) && Double.isFinite(y[i])) {
+				this.sortedX[k] = x[i];
+				this.sortedY[k] = y[i];
+				this.sortedGM[k] = Constants.calculateGM(mass[i]);
+			} else {
+				this.sortedX[k] = this.minX;
+				this.sortedY[k] = this.minY;
+				this.sortedGM[k] = 0;
+			}
+		}
+	};
+
+	/**
+	 * Builds the subtrees of a range of top cells.
+	 */
+	private final IRangeCmd subtreeCmd = (from, to) -> {
+		for (int cell = from; cell < to; cell++) {
+			this.subtrees[cell].clear();
+			if (this.cellStart[cell] < this.cellStart[cell + 1]) {
+				this.build(this.subtrees[cell], this.cellStart[cell], this.cellStart[cell + 1], TOP_LEVEL);
+			}
+		}
+	};
+
+	/**
+	 * Constructor for a new BarnesHutTree.
+	 *
+	 * @param theta the opening angle, more than 0 and at most 1, where smaller is closer to summing every pair
+	 *            exactly and larger is faster and rougher
+	 * @param softening the softening length, in pixels
+	 */
+	public BarnesHutTree(double theta, double softening) {
+		this.setTheta(theta);
+		this.setSoftening(softening);
+		for (int cell = 0; cell < TOP_CELLS; cell++) {
+			this.subtrees[cell] = new Nodes();
+		}
+	}
+
+	/**
+	 * Rebuilds the tree from the current positions and masses of the asteroids.
+	 *
+	 * @param field the asteroids
+	 * @param engine the engine to build it on
+	 */
+	public void build(AsteroidField field, StepEngine engine) {
+		this.field = field;
+		this.count = field.size();
+		this.nodes.clear();
+		if (this.count == 0) {
+			return;
+		}
+		if (this.keys.length < this.count) {
+			this.keys = new long[this.count];
+			this.spareKeys = new long[this.count];
+			this.sortedX = new double[this.count];
+			this.sortedY = new double[this.count];
+			this.sortedGM = new double[this.count];
+		}
+		int chunks = (this.count + StepEngine.CHUNK_SIZE - 1) / StepEngine.CHUNK_SIZE;
+		if (this.chunkMinX.length < chunks) {
+			this.chunkMinX = new double[chunks];
+			this.chunkMinY = new double[chunks];
+			this.chunkMaxX = new double[chunks];
+			this.chunkMaxY = new double[chunks];
+			this.digitStart = new int[chunks * RADIX];
+		}
+
+		engine.forEachChunk(this.count, this.boundsCmd);
+		double lowX = Double.POSITIVE_INFINITY;
+		double lowY = Double.POSITIVE_INFINITY;
+		double highX = Double.NEGATIVE_INFINITY;
+		double highY = Double.NEGATIVE_INFINITY;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			lowX = Math.min(lowX, this.chunkMinX[chunk]);
+			lowY = Math.min(lowY, this.chunkMinY[chunk]);
+			highX = Math.max(highX, this.chunkMaxX[chunk]);
+			highY = Math.max(highY, this.chunkMaxY[chunk]);
+		}
+		if (lowX > highX) {
+			lowX = highX = lowY = highY = 0;
+		}
+		this.minX = lowX;
+		this.minY = lowY;
+		double size = Math.max(highX - lowX, highY - lowY);
+		this.rootSize = size > 0 ? size * (1 + 1e-9) : 1;
+
+		engine.forEachChunk(this.count, this.keyCmd);
+		this.sortKeys(engine, chunks);
+		engine.forEachChunk(this.count, this.gatherCmd);
+
+		for (int cell = 0; cell <= TOP_CELLS; cell++) {
+			this.cellStart[cell] = this.lowerBound(0, this.count, (long) cell << TOP_SHIFT);
+		}
+		engine.forEachTask(TOP_CELLS, this.subtreeCmd);
+		this.join();
+	}
+
+	/**
+	 * Sorts the keys by a radix sort on the Morton codes, a few bits a pass, each pass counting the digits of
+	 * every chunk in parallel and then moving every chunk's keys to their places in parallel. Each pass keeps
+	 * keys with the same digit in order, and the keys start out in index order, so the result is the same as
+	 * sorting the whole keys. With one thread the chunks just run in turn, which is still faster than
+	 * Arrays.sort and, unlike it, never allocates.
+	 *
+	 * @param engine the engine to sort on
+	 * @param chunks the number of chunks of keys
+	 */
+	private void sortKeys(StepEngine engine, int chunks) {
+		for (int pass = 0; pass < PASSES; pass++) {
+			this.digitShift = 32 + pass * RADIX_BITS;
+			engine.forEachChunk(this.count, this.digitCountCmd);
+			int place = 0;
+			for (int digit = 0; digit < RADIX; digit++) {
+				for (int at = digit; at < chunks * RADIX; at += RADIX) {
+					int found = this.digitStart[at];
+					this.digitStart[at] = place;
+					place += found;
+				}
+			}
+			engine.forEachChunk(this.count, this.scatterCmd);
+			long[] sorted = this.spareKeys;
+			this.spareKeys = this.keys;
+			this.keys = sorted;
+		}
+	}
+
+	/**
+	 * Joins the subtrees under the root, with a node between for each quadrant that isn't empty, since the
+	 * subtrees start at {@link #TOP_LEVEL} two.
+	 */
+	private void join() {
+		Nodes tree = this.nodes;
+		int root = tree.add();
+		double rootGM = 0;
+		double rootX = 0;
+		double rootY = 0;
+		int cellsPerQuadrant = TOP_CELLS / 4;
+		for (int quadrant = 0; quadrant < 4; quadrant++) {
+			int firstCell = quadrant * cellsPerQuadrant;
+			if (this.cellStart[firstCell] == this.cellStart[firstCell + cellsPerQuadrant]) {
+				continue;
+			}
+			int node = tree.add();
+			double gm = 0;
+			double x = 0;
+			double y = 0;
+			for (int cell = firstCell; cell < firstCell + cellsPerQuadrant; cell++) {
+				Nodes subtree = this.subtrees[cell];
+				if (subtree.size > 0) {
+					int child = tree.append(subtree);
+					gm += tree.gm[child];
+					x += tree.gm[child] * tree.x[child];
+					y += tree.gm[child] * tree.y[child];
+				}
+			}
+			this.finish(tree, node, gm, x, y, TOP_LEVEL - 1, this.cellStart[firstCell]);
+			rootGM += gm;
+			rootX += x;
+			rootY += y;
+		}
+		this.finish(tree, root, rootGM, rootX, rootY, 0, 0);
+	}
+
+	/**
+	 * Builds the subtree of the asteroids in a sorted range, all of which are in the same cell.
+	 *
+	 * @param tree the nodes to add the subtree to
+	 * @param from the first sorted index in the cell
+	 * @param to one past the last sorted index in the cell
+	 * @param level the depth of the cell
+	 * @return the index of the subtree's root
+	 */
+	private int build(Nodes tree, int from, int to, int level) {
+		int node = tree.add();
+		double gm = 0;
+		double x = 0;
+		double y = 0;
+		if (to - from <= LEAF_SIZE || level == BITS) {
+			for (int k = from; k < to; k++) {
+				gm += this.sortedGM[k];
+				x += this.sortedGM[k] * this.sortedX[k];
+				y += this.sortedGM[k] * this.sortedY[k];
+			}
+			tree.first[node] = from;
+			tree.last[node] = to;
+		} else {
+			int shift = 32 + 2 * (BITS - 1 - level);
+			int start = from;
+			while (start < to) {
+				long quadrant = this.keys[start] >>> shift;
+				int end = this.lowerBound(start, to, (quadrant + 1) << shift);
+				int child = this.build(tree, start, end, level + 1);
+				gm += tree.gm[child];
+				x += tree.gm[child] * tree.x[child];
+				y += tree.gm[child] * tree.y[child];
+				start = end;
+			}
+		}
+		this.finish(tree, node, gm, x, y, level, from);
+		return node;
+	}
+
+	/**
+	 * Adds the pull of every other asteroid to the accelerations of the asteroids in the given range. The
+	 * tree must have been built from their current positions. Asteroids with a step level are skipped.
+	 *
+	 * @param field the asteroids the tree was built from
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 */
+	public void accelerate(AsteroidField field, int from, int to) {
+		Nodes tree = this.nodes;
+		int nodeCount = tree.size;
+		double[] nodeX = tree.x;
+		double[] nodeY = tree.y;
+		double[] nodeGM = tree.gm;
+		double[] open = tree.open;
+		int[] next = tree.next;
+		int[] first = tree.first;
+		int[] last = tree.last;
+		double[] sx = this.sortedX;
+		double[] sy = this.sortedY;
+		double[] sgm = this.sortedGM;
+		double[] x = field.getX();
+		double[] y = field.getY();
+		double[] ax = field.getAx();
+		double[] ay = field.getAy();
+		byte[] stepLevel = field.getLevel();
+		double soft2 = this.softening * this.softening;
+
+		for (int i = from; i < to; i++) {
+			if (stepLevel[i] != 0) {
+				continue;
+			}
+			double px = x[i];
+			double py = y[i];
+			double sumX = 0;
+			double sumY = 0;
+			int n = 0;
+			while (n < nodeCount) {
+				double dx = nodeX[n] - px;
+				double dy = nodeY[n] - py;
+				double r2 = dx * dx + dy * dy;
+				if (r2 > open[n]) {
+					double s2 = r2 + soft2;
+					double pull = nodeGM[n] / (s2 * Math.sqrt(s2));
+					sumX += dx * pull;
+					sumY += dy * pull;
+					n = next[n];
+				} else if (first[n] >= 0) {
+					for (int k = first[n]; k < last[n]; k++) {
+						double kx = sx[k] - px;
+						double ky = sy[k] - py;
+						double s2 = kx * kx + ky * ky + soft2;
+						if (s2 > 0) {
+							double pull = sgm[k] / (s2 * Math.sqrt(s2));
+							sumX += kx * pull;
+							sumY += ky * pull;
+						}
+					}
+					n = next[n];
+				} else {
+					n++;
+				}
+			}
+			ax[i] += sumX;
+			ay[i] += sumY;
+		}
+	}
+
+	/**
+	 * Sets a node's center of mass once its children are done, and how far away it must be to pull as a
+	 * single mass. That distance grows by how far the center of mass is from the middle of the cell, so an
+	 * asteroid inside a lopsided cell never sees the cell as one mass.
+	 *
+	 * @param tree the nodes
+	 * @param node the node
+	 * @param gm the total gravitational parameter
+	 * @param x the sum of each gravitational parameter times x
+	 * @param y the sum of each gravitational parameter times y
+	 * @param level the depth of the node
+	 * @param sample any sorted index in the node
+	 */
+	private void finish(Nodes tree, int node, double gm, double x, double y, int level, int sample) {
+		tree.finish(node, gm, x, y, this.sortedX[sample], this.sortedY[sample]);
+		int code = (int) (this.keys[sample] >>> 32);
+		double size = this.rootSize / (1 << level);
+		double centerX = this.minX + ((compact(code) >> (BITS - level)) + 0.5) * size;
+		double centerY = this.minY + ((compact(code >>> 1) >> (BITS - level)) + 0.5) * size;
+		double offset = Math.hypot(tree.x[node] - centerX, tree.y[node] - centerY);
+		double distance = size / this.theta + offset;
+		tree.open[node] = distance * distance;
+	}
+
+	/**
+	 * Finds the first sorted index in a range whose key is at least the given one.
+	 *
+	 * @param from the first index to search
+	 * @param to one past the last index to search
+	 * @param key the key
+	 * @return the index, or <code>to</code> if every key is smaller
+	 */
+	private int lowerBound(int from, int to, long key) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			if (this.keys[middle] < key) {
+				from = middle + 1;
+			} else {
+				to = middle;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Clamps a scaled coordinate to a cell index.
+	 *
+	 * @param coordinate the coordinate, scaled so the root cell is 2^{@link #BITS} wide
+	 * @return the cell index along that axis
+	 */
+	private static int quantize(double coordinate) {
+		return (int) Math.min(Math.max(coordinate, 0), (1 << BITS) - 1);
+	}
+
+	/**
+	 * Interleaves the bits of two cell indices into a Morton code, x in the even bits and y in the odd ones.
+	 *
+	 * @param x the x cell index
+	 * @param y the y cell index
+	 * @return the Morton code
+	 */
+	private static int morton(int x, int y) {
+		return spread(x) | (spread(y) << 1);
+	}
+
+	/**
+	 * Spreads the low 16 bits of a number out into the even bits.
+	 *
+	 * @param v the number
+	 * @return the spread bits
+	 */
+	private static int spread(int v) {
+		v &= 0xFFFF;
+		v = (v | (v << 8)) & 0x00FF00FF;
+		v = (v | (v << 4)) & 0x0F0F0F0F;
+		v = (v | (v << 2)) & 0x33333333;
+		v = (v | (v << 1)) & 0x55555555;
+		return v;
+	}
+
+	/**
+	 * Gathers the even bits of a number into the low 16 bits, undoing {@link #spread}.
+	 *
+	 * @param v the number
+	 * @return the gathered bits
+	 */
+	private static int compact(int v) {
+		v &= 0x55555555;
+		v = (v | (v >>> 1)) & 0x33333333;
+		v = (v | (v >>> 2)) & 0x0F0F0F0F;
+		v = (v | (v >>> 4)) & 0x00FF00FF;
+		v = (v | (v >>> 8)) & 0x0000FFFF;
+		return v;
+	}
+
+	/**
+	 * @param theta the opening angle, more than 0 and at most 1, where smaller is closer to summing every pair
+	 *            exactly and larger is faster and rougher
+	 * @throws IllegalArgumentException if the opening angle isn't more than 0 and at most 1, since past about
+	 *             sqrt(2) an asteroid could see the cell it is in as a single mass
+	 */
+	public void setTheta(double theta) {
+		if (!(theta > 0) || theta > 1) {
+			throw new IllegalArgumentException("Bad opening angle: " + theta);
+		}
+		this.theta = theta;
+	}
+
+	/**
+	 * @return the opening angle
+	 */
+	public double getTheta() {
+		return this.theta;
+	}
+
+	/**
+	 * @param softening the softening length, in pixels
+	 */
+	public void setSoftening(double softening) {
+		if (!(softening >= 0)) {
+			throw new IllegalArgumentException("Bad softening length: " + softening);
+		}
+		this.softening = softening;
+	}
+
+	/**
+	 * @return the softening length, in pixels
+	 */
+	public double getSoftening() {
+		return this.softening;
+	}
+
+	/**
+	 * @return the number of nodes in the tree
+	 */
+	public int getNodeCount() {
+		return this.nodes.size;
+	}
+
+	/**
+	 * The nodes of a tree or subtree, depth first, as parallel arrays that grow as needed.
+	 */
+	private static class Nodes {
+		/**
+		 * The x of each node's center of mass.
+		 */
+		private double[] x = new double[64];
+
+		/**
+		 * The y of each node's center of mass.
+		 */
+		private double[] y = new double[64];
+
+		/**
+		 * The total gravitational parameter of each node.
+		 */
+		private double[] gm = new double[64];
+
+		/**
+		 * The squared distance beyond which each node pulls as a single mass.
+		 */
+		private double[] open = new double[64];
+
+		/**
+		 * The node after each node's subtree.
+		 */
+		private int[] next = new int[64];
+
+		/**
+		 * The first sorted index in each leaf, or -1 for a node with children.
+		 */
+		private int[] first = new int[64];
+
+		/**
+		 * One past the last sorted index in each leaf.
+		 */
+		private int[] last = new int[64];
+
+		/**
+		 * The number of nodes.
+		 */
+		private int size = 0;
+
+		/**
+		 * Removes every node.
+		 */
+		private void clear() {
+			this.size = 0;
+		}
+
+		/**
+		 * Adds a node with children, to be finished once they have been added.
+		 *
+		 * @return the index of the node
+		 */
+		private int add() {
+			this.ensureCapacity(this.size + 1);
+			int node = this.size++;
+			this.first[node] = -1;
+			this.last[node] = -1;
+			return node;
+		}
+
+		/**
+		 * Sets a node's center of mass and marks where its subtree ends, which is the current end.
+		 *
+		 * @param node the node
+		 * @param gm the total gravitational parameter
+		 * @param x the sum of each gravitational parameter times x
+		 * @param y the sum of each gravitational parameter times y
+		 * @param fallbackX the x to use if the node has no mass
+		 * @param fallbackY the y to use if the node has no mass
+		 */
+		private void finish(int node, double gm, double x, double y, double fallbackX, double fallbackY) {
+			this.gm[node] = gm;
+			this.x[node] = gm > 0 ? x / gm : fallbackX;
+			this.y[node] = gm > 0 ? y / gm : fallbackY;
+			this.next[node] = this.size;
+		}
+
+		/**
+		 * Copies a whole subtree onto the end.
+		 *
+		 * @param subtree the subtree
+		 * @return the index its root was copied to
+		 */
+		private int append(Nodes subtree) {
+			int offset = this.size;
+			int count = subtree.size;
+			this.ensureCapacity(offset + count);
+			System.arraycopy(subtree.x, 0, this.x, offset, count);
+			System.arraycopy(subtree.y, 0, this.y, offset, count);
+			System.arraycopy(subtree.gm, 0, this.gm, offset, count);
+			System.arraycopy(subtree.open, 0, this.open, offset, count);
+			System.arraycopy(subtree.first, 0, this.first, offset, count);
+			System.arraycopy(subtree.last, 0, this.last, offset, count);
+			for (int node = 0; node < count; node++) {
+				this.next[offset + node] = subtree.next[node] + offset;
+			}
+			this.size += count;
+			return offset;
+		}
+
+		/**
+		 * Grows the arrays so they hold at least the given number of nodes.
+		 *
+		 * @param capacity the number of nodes to make room for
+		 */
+		private void ensureCapacity(int capacity) {
+			if (capacity <= this.x.length) {
+				return;
+			}
+			int newCapacity = Math.max(capacity, 2 * this.x.length);
+			this.x = Arrays.copyOf(this.x, newCapacity);
+			this.y = Arrays.copyOf(this.y, newCapacity);
+			this.gm = Arrays.copyOf(this.gm, newCapacity);
+			this.open = Arrays.copyOf(this.open, newCapacity);
+			this.next = Arrays.copyOf(this.next, newCapacity);
+			this.first = Arrays.copyOf(this.first, newCapacity);
+			this.last = Arrays.copyOf(this.last, newCapacity);
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package model.engine;
+
+import java.util.Arrays;
+
+import model.balls.AsteroidField;
+import model.balls.Attractors;
+import model.strategies.interact.GravitationStrategy;
+
+/**
+ * Steps the asteroids that need a shorter time step than the rest. An asteroid at level n is stepped 2^n
+ * times within the shared step by kick-drift-kick leapfrog, under the full pull of every massive body.
+ * <p>
+ * The shared step's kernels skip these asteroids, and they are stepped on their own once it is done. The
+ * massive bodies have moved on by then, so their positions part way through the step are found by cubic
+ * Hermite interpolation between their positions and velocities at either end. The steps are nested in
+ * blocks: the finest level is active at every sub-step, the next at every other one, and so on, so the pull
+ * on an asteroid is only worked out when its own step starts or ends. The asteroids are sorted by level so
+ * the active ones are always a prefix that can be stepped in parallel chunks. They don't feel each other
+ * while sub-stepped.
+ */
+public class BlockSubstepper {
+	/**
+	 * The highest level, so an asteroid is stepped at most 2^MAX_LEVEL times a step.
+	 */
+	public static final int MAX_LEVEL = 10;
+
+	/**
+	 * The x positions of the bodies at the start of the step.
+	 */
+	private double[] startX = new double[0];
+
+	/**
+	 * The y positions of the bodies at the start of the step.
+	 */
+	private double[] startY = new double[0];
+
+	/**
+	 * The x velocities of the bodies at the start of the step.
+	 */
+	private double[] startVx = new double[0];
+
+	/**
+	 * The y velocities of the bodies at the start of the step.
+	 */
+	private double[] startVy = new double[0];
+
+	/**
+	 * The x positions of the bodies at the current sub-step.
+	 */
+	private double[] bodyX = new double[0];
+
+	/**
+	 * The y positions of the bodies at the current sub-step.
+	 */
+	private double[] bodyY = new double[0];
+
+	/**
+	 * The asteroids with a level, highest level first.
+	 */
+	private int[] order = new int[0];
+
+	/**
+	 * The number of asteroids at or above each level.
+	 */
+	private int[] atLeast = new int[MAX_LEVEL + 2];
+
+	/**
+	 * The next free place in {@link #order} for each level, while sorting.
+	 */
+	private int[] next = new int[MAX_LEVEL + 1];
+
+	/**
+	 * The number of asteroids with a level.
+	 */
+	private int count = 0;
+
+	/**
+	 * The highest level of any asteroid.
+	 */
+	private int maxLevel = 0;
+
+	/**
+	 * The asteroids being stepped, handed to the chunk commands.
+	 */
+	private AsteroidField field;
+
+	/**
+	 * The bodies pulling on them, handed to the chunk commands.
+	 */
+	private Attractors attractors;
+
+	/**
+	 * The shared time step, handed to the chunk commands.
+	 */
+	private double dt;
+
+	/**
+	 * The current sub-step boundary, counted in steps of the finest level.
+	 */
+	private int boundary;
+
+	/**
+	 * The number of steps of the finest level in the shared step.
+	 */
+	private int fine;
+
+	/**
+	 * The total number of sub-steps taken by all asteroids.
+	 */
+	private long substeps = 0;
+
+	/**
+	 * Closes the last step of each active asteroid in a chunk with a half kick, and opens its next one with a
+	 * half kick and a drift. Its acceleration is left in the field.
+	 */
+	private final IRangeCmd substepCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		double[] vx = this.field.getVx();
+		double[] vy = this.field.getVy();
+		double[] ax = this.field.getAx();
+		double[] ay = this.field.getAy();
+		byte[] level = this.field.getLevel();
+		for (int p = from; p < to; p++) {
+			int i = this.order[p];
+			double h = this.dt / (1 << level[i]);
+			this.accelerate(i, true);
+			double kicks = (this.boundary > 0 ? 0.5 : 0) + (this.boundary < this.fine ? 0.5 : 0);
+			vx[i] += ax[i] * h * kicks;
+			vy[i] += ay[i] * h * kicks;
+			if (this.boundary < this.fine) {
+				x[i] += vx[i] * h;
+				y[i] += vy[i] * h;
+			}
+		}
+	};
+
+	/**
+	 * Leaves the perturbations on each asteroid in a chunk in the field, for integrators that want them.
+	 */
+	private final IRangeCmd perturbCmd = (from, to) -> {
+		for (int p = from; p < to; p++) {
+			this.accelerate(this.order[p], false);
+		}
+	};
+
+	/**
+	 * Sorts out which asteroids have a level and saves the bodies' state before the shared step.
+	 *
+	 * @param field the asteroids, with their levels set
+	 * @param attractors the bodies, at the start of the step
+	 * @return the number of asteroids with a level
+	 */
+	public int begin(AsteroidField field, Attractors attractors) {
+		int bodies = attractors.size();
+		if (this.startX.length < bodies) {
+			this.startX = new double[bodies];
+			this.startY = new double[bodies];
+			this.startVx = new double[bodies];
+			this.startVy = new double[bodies];
+			this.bodyX = new double[bodies];
+			this.bodyY = new double[bodies];
+		}
+		System.arraycopy(attractors.getX(), 0, this.startX, 0, bodies);
+		System.arraycopy(attractors.getY(), 0, this.startY, 0, bodies);
+		System.arraycopy(attractors.getVx(), 0, this.startVx, 0, bodies);
+		System.arraycopy(attractors.getVy(), 0, this.startVy, 0, bodies);
+
+		byte[] level = field.getLevel();
+		int size = field.size();
+		Arrays.fill(this.atLeast, 0);
+		for (int i = 0; i < size; i++) {
+			this.atLeast[level[i]]++;
+		}
+		this.maxLevel = 0;
+		for (int l = MAX_LEVEL; l >= 0; l--) {
+			if (this.atLeast[l] > 0 && this.maxLevel == 0) {
+				this.maxLevel = l;
+			}
+			this.atLeast[l] += this.atLeast[l + 1];
+		}
+		this.count = this.atLeast[1];
+		if (this.count == 0) {
+			return 0;
+		}
+
+		if (this.order.length < this.count) {
+			int capacity = Math.max(this.count, 2 * this.order.length);
+			this.order = new int[capacity];
+		}
+		for (int l = 1; l <= MAX_LEVEL; l++) {
+			this.next[l] = this.atLeast[l + 1];
+		}
+		for (int i = 0; i < size; i++) {
+			if (level[i] > 0) {
+				this.order[this.next[level[i]]++] = i;
+			}
+		}
+		return this.count;
+	}
+
+	/**
+	 * Steps the asteroids with a level through the shared step at their own levels, against the bodies'
+	 * interpolated positions.
+	 *
+	 * @param field the asteroids, after the shared step
+	 * @param attractors the bodies, at the end of the step
+	 * @param engine the engine to step on
+	 * @param dt the shared time step
+	 * @param perturbations whether to leave the perturbations in the field rather than the full accelerations
+	 */
+	public void advance(AsteroidField field, Attractors attractors, StepEngine engine, double dt,
+			boolean perturbations) {
+		if (this.count == 0) {
+			return;
+		}
+		this.field = field;
+		this.attractors = attractors;
+		this.dt = dt;
+		this.fine = 1 << this.maxLevel;
+		for (int k = 0; k <= this.fine; k++) {
+			this.interpolate(k / (double) this.fine);
+			this.boundary = k;
+			int lowest = k == 0 || k == this.fine ? 1 : this.maxLevel - Integer.numberOfTrailingZeros(k);
+			engine.forEachChunk(this.atLeast[Math.max(lowest, 1)], this.substepCmd);
+		}
+		if (perturbations) {
+			engine.forEachChunk(this.count, this.perturbCmd);
+		}
+		byte[] level = field.getLevel();
+		for (int p = 0; p < this.count; p++) {
+			this.substeps += 1 << level[this.order[p]];
+		}
+	}
+
+	/**
+	 * Finds the lowest level that splits a step into at least the given number of sub-steps.
+	 *
+	 * @param substeps the number of sub-steps wanted
+	 * @return the level, at most {@link #MAX_LEVEL}
+	 */
+	public static int levelFor(double substeps) {
+		if (!(substeps > 1)) {
+			return 0;
+		}
+		if (substeps >= 1 << MAX_LEVEL) {
+			return MAX_LEVEL;
+		}
+		return 32 - Integer.numberOfLeadingZeros((int) Math.ceil(substeps) - 1);
+	}
+
+	/**
+	 * Finds where each body is part way through the step, from its position and velocity at either end.
+	 *
+	 * @param s how far through the step, from 0 to 1
+	 */
+	private void interpolate(double s) {
+		double s2 = s * s;
+		double s3 = s2 * s;
+		double h00 = 2 * s3 - 3 * s2 + 1;
+		double h10 = (s3 - 2 * s2 + s) * this.dt;
+		double h01 = 3 * s2 - 2 * s3;
+		double h11 = (s3 - s2) * this.dt;
+		double[] endX = this.attractors.getX();
+		double[] endY = this.attractors.getY();
+		double[] endVx = this.attractors.getVx();
+		double[] endVy = this.attractors.getVy();
+		for (int j = 0; j < this.attractors.size(); j++) {
+			this.bodyX[j] = h00 * this.startX[j] + h10 * this.startVx[j] + h01 * endX[j] + h11 * endVx[j];
+			this.bodyY[j] = h00 * this.startY[j] + h10 * this.startVy[j] + h01 * endY[j] + h11 * endVy[j];
+		}
+	}
+
+	/**
+	 * Calculates the acceleration of one asteroid due to the bodies at their current interpolated positions.
+	 *
+	 * @param i the asteroid
+	 * @param includePinned whether pinned bodies pull, or only the perturbing bodies do
+	 */
+	private void accelerate(int i, boolean includePinned) {
+		double[] gm = this.attractors.getGM();
+		boolean[] pinned = this.attractors.getPinned();
+		double px = this.field.getX()[i];
+		double py = this.field.getY()[i];
+		double sumX = 0;
+		double sumY = 0;
+		for (int j = 0; j < this.attractors.size(); j++) {
+			if (includePinned || !pinned[j]) {
+				double dx = this.bodyX[j] - px;
+				double dy = this.bodyY[j] - py;
+				double dist = Math.sqrt(dx * dx + dy * dy);
+				double acceleration = GravitationStrategy.calcAcceleration(gm[j], dist);
+				sumX += dx / dist * acceleration;
+				sumY += dy / dist * acceleration;
+			}
+		}
+		this.field.getAx()[i] = sumX;
+		this.field.getAy()[i] = sumY;
+	}
+
+	/**
+	 * @return the number of asteroids sub-stepped in the last step
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the total number of sub-steps taken by all asteroids
+	 */
+	public long getSubsteps() {
+		return this.substeps;
+	}
+}
@@ -0,0 +1,174 @@
+package model.engine;
+
+import model.balls.AsteroidField;
+import model.balls.Attractors;
+
+/**
+ * Gives each asteroid a power-of-two step level from its local dynamical time, so asteroids on short orbits
+ * or near a planet take shorter steps and the rest keep the shared step.
+ * <p>
+ * An asteroid's dynamical time is the shortest free-fall time sqrt(d^3 / Gm) to any massive body, which is
+ * about its orbital period over 2 pi when it is clear of the planets. Its level is the lowest that makes each
+ * of its steps no more than the given fraction of that time. The inner belt orbits about twice as fast as
+ * the Hildas, so with the shared step set for the outer belt the inner asteroids only pay for the extra steps
+ * they need. Orbits change slowly, so the levels are only assigned again every few steps, in parallel chunks.
+ * They are assigned on the steps that are a multiple of the interval, counted from the start of the run, so a
+ * run restored from a checkpoint along with its levels assigns them on the same steps as the original.
+ */
+public class BlockTimeSteps {
+	/**
+	 * The largest fraction of the dynamical time a step may take by default.
+	 */
+	public static final double DEFAULT_ACCURACY = 0.02;
+
+	/**
+	 * The number of steps between level assignments by default.
+	 */
+	public static final int DEFAULT_INTERVAL = 16;
+
+	/**
+	 * The largest fraction of the dynamical time a step may take.
+	 */
+	private double accuracy;
+
+	/**
+	 * The number of steps between level assignments.
+	 */
+	private int interval;
+
+	/**
+	 * The number of asteroids given a level in each chunk.
+	 */
+	private int[] chunkCount = new int[0];
+
+	/**
+	 * The asteroids being assigned, handed to the chunk commands.
+	 */
+	private AsteroidField field;
+
+	/**
+	 * The bodies whose pull sets the dynamical time, handed to the chunk commands.
+	 */
+	private Attractors attractors;
+
+	/**
+	 * The shared time step, handed to the chunk commands.
+	 */
+	private double dt;
+
+	/**
+	 * The number of asteroids given a level at the last assignment.
+	 */
+	private int levelled = 0;
+
+	/**
+	 * The number of times the levels have been assigned.
+	 */
+	private long assignments = 0;
+
+	/**
+	 * Sets the level of each asteroid in a chunk, and counts the ones given a level.
+	 */
+	private final IRangeCmd assignCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		byte[] level = this.field.getLevel();
+		double[] bx = this.attractors.getX();
+		double[] by = this.attractors.getY();
+		double[] gm = this.attractors.getGM();
+		int bodies = this.attractors.size();
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			int found = 0;
+			for (int i = start; i < end; i++) {
+				double fastest = 0;
+				for (int j = 0; j < bodies; j++) {
+					double dx = x[i] - bx[j];
+					double dy = y[i] - by[j];
+					double dist2 = dx * dx + dy * dy;
+					fastest = Math.max(fastest, gm[j] / (dist2 * Math.sqrt(dist2)));
+				}
+				int assigned = BlockSubstepper.levelFor(this.dt * Math.sqrt(fastest) / this.accuracy);
+				level[i] = (byte) assigned;
+				if (assigned > 0) {
+					found++;
+				}
+			}
+			this.chunkCount[start / StepEngine.CHUNK_SIZE] = found;
+		}
+	};
+
+	/**
+	 * Constructor for a new BlockTimeSteps.
+	 *
+	 * @param accuracy the largest fraction of the dynamical time a step may take
+	 * @param interval the number of steps between level assignments
+	 */
+	public BlockTimeSteps(double accuracy, int interval) {
+		if (!(accuracy > 0) || interval < 1) {
+			throw new IllegalArgumentException("Bad accuracy or interval: " + accuracy + ", " + interval);
+		}
+		this.accuracy = accuracy;
+		this.interval = interval;
+	}
+
+	/**
+	 * Assigns every asteroid's level if it is time to.
+	 *
+	 * @param field the asteroids
+	 * @param attractors the bodies, at the start of the step
+	 * @param engine the engine to assign on
+	 * @param dt the shared time step
+	 * @param step the number of steps taken before this one
+	 * @return whether the levels were assigned
+	 */
+	public boolean update(AsteroidField field, Attractors attractors, StepEngine engine, double dt, long step) {
+		if (step % this.interval != 0) {
+			return false;
+		}
+
+		int size = field.size();
+		int chunks = (size + StepEngine.CHUNK_SIZE - 1) / StepEngine.CHUNK_SIZE;
+		if (this.chunkCount.length < chunks) {
+			this.chunkCount = new int[Math.max(chunks, 2 * this.chunkCount.length)];
+		}
+		this.field = field;
+		this.attractors = attractors;
+		this.dt = dt;
+		engine.forEachChunk(size, this.assignCmd);
+		this.levelled = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			this.levelled += this.chunkCount[chunk];
+		}
+		this.assignments++;
+		return true;
+	}
+
+	/**
+	 * @return the largest fraction of the dynamical time a step may take
+	 */
+	public double getAccuracy() {
+		return this.accuracy;
+	}
+
+	/**
+	 * @return the number of steps between level assignments
+	 */
+	public int getInterval() {
+		return this.interval;
+	}
+
+	/**
+	 * @return the number of asteroids given a level at the last assignment
+	 */
+	public int getLevelled() {
+		return this.levelled;
+	}
+
+	/**
+	 * @return the number of times the levels have been assigned
+	 */
+	public long getAssignments() {
+		return this.assignments;
+	}
+}
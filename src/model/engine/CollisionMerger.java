@@ -0,0 +1,392 @@
+package model.engine;
+
+import java.util.Arrays;
+
+import model.Constants;
+import model.balls.AsteroidField;
+
+/**
+ * Finds asteroids that overlap and merges them, conserving mass and momentum. Each asteroid is a sphere of
+ * the given density, blown up by an inflation factor since real asteroids are far smaller than a pixel.
+ * <p>
+ * Every step the asteroids are hashed into a grid of cells twice as wide as the largest radius, so any pair
+ * that overlaps is in the same or neighbouring cells, and each asteroid only checks the nine cells around
+ * it. That takes expected O(N) time however the asteroids are spread out. Overlapping pairs are found in
+ * parallel chunks and merged in index order, so the result doesn't depend on the thread count, and the
+ * merged asteroids are compacted out of the field so later steps don't carry them.
+ */
+public class CollisionMerger {
+	/**
+	 * The density of a typical stony asteroid, in kg/m^3.
+	 */
+	public static final double DEFAULT_DENSITY = 2000;
+
+	/**
+	 * The factor turning mass over density into a radius cubed, 3 / (4 pi).
+	 */
+	private static final double SPHERE = 3 / (4 * Math.PI);
+
+	/**
+	 * The density of the asteroids, in kg/m^3.
+	 */
+	private double density;
+
+	/**
+	 * How many times bigger than their true size the asteroids are when checking for overlaps.
+	 */
+	private double inflation;
+
+	/**
+	 * The radius of each asteroid, in pixels.
+	 */
+	private double[] radius = new double[0];
+
+	/**
+	 * The largest radius in each chunk.
+	 */
+	private double[] chunkMaxRadius = new double[0];
+
+	/**
+	 * The hash bucket of each asteroid.
+	 */
+	private int[] bucket = new int[0];
+
+	/**
+	 * The first entry of {@link #order} in each bucket, with one more entry for the end.
+	 */
+	private int[] bucketStart = new int[0];
+
+	/**
+	 * The asteroids sorted by bucket.
+	 */
+	private int[] order = new int[0];
+
+	/**
+	 * The overlapping pairs found in each chunk, first and second asteroid interleaved.
+	 */
+	private int[][] pairs = new int[0][];
+
+	/**
+	 * The number of pairs found in each chunk.
+	 */
+	private int[] pairCount = new int[0];
+
+	/**
+	 * The buckets around the asteroid being checked, one scratch array for each chunk.
+	 */
+	private int[][] neighbours = new int[0][];
+
+	/**
+	 * Whether each asteroid has been merged into another this step.
+	 */
+	private boolean[] removed = new boolean[0];
+
+	/**
+	 * Whether each asteroid has had another merged into it this step.
+	 */
+	private boolean[] grown = new boolean[0];
+
+	/**
+	 * The number of bits in a bucket index.
+	 */
+	private int bucketBits;
+
+	/**
+	 * One over the cell width, in 1/pixels.
+	 */
+	private double inverseCell;
+
+	/**
+	 * The asteroids being checked, handed to the chunk commands.
+	 */
+	private AsteroidField field;
+
+	/**
+	 * The total number of asteroids merged away.
+	 */
+	private long merged = 0;
+
+	/**
+	 * Works out the radius of each asteroid in a chunk, and the largest in the chunk.
+	 */
+	private final IRangeCmd radiusCmd = (from, to) -> {
+		double[] mass = this.field.getMass();
+		double scale = this.inflation / (1000 * Constants.kmToPixels);
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			double largest = 0;
+			for (int i = start; i < end; i++) {
+				this.radius[i] = Math.cbrt(SPHERE * mass[i] / this.density) * scale;
+				largest = Math.max(largest, this.radius[i]);
+			}
+			this.chunkMaxRadius[start / StepEngine.CHUNK_SIZE] = largest;
+		}
+	};
+
+	/**
+	 * Works out the bucket of each asteroid in a chunk.
+	 */
+	private final IRangeCmd bucketCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		for (int i = from; i < to; i++) {
+			this.bucket[i] = this.bucketOf(cellOf(x[i], this.inverseCell), cellOf(y[i], this.inverseCell));
+		}
+	};
+
+	/**
+	 * Finds the pairs in a chunk that overlap, checking each asteroid against the later ones around it.
+	 */
+	private final IRangeCmd overlapCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			int chunk = start / StepEngine.CHUNK_SIZE;
+			int[] neighbours = this.neighbours[chunk];
+			this.pairCount[chunk] = 0;
+			for (int i = start; i < end; i++) {
+				double px = x[i];
+				double py = y[i];
+				if (!Double.isFinite(px) || !Double.isFinite(py)) {
+					continue;
+				}
+				long cx = cellOf(px, this.inverseCell);
+				long cy = cellOf(py, this.inverseCell);
+				int found = 0;
+				for (long dx = -1; dx <= 1; dx++) {
+					for (long dy = -1; dy <= 1; dy++) {
+						int b = this.bucketOf(cx + dx, cy + dy);
+						boolean seen = false;
+						for (int n = 0; n < found; n++) {
+							seen |= neighbours[n] == b;
+						}
+						if (!seen) {
+							neighbours[found++] = b;
+						}
+					}
+				}
+				for (int n = 0; n < found; n++) {
+					int b = neighbours[n];
+					for (int k = this.bucketStart[b]; k < this.bucketStart[b + 1]; k++) {
+						int j = this.order[k];
+						if (j <= i) {
+							continue;
+						}
+						double ex = x[j] - px;
+						double ey = y[j] - py;
+						double reach = this.radius[i] + this.radius[j];
+						if (ex * ex + ey * ey < reach * reach) {
+							this.addPair(chunk, i, j);
+						}
+					}
+				}
+			}
+		}
+	};
+
+	/**
+	 * Constructor for a new CollisionMerger.
+	 *
+	 * @param density the density of the asteroids, in kg/m^3
+	 * @param inflation how many times bigger than their true size the asteroids are when checking for overlaps
+	 */
+	public CollisionMerger(double density, double inflation) {
+		if (!(density > 0) || !(inflation > 0)) {
+			throw new IllegalArgumentException("Bad density or inflation: " + density + ", " + inflation);
+		}
+		this.density = density;
+		this.inflation = inflation;
+	}
+
+	/**
+	 * Merges every pair of asteroids that overlap and compacts the field. An asteroid takes part in at most
+	 * one merge a step, whether it is kept or merged away, so a pile of them comes together over a few steps.
+	 *
+	 * @param field the asteroids
+	 * @param engine the engine to search on
+	 * @return the number of asteroids merged away
+	 */
+	public int merge(AsteroidField field, StepEngine engine) {
+		int count = field.size();
+		if (count < 2) {
+			return 0;
+		}
+		this.field = field;
+		this.ensureCapacity(count);
+		int chunks = (count + StepEngine.CHUNK_SIZE - 1) / StepEngine.CHUNK_SIZE;
+
+		engine.forEachChunk(count, this.radiusCmd);
+		double largest = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			largest = Math.max(largest, this.chunkMaxRadius[chunk]);
+		}
+		if (!(largest > 0)) {
+			return 0;
+		}
+		this.inverseCell = 1 / (2 * largest);
+
+		engine.forEachChunk(count, this.bucketCmd);
+		int buckets = 1 << this.bucketBits;
+		Arrays.fill(this.bucketStart, 0, buckets + 1, 0);
+		for (int i = 0; i < count; i++) {
+			this.bucketStart[this.bucket[i] + 1]++;
+		}
+		for (int b = 0; b < buckets; b++) {
+			this.bucketStart[b + 1] += this.bucketStart[b];
+		}
+		for (int i = 0; i < count; i++) {
+			this.order[this.bucketStart[this.bucket[i]]++] = i;
+		}
+		for (int b = buckets; b > 0; b--) {
+			this.bucketStart[b] = this.bucketStart[b - 1];
+		}
+		this.bucketStart[0] = 0;
+
+		engine.forEachChunk(count, this.overlapCmd);
+
+		Arrays.fill(this.removed, 0, count, false);
+		Arrays.fill(this.grown, 0, count, false);
+		int removedCount = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int[] found = this.pairs[chunk];
+			for (int p = 0; p < 2 * this.pairCount[chunk]; p += 2) {
+				int i = found[p];
+				int j = found[p + 1];
+				if (!this.removed[i] && !this.removed[j] && !this.grown[i] && !this.grown[j]) {
+					this.combine(field, i, j);
+					this.grown[i] = true;
+					this.removed[j] = true;
+					removedCount++;
+				}
+			}
+		}
+		if (removedCount > 0) {
+			field.compact(this.removed);
+			this.merged += removedCount;
+		}
+		return removedCount;
+	}
+
+	/**
+	 * Merges one asteroid into another at their center of mass, with their total mass and momentum.
+	 *
+	 * @param field the asteroids
+	 * @param i the asteroid that is kept
+	 * @param j the asteroid that is merged into it
+	 */
+	private void combine(AsteroidField field, int i, int j) {
+		double[] mass = field.getMass();
+		double total = mass[i] + mass[j];
+		double wi = total > 0 ? mass[i] / total : 0.5;
+		double wj = 1 - wi;
+		double[] x = field.getX();
+		double[] y = field.getY();
+		double[] vx = field.getVx();
+		double[] vy = field.getVy();
+		double[] ax = field.getAx();
+		double[] ay = field.getAy();
+		x[i] = wi * x[i] + wj * x[j];
+		y[i] = wi * y[i] + wj * y[j];
+		vx[i] = wi * vx[i] + wj * vx[j];
+		vy[i] = wi * vy[i] + wj * vy[j];
+		ax[i] = wi * ax[i] + wj * ax[j];
+		ay[i] = wi * ay[i] + wj * ay[j];
+		mass[i] = total;
+	}
+
+	/**
+	 * Records an overlapping pair found in a chunk.
+	 *
+	 * @param chunk the chunk
+	 * @param i the first asteroid
+	 * @param j the second asteroid
+	 */
+	private void addPair(int chunk, int i, int j) {
+		int[] found = this.pairs[chunk];
+		int at = 2 * this.pairCount[chunk];
+		if (at + 2 > found.length) {
+			found = Arrays.copyOf(found, Math.max(16, 2 * found.length));
+			this.pairs[chunk] = found;
+		}
+		found[at] = i;
+		found[at + 1] = j;
+		this.pairCount[chunk]++;
+	}
+
+	/**
+	 * Grows the working arrays to hold the given number of asteroids, with about two buckets for each.
+	 *
+	 * @param count the number of asteroids
+	 */
+	private void ensureCapacity(int count) {
+		if (this.radius.length < count) {
+			int capacity = Math.max(count, 2 * this.radius.length);
+			this.radius = new double[capacity];
+			this.bucket = new int[capacity];
+			this.order = new int[capacity];
+			this.removed = new boolean[capacity];
+			this.grown = new boolean[capacity];
+		}
+		this.bucketBits = Math.max(32 - Integer.numberOfLeadingZeros(2 * count - 1), 4);
+		if (this.bucketStart.length < (1 << this.bucketBits) + 1) {
+			this.bucketStart = new int[(1 << this.bucketBits) + 1];
+		}
+		int chunks = (count + StepEngine.CHUNK_SIZE - 1) / StepEngine.CHUNK_SIZE;
+		if (this.pairs.length < chunks) {
+			int old = this.pairs.length;
+			this.pairs = Arrays.copyOf(this.pairs, chunks);
+			this.neighbours = Arrays.copyOf(this.neighbours, chunks);
+			for (int chunk = old; chunk < chunks; chunk++) {
+				this.pairs[chunk] = new int[16];
+				this.neighbours[chunk] = new int[9];
+			}
+			this.pairCount = new int[chunks];
+			this.chunkMaxRadius = new double[chunks];
+		}
+	}
+
+	/**
+	 * Finds the cell a coordinate is in.
+	 *
+	 * @param coordinate the coordinate, in pixels
+	 * @param inverseCell one over the cell width
+	 * @return the cell index along that axis
+	 */
+	private static long cellOf(double coordinate, double inverseCell) {
+		return (long) Math.floor(coordinate * inverseCell);
+	}
+
+	/**
+	 * Hashes a cell to a bucket.
+	 *
+	 * @param cx the x cell index
+	 * @param cy the y cell index
+	 * @return the bucket
+	 */
+	private int bucketOf(long cx, long cy) {
+		long hash = cx * 0x9E3779B97F4A7C15L ^ cy * 0xC2B2AE3D27D4EB4FL;
+		return (int) (hash >>> (64 - this.bucketBits));
+	}
+
+	/**
+	 * @return the density of the asteroids, in kg/m^3
+	 */
+	public double getDensity() {
+		return this.density;
+	}
+
+	/**
+	 * @return how many times bigger than their true size the asteroids are when checking for overlaps
+	 */
+	public double getInflation() {
+		return this.inflation;
+	}
+
+	/**
+	 * @return the total number of asteroids merged away
+	 */
+	public long getMerged() {
+		return this.merged;
+	}
+}
@@ -0,0 +1,221 @@
+package model.engine;
+
+import java.util.Arrays;
+
+import model.Constants;
+import model.balls.AsteroidField;
+
+/**
+ * Counts how many asteroids fall on each pixel of the canvas and turns the counts into a heat map, with a log
+ * scale so both the crowded belt and the nearly empty gaps show up. With more than one thread the asteroids are
+ * split into one share per thread, each share is counted into its own grid and the grids are merged afterwards,
+ * so counting never contends. There are only ever as many grids as the engine has threads.
+ */
+public class DensityGrid {
+	/**
+	 * The colors of the heat map from empty to fullest, black through purple and orange to pale yellow.
+	 */
+	private static final int[] COLORMAP = makeColormap(256, new int[] { 0x000000, 0x3C0F6E, 0xB42864, 0xFA781E,
+			0xFFF0A0 });
+
+	/**
+	 * The width of the grid in pixels.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the grid in pixels.
+	 */
+	private final int height;
+
+	/**
+	 * The number of asteroids on each pixel, row by row.
+	 */
+	private final int[] counts;
+
+	/**
+	 * The grid each share of the asteroids is counted into, one for each thread of the engine.
+	 */
+	private int[][] partials = new int[0][];
+
+	/**
+	 * The number of asteroids in each share being counted by {@link #countCmd}.
+	 */
+	private int share;
+
+	/**
+	 * The color for each count, rebuilt for every heat map.
+	 */
+	private int[] shades = new int[1];
+
+	/**
+	 * The asteroids being counted by {@link #countCmd}.
+	 */
+	private AsteroidField counted;
+
+	/**
+	 * The pixels being colored by {@link #shadeCmd}.
+	 */
+	private int[] shaded;
+
+	/**
+	 * Counts a range of shares of the asteroids, each into its own grid.
+	 */
+	private final IRangeCmd countCmd;
+
+	/**
+	 * Adds every share's counts for a range of pixels into the main grid, clearing them for next time.
+	 */
+	private final IRangeCmd mergeCmd;
+
+	/**
+	 * Colors a range of pixels by their counts.
+	 */
+	private final IRangeCmd shadeCmd;
+
+	/**
+	 * Constructor for a new DensityGrid covering the canvas.
+	 */
+	public DensityGrid() {
+		this(Constants.canvasWidth, Constants.canvasHeight);
+	}
+
+	/**
+	 * Constructor for a new DensityGrid.
+	 *
+	 * @param width the width in pixels
+	 * @param height the height in pixels
+	 */
+	public DensityGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.counts = new int[width * height];
+
+		this.countCmd = (from, to) -> {
+			for (int task = from; task < to; task++) {
+				int start = task * this.share;
+				this.count(this.counted, start, Math.min(start + this.share, this.counted.size()), this.partials[task]);
+			}
+		};
+		this.mergeCmd = (from, to) -> {
+			for (int[] grid : this.partials) {
+				for (int i = from; i < to; i++) {
+					this.counts[i] += grid[i];
+				}
+				Arrays.fill(grid, from, to, 0);
+			}
+		};
+		this.shadeCmd = (from, to) -> {
+			for (int i = from; i < to; i++) {
+				this.shaded[i] = this.shades[this.counts[i]];
+			}
+		};
+	}
+
+	/**
+	 * Counts the asteroids on each pixel, replacing the previous counts. One pass over the asteroids, split
+	 * into a share for each of the engine's threads, then one pass over the pixels to merge.
+	 *
+	 * @param asteroids the asteroids to count
+	 * @param engine the engine to count on
+	 */
+	public void accumulate(AsteroidField asteroids, StepEngine engine) {
+		Arrays.fill(this.counts, 0);
+		int size = asteroids.size();
+		if (engine.getParallelism() <= 1 || size <= StepEngine.CHUNK_SIZE) {
+			this.count(asteroids, 0, size, this.counts);
+		} else {
+			int tasks = engine.getParallelism();
+			if (this.partials.length != tasks) {
+				this.partials = new int[tasks][this.counts.length];
+			}
+			this.share = (size + tasks - 1) / tasks;
+			this.counted = asteroids;
+			engine.forEachTask(tasks, this.countCmd);
+			this.counted = null;
+			engine.forEachChunk(this.counts.length, this.mergeCmd);
+		}
+	}
+
+	/**
+	 * Colors the pixels by the latest counts, on a log scale from empty up to the fullest pixel.
+	 *
+	 * @param rgb the packed RGB pixels to fill, row by row, the same size as the grid
+	 * @param engine the engine to color on
+	 */
+	public void paint(int[] rgb, StepEngine engine) {
+		int max = 0;
+		for (int count : this.counts) {
+			max = Math.max(max, count);
+		}
+		if (this.shades.length <= max) {
+			this.shades = new int[Math.max(max + 1, 2 * this.shades.length)];
+		}
+		double scale = (COLORMAP.length - 1) / Math.log1p(Math.max(max, 1));
+		for (int count = 0; count <= max; count++) {
+			this.shades[count] = COLORMAP[(int) (Math.log1p(count) * scale)];
+		}
+
+		this.shaded = rgb;
+		engine.forEachChunk(this.counts.length, this.shadeCmd);
+		this.shaded = null;
+	}
+
+	/**
+	 * Counts a range of asteroids into a grid.
+	 *
+	 * @param asteroids the asteroids
+	 * @param from the first asteroid
+	 * @param to one past the last asteroid
+	 * @param grid the grid to count into
+	 */
+	private void count(AsteroidField asteroids, int from, int to, int[] grid) {
+		double[] x = asteroids.getX();
+		double[] y = asteroids.getY();
+		for (int i = from; i < to; i++) {
+			int px = (int) Math.floor(x[i]);
+			int py = (int) Math.floor(y[i]);
+			if (px >= 0 && py >= 0 && px < this.width && py < this.height) {
+				grid[py * this.width + px]++;
+			}
+		}
+	}
+
+	/**
+	 * Makes a colormap by blending evenly between the given colors.
+	 *
+	 * @param size the number of colors in the map
+	 * @param stops the packed RGB colors to blend between, from lowest to highest
+	 * @return the colormap
+	 */
+	private static int[] makeColormap(int size, int[] stops) {
+		int[] colormap = new int[size];
+		for (int i = 0; i < size; i++) {
+			double position = (double) i / (size - 1) * (stops.length - 1);
+			int stop = Math.min((int) position, stops.length - 2);
+			double t = position - stop;
+			int rgb = 0;
+			for (int shift = 16; shift >= 0; shift -= 8) {
+				int from = (stops[stop] >> shift) & 0xFF;
+				int to = (stops[stop + 1] >> shift) & 0xFF;
+				rgb |= (int) Math.round(from + (to - from) * t) << shift;
+			}
+			colormap[i] = rgb;
+		}
+		return colormap;
+	}
+
+	/**
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+}
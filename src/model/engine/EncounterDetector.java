@@ -0,0 +1,217 @@
+package model.engine;
+
+import model.balls.AsteroidField;
+import model.balls.Attractors;
+
+/**
+ * Finds the asteroids having a close encounter with a planet and gives them a step level, so that only they
+ * are sub-stepped through it while everyone else keeps the shared step.
+ * <p>
+ * A planet's Hill sphere is where its pull wins out over the sun's tide, with radius a (m / 3M)^(1/3). An
+ * asteroid is in an encounter when it is within a few Hill radii of a planet, or could get there within the
+ * step at its speed relative to the planet. It is then stepped often enough that each sub-step is a small
+ * fraction of the free-fall time sqrt(d^3 / Gm) at its closest likely distance d. Encounters are checked at the
+ * start of every step, so an asteroid goes back to the shared step as soon as it has moved away.
+ */
+public class EncounterDetector {
+	/**
+	 * How many Hill radii from a planet an encounter starts by default.
+	 */
+	public static final double DEFAULT_HILL_RADII = 3;
+
+	/**
+	 * The largest fraction of the free-fall time a sub-step may take by default.
+	 */
+	public static final double DEFAULT_ACCURACY = 0.05;
+
+	/**
+	 * The closest likely distance is never taken to be less than this many Hill radii, so a fast flyby
+	 * doesn't ask for the most sub-steps just for crossing the planet's position.
+	 */
+	private static final double CLOSEST = 0.02;
+
+	/**
+	 * How many Hill radii from a planet an encounter starts.
+	 */
+	private double hillRadii;
+
+	/**
+	 * The largest fraction of the free-fall time a sub-step may take.
+	 */
+	private double accuracy;
+
+	/**
+	 * The Hill radius of each body, or 0 for the central body.
+	 */
+	private double[] hill = new double[0];
+
+	/**
+	 * The number of asteroids found in an encounter in each chunk.
+	 */
+	private int[] chunkCount = new int[0];
+
+	/**
+	 * The asteroids being checked, handed to the chunk commands.
+	 */
+	private AsteroidField field;
+
+	/**
+	 * The bodies they are checked against, handed to the chunk commands.
+	 */
+	private Attractors attractors;
+
+	/**
+	 * The time step, handed to the chunk commands.
+	 */
+	private double dt;
+
+	/**
+	 * Whether levels already set are only raised, handed to the chunk commands.
+	 */
+	private boolean raise;
+
+	/**
+	 * The number of asteroids in an encounter this step.
+	 */
+	private int current = 0;
+
+	/**
+	 * The total number of steps asteroids have spent in encounters.
+	 */
+	private long encounters = 0;
+
+	/**
+	 * Sets the level of each asteroid in a chunk, and counts the ones in an encounter.
+	 */
+	private final IRangeCmd detectCmd = (from, to) -> {
+		double[] x = this.field.getX();
+		double[] y = this.field.getY();
+		double[] vx = this.field.getVx();
+		double[] vy = this.field.getVy();
+		byte[] level = this.field.getLevel();
+		double[] bx = this.attractors.getX();
+		double[] by = this.attractors.getY();
+		double[] bvx = this.attractors.getVx();
+		double[] bvy = this.attractors.getVy();
+		double[] gm = this.attractors.getGM();
+		int bodies = this.attractors.size();
+		for (int start = from; start < to; start += StepEngine.CHUNK_SIZE) {
+			int end = Math.min(start + StepEngine.CHUNK_SIZE, to);
+			int found = 0;
+			for (int i = start; i < end; i++) {
+				int deepest = 0;
+				for (int j = 0; j < bodies; j++) {
+					if (this.hill[j] > 0) {
+						double dx = x[i] - bx[j];
+						double dy = y[i] - by[j];
+						double reach = this.hillRadii * this.hill[j];
+						double ux = vx[i] - bvx[j];
+						double uy = vy[i] - bvy[j];
+						double travel = Math.sqrt(ux * ux + uy * uy) * this.dt;
+						double dist2 = dx * dx + dy * dy;
+						if (dist2 < (reach + travel) * (reach + travel)) {
+							double closest = Math.max(Math.sqrt(dist2) - travel, CLOSEST * this.hill[j]);
+							double freeFall = Math.sqrt(closest * closest * closest / gm[j]);
+							deepest = Math.max(deepest,
+									Math.max(1, BlockSubstepper.levelFor(this.dt / (this.accuracy * freeFall))));
+						}
+					}
+				}
+				level[i] = (byte) (this.raise ? Math.max(level[i], deepest) : deepest);
+				if (deepest > 0) {
+					found++;
+				}
+			}
+			this.chunkCount[start / StepEngine.CHUNK_SIZE] = found;
+		}
+	};
+
+	/**
+	 * Constructor for a new EncounterDetector.
+	 *
+	 * @param hillRadii how many Hill radii from a planet an encounter starts
+	 * @param accuracy the largest fraction of the free-fall time a sub-step may take
+	 */
+	public EncounterDetector(double hillRadii, double accuracy) {
+		if (!(hillRadii > 0) || !(accuracy > 0)) {
+			throw new IllegalArgumentException("Bad Hill radii or accuracy: " + hillRadii + ", " + accuracy);
+		}
+		this.hillRadii = hillRadii;
+		this.accuracy = accuracy;
+	}
+
+	/**
+	 * Sets every asteroid's level for the coming step: 0 if it is clear of the planets, or enough for its
+	 * encounter if not. When the levels are already set by block time steps they are only raised, and stay
+	 * raised until the blocks are next assigned.
+	 *
+	 * @param field the asteroids
+	 * @param attractors the bodies, at the start of the step
+	 * @param engine the engine to check on
+	 * @param dt the time step
+	 * @param raise whether to only raise the levels already set, rather than replace them
+	 * @return the number of asteroids in an encounter
+	 */
+	public int detect(AsteroidField field, Attractors attractors, StepEngine engine, double dt, boolean raise) {
+		int bodies = attractors.size();
+		if (this.hill.length < bodies) {
+			this.hill = new double[bodies];
+		}
+		int central = attractors.getCentral();
+		double[] bx = attractors.getX();
+		double[] by = attractors.getY();
+		double[] gm = attractors.getGM();
+		for (int j = 0; j < bodies; j++) {
+			this.hill[j] = 0;
+			if (central >= 0 && j != central && gm[j] > 0) {
+				double axis = Math.hypot(bx[j] - bx[central], by[j] - by[central]);
+				this.hill[j] = axis * Math.cbrt(gm[j] / (3 * gm[central]));
+			}
+		}
+
+		int size = field.size();
+		int chunks = (size + StepEngine.CHUNK_SIZE - 1) / StepEngine.CHUNK_SIZE;
+		if (this.chunkCount.length < chunks) {
+			this.chunkCount = new int[Math.max(chunks, 2 * this.chunkCount.length)];
+		}
+		this.field = field;
+		this.attractors = attractors;
+		this.dt = dt;
+		this.raise = raise;
+		engine.forEachChunk(size, this.detectCmd);
+		this.current = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			this.current += this.chunkCount[chunk];
+		}
+		this.encounters += this.current;
+		return this.current;
+	}
+
+	/**
+	 * @return how many Hill radii from a planet an encounter starts
+	 */
+	public double getHillRadii() {
+		return this.hillRadii;
+	}
+
+	/**
+	 * @return the largest fraction of the free-fall time a sub-step may take
+	 */
+	public double getAccuracy() {
+		return this.accuracy;
+	}
+
+	/**
+	 * @return the number of asteroids in an encounter this step
+	 */
+	public int getCurrent() {
+		return this.current;
+	}
+
+	/**
+	 * @return the total number of steps asteroids have spent in encounters
+	 */
+	public long getEncounters() {
+		return this.encounters;
+	}
+}
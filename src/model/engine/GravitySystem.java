@@ -0,0 +1,468 @@
+package model.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.balls.AsteroidField;
+import model.balls.Attractors;
+import model.balls.IBall;
+import model.metrics.Phase;
+import model.metrics.SimulationMetrics;
+import model.strategies.update.IIntegratorStrategy;
+
+/**
+ * The massive bodies and the asteroids, advanced together by an integrator strategy.
+ * The massive bodies stay IBalls in the dispatcher; for each step they are copied into packed arrays,
+ * integrated alongside the asteroids and copied back.
+ */
+public class GravitySystem implements IGravitySystem {
+	/**
+	 * The massive bodies, in the order they were added to the dispatcher.
+	 */
+	private List<IBall> bodies;
+
+	/**
+	 * The packed state of the massive bodies.
+	 */
+	private Attractors attractors = new Attractors();
+
+	/**
+	 * The asteroids.
+	 */
+	private AsteroidField asteroids;
+
+	/**
+	 * Runs the asteroid kernels, in parallel chunks when there is more than one thread.
+	 */
+	private StepEngine engine;
+
+	/**
+	 * Nothing has been calculated for the current positions.
+	 */
+	private static final int FORCES_NONE = 0;
+
+	/**
+	 * The full accelerations match the current positions.
+	 */
+	private static final int FORCES_FULL = 1;
+
+	/**
+	 * The perturbations match the current positions.
+	 */
+	private static final int FORCES_PERTURBATIONS = 2;
+
+	/**
+	 * What the stored accelerations are, if they match the current positions.
+	 */
+	private int forces = FORCES_NONE;
+
+	/**
+	 * The time step handed to the asteroid kernels.
+	 */
+	private double kernelDt;
+
+	/**
+	 * The acceleration weight handed to the asteroid drift kernel.
+	 */
+	private double kernelWeight;
+
+	/**
+	 * Pulls the asteroids on each other, or null if they only feel the massive bodies.
+	 */
+	private BarnesHutTree selfGravity = null;
+
+	/**
+	 * Merges asteroids that overlap after each step, or null if they pass through each other.
+	 */
+	private CollisionMerger collisions = null;
+
+	/**
+	 * Finds the asteroids having close encounters with the planets, or null if everyone takes the shared step.
+	 */
+	private EncounterDetector encounters = null;
+
+	/**
+	 * Gives the asteroids step levels from their dynamical times, or null if only encounters get one.
+	 */
+	private BlockTimeSteps blockSteps = null;
+
+	/**
+	 * Sub-steps the asteroids given a level.
+	 */
+	private final BlockSubstepper substepper = new BlockSubstepper();
+
+	/**
+	 * Steps a chunk of asteroids by one tick, kicking them by each other's pull first.
+	 */
+	private final IRangeCmd tickCmd = (from, to) -> {
+		if (this.selfGravity != null) {
+			Arrays.fill(this.asteroids.getAx(), from, to, 0);
+			Arrays.fill(this.asteroids.getAy(), from, to, 0);
+			this.selfGravity.accelerate(this.asteroids, from, to);
+			this.asteroids.kick(1, from, to);
+		}
+		this.asteroids.step(this.attractors, from, to);
+	};
+
+	/**
+	 * Calculates the acceleration of a chunk of asteroids.
+	 */
+	private final IRangeCmd accelerateCmd = (from, to) -> {
+		this.asteroids.accelerate(this.attractors, true, from, to);
+		if (this.selfGravity != null) {
+			this.selfGravity.accelerate(this.asteroids, from, to);
+		}
+	};
+
+	/**
+	 * Calculates the perturbations on a chunk of asteroids, which include their pull on each other.
+	 */
+	private final IRangeCmd perturbCmd = (from, to) -> {
+		this.asteroids.accelerate(this.attractors, false, from, to);
+		if (this.selfGravity != null) {
+			this.selfGravity.accelerate(this.asteroids, from, to);
+		}
+	};
+
+	/**
+	 * Moves a chunk of asteroids along their Kepler orbits around the central body.
+	 */
+	private final IRangeCmd keplerDriftCmd = (from, to) -> {
+		int central = this.attractors.getCentral();
+		this.asteroids.keplerDrift(this.attractors.getX()[central], this.attractors.getY()[central],
+				this.attractors.getGM()[central], this.kernelDt, from, to);
+	};
+
+	/**
+	 * Kicks a chunk of asteroids.
+	 */
+	private final IRangeCmd kickCmd = (from, to) -> this.asteroids.kick(this.kernelDt, from, to);
+
+	/**
+	 * Drifts a chunk of asteroids.
+	 */
+	private final IRangeCmd driftCmd = (from, to) -> this.asteroids.drift(this.kernelDt, this.kernelWeight, from,
+			to);
+
+	/**
+	 * Where the phases are timed.
+	 */
+	private SimulationMetrics metrics = new SimulationMetrics();
+
+	/**
+	 * The number of steps taken.
+	 */
+	private long steps = 0;
+
+	/**
+	 * The simulated time, in ticks.
+	 */
+	private double time = 0;
+
+	/**
+	 * Constructor for a new GravitySystem.
+	 *
+	 * @param bodies the massive bodies, in dispatcher order
+	 * @param asteroids the asteroids
+	 * @param engine the engine to run the asteroid kernels on
+	 */
+	public GravitySystem(List<IBall> bodies, AsteroidField asteroids, StepEngine engine) {
+		this.bodies = bodies;
+		this.asteroids = asteroids;
+		this.engine = engine;
+	}
+
+	/**
+	 * Advances the system by one step of the given integrator.
+	 *
+	 * @param integrator the integrator to step with
+	 * @param dt the time step, in ticks
+	 */
+	public void step(IIntegratorStrategy integrator, double dt) {
+		this.attractors.load(this.bodies);
+		boolean substep = false;
+		if (this.blockSteps != null || this.encounters != null) {
+			long start = SimulationMetrics.start();
+			if (this.blockSteps != null) {
+				this.blockSteps.update(this.asteroids, this.attractors, this.engine, dt, this.steps);
+			}
+			if (this.encounters != null) {
+				this.encounters.detect(this.asteroids, this.attractors, this.engine, dt, this.blockSteps != null);
+			}
+			substep = this.substepper.begin(this.asteroids, this.attractors) > 0;
+			this.asteroids.setSubstepping(substep);
+			this.metrics.end(Phase.SUBSTEP, start);
+		}
+		integrator.step(this, dt);
+		if (substep) {
+			long start = SimulationMetrics.start();
+			this.substepper.advance(this.asteroids, this.attractors, this.engine, dt, this.hasPerturbations());
+			this.metrics.end(Phase.SUBSTEP, start);
+		}
+		if (this.collisions != null) {
+			long start = SimulationMetrics.start();
+			if (this.collisions.merge(this.asteroids, this.engine) > 0) {
+				this.forces = FORCES_NONE;
+			}
+			this.metrics.end(Phase.COLLIDE, start);
+		}
+		this.attractors.store(this.bodies);
+		this.steps++;
+		this.time += dt;
+	}
+
+	/**
+	 * Forgets any accelerations, e.g. after bodies were added or removed. The asteroids' step levels are kept,
+	 * e.g. as restored from a checkpoint, unless nothing here would ever set them again.
+	 */
+	public void reset() {
+		this.forces = FORCES_NONE;
+		if (this.blockSteps == null && this.encounters == null) {
+			this.asteroids.clearLevels();
+		}
+	}
+
+	/**
+	 * Sets the step count and simulated time, e.g. when starting over or restoring a checkpoint.
+	 *
+	 * @param steps the number of steps taken
+	 * @param time the simulated time, in ticks
+	 */
+	public void setClock(long steps, double time) {
+		this.steps = steps;
+		this.time = time;
+	}
+
+	@Override
+	public void tick() {
+		long start = SimulationMetrics.start();
+		this.attractors.tick();
+		this.metrics.end(Phase.BODIES, start);
+		this.buildTree();
+		start = SimulationMetrics.start();
+		this.engine.forEachChunk(this.asteroids.size(), this.tickCmd);
+		this.metrics.end(Phase.TICK, start);
+		this.forces = FORCES_NONE;
+	}
+
+	@Override
+	public void computeAccelerations() {
+		this.buildTree();
+		long start = SimulationMetrics.start();
+		this.attractors.computeAccelerations(true);
+		this.engine.forEachChunk(this.asteroids.size(), this.accelerateCmd);
+		this.metrics.end(Phase.FORCES, start);
+		this.forces = FORCES_FULL;
+	}
+
+	/**
+	 * Rebuilds the tree from the asteroids' current positions, if they pull on each other.
+	 */
+	private void buildTree() {
+		if (this.selfGravity != null) {
+			long start = SimulationMetrics.start();
+			this.selfGravity.build(this.asteroids, this.engine);
+			this.metrics.end(Phase.TREE, start);
+		}
+	}
+
+	@Override
+	public boolean hasAccelerations() {
+		return this.forces == FORCES_FULL;
+	}
+
+	@Override
+	public void computePerturbations() {
+		this.buildTree();
+		long start = SimulationMetrics.start();
+		this.attractors.computeAccelerations(false);
+		this.engine.forEachChunk(this.asteroids.size(), this.perturbCmd);
+		this.metrics.end(Phase.FORCES, start);
+		this.forces = FORCES_PERTURBATIONS;
+	}
+
+	@Override
+	public boolean hasPerturbations() {
+		return this.forces == FORCES_PERTURBATIONS;
+	}
+
+	@Override
+	public void keplerDrift(double dt) {
+		int central = this.attractors.getCentral();
+		if (central < 0) {
+			this.drift(dt);
+			return;
+		}
+		long start = SimulationMetrics.start();
+		this.attractors.keplerDrift(central, dt);
+		this.kernelDt = dt;
+		this.engine.forEachChunk(this.asteroids.size(), this.keplerDriftCmd);
+		this.metrics.end(Phase.DRIFT, start);
+		this.forces = FORCES_NONE;
+	}
+
+	@Override
+	public void kick(double dt) {
+		long start = SimulationMetrics.start();
+		this.attractors.kick(dt);
+		this.kernelDt = dt;
+		this.engine.forEachChunk(this.asteroids.size(), this.kickCmd);
+		this.metrics.end(Phase.KICK, start);
+	}
+
+	@Override
+	public void drift(double dt) {
+		this.drift(dt, 0);
+	}
+
+	@Override
+	public void drift(double dt, double accelerationWeight) {
+		long start = SimulationMetrics.start();
+		this.attractors.drift(dt, accelerationWeight);
+		this.kernelDt = dt;
+		this.kernelWeight = accelerationWeight;
+		this.engine.forEachChunk(this.asteroids.size(), this.driftCmd);
+		this.metrics.end(Phase.DRIFT, start);
+		this.forces = FORCES_NONE;
+	}
+
+	/**
+	 * Makes the asteroids pull on each other through a Barnes-Hut tree, or stops them. The massive bodies
+	 * still don't feel the asteroids.
+	 *
+	 * @param selfGravity the tree to pull through, or null for none
+	 */
+	public void setSelfGravity(BarnesHutTree selfGravity) {
+		this.selfGravity = selfGravity;
+		this.forces = FORCES_NONE;
+	}
+
+	/**
+	 * @return the tree the asteroids pull on each other through, or null if they don't
+	 */
+	public BarnesHutTree getSelfGravity() {
+		return this.selfGravity;
+	}
+
+	/**
+	 * Makes overlapping asteroids merge after each step, or stops them.
+	 *
+	 * @param collisions the merger to use, or null for none
+	 */
+	public void setCollisions(CollisionMerger collisions) {
+		this.collisions = collisions;
+	}
+
+	/**
+	 * @return what merges overlapping asteroids, or null if they pass through each other
+	 */
+	public CollisionMerger getCollisions() {
+		return this.collisions;
+	}
+
+	/**
+	 * Sub-steps the asteroids having close encounters with the planets, or puts everyone back on the shared
+	 * step.
+	 *
+	 * @param encounters what finds the encounters, or null for none
+	 */
+	public void setEncounters(EncounterDetector encounters) {
+		this.encounters = encounters;
+		this.clearLevels();
+	}
+
+	/**
+	 * @return what finds the asteroids' close encounters, or null if everyone takes the shared step
+	 */
+	public EncounterDetector getEncounters() {
+		return this.encounters;
+	}
+
+	/**
+	 * Gives the asteroids power-of-two step levels from their dynamical times, or puts everyone back on the
+	 * shared step. The levels are first assigned on the next step that is a multiple of the interval.
+	 *
+	 * @param blockSteps what assigns the levels, or null for none
+	 */
+	public void setBlockSteps(BlockTimeSteps blockSteps) {
+		this.blockSteps = blockSteps;
+		this.clearLevels();
+	}
+
+	/**
+	 * @return what assigns the asteroids' step levels, or null if only encounters get one
+	 */
+	public BlockTimeSteps getBlockSteps() {
+		return this.blockSteps;
+	}
+
+	/**
+	 * Puts every asteroid back on the shared step until the levels are next set.
+	 */
+	private void clearLevels() {
+		this.asteroids.clearLevels();
+	}
+
+	/**
+	 * @return what sub-steps the asteroids given a level
+	 */
+	public BlockSubstepper getSubstepper() {
+		return this.substepper;
+	}
+
+	/**
+	 * @param metrics where the phases are timed
+	 */
+	public void setMetrics(SimulationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return where the phases are timed
+	 */
+	public SimulationMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * @return the packed state of the massive bodies
+	 */
+	public Attractors getAttractors() {
+		return this.attractors;
+	}
+
+	/**
+	 * @return the asteroids
+	 */
+	public AsteroidField getAsteroids() {
+		return this.asteroids;
+	}
+
+	/**
+	 * @return the massive bodies
+	 */
+	public List<IBall> getBodies() {
+		return this.bodies;
+	}
+
+	/**
+	 * @return the engine the asteroid kernels run on
+	 */
+	public StepEngine getEngine() {
+		return this.engine;
+	}
+
+	/**
+	 * @return the number of steps taken
+	 */
+	public long getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * @return the simulated time, in ticks
+	 */
+	public double getTime() {
+		return this.time;
+	}
+}
@@ -0,0 +1,65 @@
+package model.engine;
+
+/**
+ * The operations an integrator uses to advance the massive bodies and the asteroids together.
+ */
+public interface IGravitySystem {
+
+	/**
+	 * Advances everything by one fixed tick the way the balls always have: each massive body moves and pulls
+	 * on the others in turn, then the asteroids are pulled and moved.
+	 */
+	public void tick();
+
+	/**
+	 * Calculates the acceleration of every body and asteroid at the current positions.
+	 */
+	public void computeAccelerations();
+
+	/**
+	 * @return <code>true</code> if the accelerations match the current positions, <code>false</code> otherwise
+	 */
+	public boolean hasAccelerations();
+
+	/**
+	 * Calculates the acceleration of every body and asteroid due to everything except the central body they
+	 * orbit, i.e. the part of the force a Kepler drift leaves out.
+	 */
+	public void computePerturbations();
+
+	/**
+	 * @return <code>true</code> if the perturbations match the current positions, <code>false</code> otherwise
+	 */
+	public boolean hasPerturbations();
+
+	/**
+	 * Moves every body and asteroid along its Kepler orbit around the central body for the given time.
+	 * If there is no central body, this is a plain drift.
+	 *
+	 * @param dt the time step
+	 */
+	public void keplerDrift(double dt);
+
+	/**
+	 * Changes every velocity by its most recently calculated acceleration over the given time.
+	 *
+	 * @param dt the time step
+	 */
+	public void kick(double dt);
+
+	/**
+	 * Moves everything along its velocity for the given time.
+	 *
+	 * @param dt the time step
+	 */
+	public void drift(double dt);
+
+	/**
+	 * Moves everything along its velocity for the given time, plus the given multiple of its acceleration.
+	 *
+	 * @param dt the time step
+	 * @param accelerationWeight how much of the acceleration to add to the position, e.g. dt * dt / 2
+	 */
+	public void drift(double dt, double accelerationWeight);
+
+}
@@ -0,0 +1,17 @@
+package model.engine;
+
+/**
+ * A command to run over a contiguous range of packed particles.
+ */
+@FunctionalInterface
+public interface IRangeCmd {
+
+	/**
+	 * Something to do to the particles in the range.
+	 *
+	 * @param from the first particle in the range
+	 * @param to one past the last particle in the range
+	 */
+	public abstract void apply(int from, int to);
+
+}
@@ -0,0 +1,97 @@
+package model.engine;
+
+import java.util.SplittableRandom;
+
+import model.Constants;
+import model.SimulationParameters;
+import model.balls.AsteroidField;
+
+/**
+ * Draws the asteroids' starting orbits from a seed. The population is cut into fixed-size chunks and each
+ * chunk draws from its own stream, split off the seed in chunk order, so asteroid i comes out the same no
+ * matter how many threads fill in the population or in what order the chunks run.
+ */
+public class InitialConditions {
+	/**
+	 * The number of asteroids drawn from each stream.
+	 */
+	public static final int CHUNK_SIZE = StepEngine.CHUNK_SIZE;
+
+	/**
+	 * The seed everything is drawn from.
+	 */
+	private final long seed;
+
+	/**
+	 * The ranges the asteroids are drawn from.
+	 */
+	private final SimulationParameters parameters;
+
+	/**
+	 * Constructor for a new InitialConditions, drawing from the default ranges.
+	 *
+	 * @param seed the seed to draw from
+	 */
+	public InitialConditions(long seed) {
+		this(seed, SimulationParameters.DEFAULT);
+	}
+
+	/**
+	 * Constructor for a new InitialConditions.
+	 *
+	 * @param seed the seed to draw from
+	 * @param parameters the ranges the asteroids are drawn from
+	 */
+	public InitialConditions(long seed, SimulationParameters parameters) {
+		this.seed = seed;
+		this.parameters = parameters;
+	}
+
+	/**
+	 * Makes a new seed from the system's entropy, for runs that don't ask for one.
+	 *
+	 * @return a seed
+	 */
+	public static long randomSeed() {
+		return new SplittableRandom().nextLong();
+	}
+
+	/**
+	 * Makes the streams for the given number of asteroids, one per chunk.
+	 *
+	 * @param count the number of asteroids
+	 * @return the stream for each chunk
+	 */
+	public SplittableRandom[] streams(int count) {
+		SplittableRandom root = new SplittableRandom(this.seed);
+		SplittableRandom[] streams = new SplittableRandom[(count + CHUNK_SIZE - 1) / CHUNK_SIZE];
+		for (int chunk = 0; chunk < streams.length; chunk++) {
+			streams[chunk] = root.split();
+		}
+		return streams;
+	}
+
+	/**
+	 * Replaces the asteroids in a field with the given number drawn from the seed, filling the chunks in
+	 * parallel on the engine.
+	 *
+	 * @param asteroids the field to fill
+	 * @param count the number of asteroids
+	 * @param engine the engine to fill the chunks on
+	 */
+	public void populate(AsteroidField asteroids, int count, StepEngine engine) {
+		SplittableRandom[] streams = this.streams(count);
+		asteroids.resize(count);
+		engine.forEachChunk(count, (from, to) -> {
+			for (int start = from; start < to; start += CHUNK_SIZE) {
+				SplittableRandom random = streams[start / CHUNK_SIZE];
+				int end = Math.min(start + CHUNK_SIZE, to);
+				for (int i = start; i < end; i++) {
+					double distance = this.parameters.getRandomAsteroidDistance(random);
+					double angle = random.nextDouble(2 * Math.PI);
+					asteroids.set(i, distance, angle, Constants.getRandomAsteroidMass(random));
+				}
+			}
+		});
+	}
+}
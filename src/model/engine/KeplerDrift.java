@@ -0,0 +1,126 @@
+package model.engine;
+
+/**
+ * Advances a particle along its two-body orbit around a fixed central body, using universal variables and
+ * the f and g functions, so elliptic and hyperbolic orbits are both handled. Works in place on packed
+ * arrays and allocates nothing.
+ */
+public final class KeplerDrift {
+	/**
+	 * The largest number of iterations of the solver.
+	 */
+	private static final int MAX_ITERATIONS = 50;
+
+	/**
+	 * The relative tolerance the universal anomaly is solved to.
+	 */
+	private static final double TOLERANCE = 1e-14;
+
+	/**
+	 * Not instantiable.
+	 */
+	private KeplerDrift() {
+	}
+
+	/**
+	 * Moves particle i along its Kepler orbit for the given time.
+	 *
+	 * @param x the x positions
+	 * @param y the y positions
+	 * @param vx the x velocities
+	 * @param vy the y velocities
+	 * @param i the particle to move
+	 * @param cx the x position of the central body
+	 * @param cy the y position of the central body
+	 * @param mu the gravitational parameter of the central body
+	 * @param dt the time to move for
+	 */
+	public static void drift(double[] x, double[] y, double[] vx, double[] vy, int i, double cx, double cy,
+			double mu, double dt) {
+		double rx = x[i] - cx;
+		double ry = y[i] - cy;
+		double pvx = vx[i];
+		double pvy = vy[i];
+
+		double r0 = Math.sqrt(rx * rx + ry * ry);
+		double sqrtMu = Math.sqrt(mu);
+		double sigma0 = (rx * pvx + ry * pvy) / sqrtMu;
+		double alpha = 2 / r0 - (pvx * pvx + pvy * pvy) / mu;
+
+		// Initial guess for the universal anomaly.
+		double chi = alpha > 0 ? sqrtMu * dt * alpha : sqrtMu * dt / r0;
+
+		double c = 0.5;
+		double s = 1.0 / 6;
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double chi2 = chi * chi;
+			double z = alpha * chi2;
+			c = stumpffC(z);
+			s = stumpffS(z);
+
+			// Laguerre-Conway iteration on the universal Kepler equation.
+			double f = sigma0 * chi2 * c + (1 - alpha * r0) * chi2 * chi * s + r0 * chi - sqrtMu * dt;
+			double df = sigma0 * chi * (1 - z * s) + (1 - alpha * r0) * chi2 * c + r0;
+			double ddf = sigma0 * (1 - z * c) + (1 - alpha * r0) * chi * (1 - z * s);
+			double root = Math.sqrt(Math.abs(16 * df * df - 20 * f * ddf));
+			double delta = 5 * f / (df + Math.copySign(root, df));
+			chi -= delta;
+
+			if (Math.abs(delta) <= TOLERANCE * Math.max(Math.abs(chi), 1e-300)) {
+				chi2 = chi * chi;
+				z = alpha * chi2;
+				c = stumpffC(z);
+				s = stumpffS(z);
+				break;
+			}
+		}
+
+		double chi2 = chi * chi;
+		double f = 1 - chi2 / r0 * c;
+		double g = dt - chi2 * chi * s / sqrtMu;
+
+		double nx = f * rx + g * pvx;
+		double ny = f * ry + g * pvy;
+		double r = Math.sqrt(nx * nx + ny * ny);
+
+		double fDot = sqrtMu / (r * r0) * chi * (alpha * chi2 * s - 1);
+		double gDot = 1 - chi2 / r * c;
+
+		x[i] = cx + nx;
+		y[i] = cy + ny;
+		vx[i] = fDot * rx + gDot * pvx;
+		vy[i] = fDot * ry + gDot * pvy;
+	}
+
+	/**
+	 * The Stumpff function C(z) = (1 - cos(sqrt(z))) / z.
+	 *
+	 * @param z the argument
+	 * @return C(z)
+	 */
+	private static double stumpffC(double z) {
+		if (z > 1e-3) {
+			return (1 - Math.cos(Math.sqrt(z))) / z;
+		} else if (z < -1e-3) {
+			return (Math.cosh(Math.sqrt(-z)) - 1) / -z;
+		}
+		return 1.0 / 2 - z * (1.0 / 24 - z * (1.0 / 720 - z / 40320));
+	}
+
+	/**
+	 * The Stumpff function S(z) = (sqrt(z) - sin(sqrt(z))) / sqrt(z)^3.
+	 *
+	 * @param z the argument
+	 * @return S(z)
+	 */
+	private static double stumpffS(double z) {
+		if (z > 1e-3) {
+			double sqrtZ = Math.sqrt(z);
+			return (sqrtZ - Math.sin(sqrtZ)) / (sqrtZ * z);
+		} else if (z < -1e-3) {
+			double sqrtZ = Math.sqrt(-z);
+			return (Math.sinh(sqrtZ) - sqrtZ) / (sqrtZ * -z);
+		}
+		return 1.0 / 6 - z * (1.0 / 120 - z * (1.0 / 5040 - z / 362880));
+	}
+}
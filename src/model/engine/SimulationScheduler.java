@@ -0,0 +1,306 @@
+package model.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the simulation on its own thread, one step at a time, so it can be paused, resumed, single stepped,
+ * throttled and stopped. Anything else that changes the simulation should go through {@link #runExclusive}
+ * so it happens between steps rather than racing with them.
+ */
+public class SimulationScheduler {
+	/**
+	 * How often the achieved throughput is recalculated, in nanoseconds.
+	 */
+	private static final long THROUGHPUT_WINDOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	/**
+	 * Advances the simulation by one step.
+	 */
+	private final Runnable stepCmd;
+
+	/**
+	 * Called on the simulation thread every {@link #stepsPerFrame} steps.
+	 */
+	private final Runnable frameCmd;
+
+	/**
+	 * Commands waiting to run between steps.
+	 */
+	private final Queue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * Guards the state changes and wakes up a paused loop.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * The simulation thread, or null when stopped.
+	 */
+	private Thread thread;
+
+	/**
+	 * Whether the loop is paused.
+	 */
+	private volatile boolean paused = false;
+
+	/**
+	 * Whether the loop should stop.
+	 */
+	private volatile boolean stopping = false;
+
+	/**
+	 * The number of single steps requested while paused.
+	 */
+	private int stepsRequested = 0;
+
+	/**
+	 * The target number of steps per second, or 0 to run as fast as possible.
+	 */
+	private volatile double targetStepsPerSecond = 0;
+
+	/**
+	 * The number of steps between frames.
+	 */
+	private volatile int stepsPerFrame = 1;
+
+	/**
+	 * The number of steps per second achieved over the last window.
+	 */
+	private volatile double achievedStepsPerSecond = 0;
+
+	/**
+	 * Constructor for a new SimulationScheduler.
+	 *
+	 * @param stepCmd advances the simulation by one step
+	 * @param frameCmd called on the simulation thread at every frame boundary
+	 */
+	public SimulationScheduler(Runnable stepCmd, Runnable frameCmd) {
+		this.stepCmd = stepCmd;
+		this.frameCmd = frameCmd;
+	}
+
+	/**
+	 * Starts the simulation thread, unpaused. Does nothing if it is already running.
+	 */
+	public void start() {
+		synchronized (this.lock) {
+			if (this.thread != null) {
+				return;
+			}
+			this.paused = false;
+			this.stopping = false;
+			this.stepsRequested = 0;
+			this.thread = new Thread(this::loop, "Simulation");
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+	}
+
+	/**
+	 * Pauses the simulation after the current step.
+	 */
+	public void pause() {
+		this.paused = true;
+	}
+
+	/**
+	 * Resumes a paused simulation.
+	 */
+	public void resume() {
+		synchronized (this.lock) {
+			this.paused = false;
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Takes a single step while paused.
+	 */
+	public void step() {
+		synchronized (this.lock) {
+			this.stepsRequested++;
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Stops the simulation thread and waits for it to finish its current step.
+	 */
+	public void stop() {
+		Thread running;
+		synchronized (this.lock) {
+			running = this.thread;
+			this.stopping = true;
+			this.lock.notifyAll();
+		}
+		if (running != null && running != Thread.currentThread()) {
+			try {
+				running.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Runs the command between steps on the simulation thread and waits for it, or runs it right away if the
+	 * simulation isn't running.
+	 *
+	 * @param cmd the command to run
+	 */
+	public void runExclusive(Runnable cmd) {
+		CountDownLatch done = new CountDownLatch(1);
+		synchronized (this.lock) {
+			if (this.thread == null || this.thread == Thread.currentThread()) {
+				cmd.run();
+				return;
+			}
+			this.pending.add(() -> {
+				try {
+					cmd.run();
+				} finally {
+					done.countDown();
+				}
+			});
+			this.lock.notifyAll();
+		}
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the simulation thread is running, <code>false</code> otherwise
+	 */
+	public boolean isRunning() {
+		synchronized (this.lock) {
+			return this.thread != null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the simulation is paused, <code>false</code> otherwise
+	 */
+	public boolean isPaused() {
+		return this.paused;
+	}
+
+	/**
+	 * @param stepsPerSecond the target number of steps per second, or 0 to run as fast as possible
+	 */
+	public void setTargetStepsPerSecond(double stepsPerSecond) {
+		this.targetStepsPerSecond = Math.max(stepsPerSecond, 0);
+	}
+
+	/**
+	 * @return the target number of steps per second, or 0 when running as fast as possible
+	 */
+	public double getTargetStepsPerSecond() {
+		return this.targetStepsPerSecond;
+	}
+
+	/**
+	 * @param stepsPerFrame the number of steps between frames
+	 */
+	public void setStepsPerFrame(int stepsPerFrame) {
+		this.stepsPerFrame = Math.max(stepsPerFrame, 1);
+	}
+
+	/**
+	 * @return the number of steps between frames
+	 */
+	public int getStepsPerFrame() {
+		return this.stepsPerFrame;
+	}
+
+	/**
+	 * @return the number of steps per second achieved recently
+	 */
+	public double getAchievedStepsPerSecond() {
+		return this.achievedStepsPerSecond;
+	}
+
+	/**
+	 * The simulation loop.
+	 */
+	private void loop() {
+		long stepsSinceFrame = 0;
+		long windowStart = System.nanoTime();
+		long windowSteps = 0;
+		long deadline = windowStart;
+
+		try {
+			while (!this.stopping) {
+				runPending();
+
+				boolean singleStep = false;
+				if (this.paused) {
+					synchronized (this.lock) {
+						if (this.stepsRequested > 0) {
+							this.stepsRequested--;
+							singleStep = true;
+						} else {
+							if (this.pending.isEmpty() && !this.stopping && this.paused) {
+								this.lock.wait(THROUGHPUT_WINDOW / 1000000);
+							}
+							this.achievedStepsPerSecond = 0;
+							windowStart = System.nanoTime();
+							windowSteps = 0;
+							deadline = windowStart;
+							continue;
+						}
+					}
+				}
+
+				this.stepCmd.run();
+				windowSteps++;
+
+				if (++stepsSinceFrame >= this.stepsPerFrame || singleStep) {
+					this.frameCmd.run();
+					stepsSinceFrame = 0;
+				}
+
+				long now = System.nanoTime();
+				if (now - windowStart >= THROUGHPUT_WINDOW) {
+					this.achievedStepsPerSecond = windowSteps * 1e9 / (now - windowStart);
+					windowStart = now;
+					windowSteps = 0;
+				}
+
+				double target = this.targetStepsPerSecond;
+				if (target > 0 && !singleStep) {
+					deadline = Math.max(deadline + (long) (1e9 / target), now - THROUGHPUT_WINDOW);
+					while (!this.stopping && this.pending.isEmpty() && (now = System.nanoTime()) < deadline) {
+						LockSupport.parkNanos(deadline - now);
+					}
+				} else {
+					deadline = now;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			synchronized (this.lock) {
+				this.thread = null;
+				this.achievedStepsPerSecond = 0;
+				runPending();
+			}
+		}
+	}
+
+	/**
+	 * Runs every command waiting between steps.
+	 */
+	private void runPending() {
+		Runnable cmd;
+		while ((cmd = this.pending.poll()) != null) {
+			cmd.run();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package model.engine;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+
+import model.balls.AsteroidField;
+import model.balls.IBall;
+import model.strategies.paint.IAsteroidPaintStrategy;
+
+/**
+ * A copy of everything needed to paint one frame of the simulation. The simulation thread fills it in at a
+ * frame boundary and never touches it again while it is being painted.
+ */
+public class Snapshot {
+	/**
+	 * The massive bodies, whose paint strategies draw them.
+	 */
+	private IBall[] bodies = new IBall[0];
+
+	/**
+	 * The x positions of the massive bodies.
+	 */
+	private double[] bodyX = new double[0];
+
+	/**
+	 * The y positions of the massive bodies.
+	 */
+	private double[] bodyY = new double[0];
+
+	/**
+	 * The x velocities of the massive bodies.
+	 */
+	private double[] bodyVx = new double[0];
+
+	/**
+	 * The y velocities of the massive bodies.
+	 */
+	private double[] bodyVy = new double[0];
+
+	/**
+	 * The number of massive bodies.
+	 */
+	private int bodyCount = 0;
+
+	/**
+	 * The x positions of the asteroids.
+	 */
+	private double[] x = new double[0];
+
+	/**
+	 * The y positions of the asteroids.
+	 */
+	private double[] y = new double[0];
+
+	/**
+	 * The color classes of the asteroids.
+	 */
+	private byte[] colorClass = new byte[0];
+
+	/**
+	 * The number of asteroids.
+	 */
+	private int asteroidCount = 0;
+
+	/**
+	 * The density heat map, kept between captures, or null if one was never made.
+	 */
+	private BufferedImage density;
+
+	/**
+	 * Whether {@link #density} holds the heat map for this capture.
+	 */
+	private boolean hasDensity = false;
+
+	/**
+	 * The step the snapshot was taken after.
+	 */
+	private long step = 0;
+
+	/**
+	 * The simulated time the snapshot was taken at, in ticks.
+	 */
+	private double time = 0;
+
+	/**
+	 * Copies the current state of the system, reusing the arrays when they are big enough.
+	 * Must be called on the thread that steps the system.
+	 *
+	 * @param system the system to copy
+	 */
+	public void capture(GravitySystem system) {
+		List<IBall> systemBodies = system.getBodies();
+		this.bodyCount = systemBodies.size();
+		if (this.bodies.length < this.bodyCount) {
+			this.bodies = new IBall[this.bodyCount];
+			this.bodyX = new double[this.bodyCount];
+			this.bodyY = new double[this.bodyCount];
+			this.bodyVx = new double[this.bodyCount];
+			this.bodyVy = new double[this.bodyCount];
+		}
+		for (int j = 0; j < this.bodyCount; j++) {
+			IBall body = systemBodies.get(j);
+			this.bodies[j] = body;
+			this.bodyX[j] = body.getX();
+			this.bodyY[j] = body.getY();
+			this.bodyVx[j] = body.getVelocityX();
+			this.bodyVy[j] = body.getVelocityY();
+		}
+
+		AsteroidField asteroids = system.getAsteroids();
+		this.asteroidCount = asteroids.size();
+		if (this.x.length < this.asteroidCount) {
+			this.x = new double[asteroids.getX().length];
+			this.y = new double[asteroids.getY().length];
+			this.colorClass = new byte[asteroids.getColorClass().length];
+		}
+		System.arraycopy(asteroids.getX(), 0, this.x, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getY(), 0, this.y, 0, this.asteroidCount);
+		System.arraycopy(asteroids.getColorClass(), 0, this.colorClass, 0, this.asteroidCount);
+
+		this.step = system.getSteps();
+		this.time = system.getTime();
+		this.hasDensity = false;
+	}
+
+	/**
+	 * Sets the snapshot up to be filled in directly, e.g. from a recording, making room for the given number
+	 * of asteroids. The caller then fills in the arrays from the getters.
+	 *
+	 * @param bodies the massive bodies
+	 * @param asteroidCount the number of asteroids
+	 * @param step the step the snapshot is of
+	 * @param time the simulated time the snapshot is of
+	 */
+	public void reset(IBall[] bodies, int asteroidCount, long step, double time) {
+		this.bodyCount = bodies.length;
+		if (this.bodies.length < this.bodyCount) {
+			this.bodies = new IBall[this.bodyCount];
+			this.bodyX = new double[this.bodyCount];
+			this.bodyY = new double[this.bodyCount];
+			this.bodyVx = new double[this.bodyCount];
+			this.bodyVy = new double[this.bodyCount];
+		}
+		System.arraycopy(bodies, 0, this.bodies, 0, this.bodyCount);
+		this.asteroidCount = asteroidCount;
+		if (this.x.length < asteroidCount) {
+			this.x = new double[asteroidCount];
+			this.y = new double[asteroidCount];
+			this.colorClass = new byte[asteroidCount];
+		}
+		this.step = step;
+		this.time = time;
+		this.hasDensity = false;
+	}
+
+	/**
+	 * Fills in the density heat map for this capture from a grid that has just counted the asteroids.
+	 *
+	 * @param grid the grid
+	 * @param engine the engine to color the heat map on
+	 */
+	public void captureDensity(DensityGrid grid, StepEngine engine) {
+		if (this.density == null || this.density.getWidth() != grid.getWidth()
+				|| this.density.getHeight() != grid.getHeight()) {
+			this.density = new BufferedImage(grid.getWidth(), grid.getHeight(), BufferedImage.TYPE_INT_RGB);
+		}
+		grid.paint(((DataBufferInt) this.density.getRaster().getDataBuffer()).getData(), engine);
+		this.hasDensity = true;
+	}
+
+	/**
+	 * Paints the asteroids with the given strategy, then the massive bodies over them with their own paint
+	 * strategies.
+	 *
+	 * @param g the Graphics object to paint on
+	 * @param asteroidPainter the strategy that paints the asteroids
+	 */
+	public void paint(Graphics g, IAsteroidPaintStrategy asteroidPainter) {
+		asteroidPainter.paint(g, this);
+		for (int j = 0; j < this.bodyCount; j++) {
+			this.bodies[j].getPaintStrategy().paintAt(g, this.bodies[j], this.bodyX[j], this.bodyY[j],
+					this.bodyVx[j], this.bodyVy[j]);
+		}
+	}
+
+	/**
+	 * @return the number of massive bodies
+	 */
+	public int getBodyCount() {
+		return this.bodyCount;
+	}
+
+	/**
+	 * @return the massive bodies
+	 */
+	public IBall[] getBodies() {
+		return this.bodies;
+	}
+
+	/**
+	 * @return the x positions of the massive bodies
+	 */
+	public double[] getBodyX() {
+		return this.bodyX;
+	}
+
+	/**
+	 * @return the y positions of the massive bodies
+	 */
+	public double[] getBodyY() {
+		return this.bodyY;
+	}
+
+	/**
+	 * @return the x velocities of the massive bodies
+	 */
+	public double[] getBodyVx() {
+		return this.bodyVx;
+	}
+
+	/**
+	 * @return the y velocities of the massive bodies
+	 */
+	public double[] getBodyVy() {
+		return this.bodyVy;
+	}
+
+	/**
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount() {
+		return this.asteroidCount;
+	}
+
+	/**
+	 * @return the x positions of the asteroids
+	 */
+	public double[] getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return the y positions of the asteroids
+	 */
+	public double[] getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return the color classes of the asteroids
+	 */
+	public byte[] getColorClass() {
+		return this.colorClass;
+	}
+
+	/**
+	 * @return the density heat map, or null if this capture doesn't have one
+	 */
+	public BufferedImage getDensity() {
+		return this.hasDensity ? this.density : null;
+	}
+
+	/**
+	 * @return the step the snapshot was taken after
+	 */
+	public long getStep() {
+		return this.step;
+	}
+
+	/**
+	 * @return the simulated time the snapshot was taken at, in ticks
+	 */
+	public double getTime() {
+		return this.time;
+	}
+}
@@ -0,0 +1,88 @@
+package model.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands snapshots from the simulation thread to a single painting thread without either one blocking.
+ * There are three snapshots: the writer fills its back one and swaps it into the middle as the latest, and the
+ * reader swaps the middle for its front one when there is a new one and keeps painting its current one
+ * otherwise. The swaps only exchange indices in one atomic int, so publishing allocates nothing and the writer
+ * never touches the snapshot being painted.
+ */
+public class SnapshotBuffer {
+	/**
+	 * Set in {@link #middle} when the snapshot there was published since the reader last took one.
+	 */
+	private static final int FRESH = 4;
+
+	/**
+	 * The bits of {@link #middle} that hold the index.
+	 */
+	private static final int INDEX = 3;
+
+	/**
+	 * The three snapshots swapped between the writer and the reader.
+	 */
+	private final Snapshot[] snapshots = { new Snapshot(), new Snapshot(), new Snapshot() };
+
+	/**
+	 * The index of the snapshot between the writer and the reader, and whether it is fresh.
+	 */
+	private final AtomicInteger middle = new AtomicInteger(1);
+
+	/**
+	 * Counts the asteroids for a density heat map in each snapshot, or null for no heat map.
+	 */
+	private volatile DensityGrid densityGrid;
+
+	/**
+	 * The index of the snapshot the writer fills. Only touched by the writer.
+	 */
+	private int back = 2;
+
+	/**
+	 * The index of the snapshot the reader is painting. Only touched by the reader.
+	 */
+	private int front = 0;
+
+	/**
+	 * Whether the reader has taken anything yet. Only touched by the reader.
+	 */
+	private boolean painting = false;
+
+	/**
+	 * Publishes the current state of the system. Must be called on the thread that steps the system.
+	 *
+	 * @param system the system to publish
+	 */
+	public void publish(GravitySystem system) {
+		Snapshot snapshot = this.snapshots[this.back];
+		snapshot.capture(system);
+		DensityGrid grid = this.densityGrid;
+		if (grid != null) {
+			grid.accumulate(system.getAsteroids(), system.getEngine());
+			snapshot.captureDensity(grid, system.getEngine());
+		}
+		this.back = this.middle.getAndSet(this.back | FRESH) & INDEX;
+	}
+
+	/**
+	 * @param densityGrid the grid that makes a density heat map for each snapshot, or null for none
+	 */
+	public void setDensityGrid(DensityGrid densityGrid) {
+		this.densityGrid = densityGrid;
+	}
+
+	/**
+	 * Gets the latest snapshot for painting. Must only be called from the one painting thread.
+	 *
+	 * @return the latest snapshot, or null if nothing has been published
+	 */
+	public Snapshot acquire() {
+		if ((this.middle.get() & FRESH) != 0) {
+			this.front = this.middle.getAndSet(this.front) & INDEX;
+			this.painting = true;
+		}
+		return this.painting ? this.snapshots[this.front] : null;
+	}
+}
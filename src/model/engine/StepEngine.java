@@ -0,0 +1,184 @@
+package model.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs range commands over packed particles, either on the calling thread or split into fixed-size chunks
+ * across a ForkJoinPool. Each call returns only once every chunk is done, so it doubles as the barrier
+ * between simulation phases.
+ */
+public class StepEngine {
+	/**
+	 * The number of particles in a chunk. Chunks don't depend on the thread count, so neither does the result.
+	 */
+	public static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * The pool the chunks run on, or null to run everything on the calling thread.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Whether the pool belongs to this engine, rather than being shared with others.
+	 */
+	private boolean ownsPool;
+
+	/**
+	 * Constructor for a new StepEngine.
+	 *
+	 * @param parallelism the number of threads to use, where 1 or less runs everything on the calling thread
+	 */
+	public StepEngine(int parallelism) {
+		this.setParallelism(parallelism);
+	}
+
+	/**
+	 * Changes the number of threads used. Must not be called while a command is running.
+	 *
+	 * @param parallelism the number of threads to use, where 1 or less runs everything on the calling thread
+	 */
+	public void setParallelism(int parallelism) {
+		this.release();
+		this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+		this.ownsPool = true;
+	}
+
+	/**
+	 * Runs the chunks on a pool shared with other engines, which this one won't shut down. Called from a task
+	 * on the same pool, the chunks are forked onto it and the caller joins them, so many engines can share one
+	 * pool without starving it. Must not be called while a command is running.
+	 *
+	 * @param pool the shared pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.release();
+		this.pool = pool;
+		this.ownsPool = false;
+	}
+
+	/**
+	 * Shuts down the pool if it belongs to this engine.
+	 */
+	private void release() {
+		if (this.pool != null && this.ownsPool) {
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return the number of threads used
+	 */
+	public int getParallelism() {
+		return this.pool == null ? 1 : this.pool.getParallelism();
+	}
+
+	/**
+	 * @return the pool the chunks run on, or null if everything runs on the calling thread
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Runs the command over every particle, returning once all of them are done.
+	 *
+	 * @param size the number of particles
+	 * @param cmd the command to run on each chunk
+	 */
+	public void forEachChunk(int size, IRangeCmd cmd) {
+		if (this.pool == null || size <= CHUNK_SIZE) {
+			cmd.apply(0, size);
+		} else {
+			this.pool.invoke(new ChunkTask(cmd, size, CHUNK_SIZE, 0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		}
+	}
+
+	/**
+	 * Runs the command once for each of a few independent pieces of work, such as the subtrees of a tree,
+	 * each as its own task, returning once all of them are done.
+	 *
+	 * @param count the number of pieces
+	 * @param cmd the command to run, given the range of one piece
+	 */
+	public void forEachTask(int count, IRangeCmd cmd) {
+		if (this.pool == null || count <= 1) {
+			for (int i = 0; i < count; i++) {
+				cmd.apply(i, i + 1);
+			}
+		} else {
+			this.pool.invoke(new ChunkTask(cmd, count, 1, 0, count));
+		}
+	}
+
+	/**
+	 * Shuts down the pool, if there is one.
+	 */
+	public void shutdown() {
+		this.setParallelism(1);
+	}
+
+	/**
+	 * A task that splits a run of chunks in half until only one chunk is left.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		/**
+		 * For serialization.
+		 */
+		private static final long serialVersionUID = -3147816044316962470L;
+
+		/**
+		 * The command to run.
+		 */
+		private final IRangeCmd cmd;
+
+		/**
+		 * The total number of particles.
+		 */
+		private final int size;
+
+		/**
+		 * The number of particles in a chunk.
+		 */
+		private final int chunkSize;
+
+		/**
+		 * The first chunk this task covers.
+		 */
+		private final int firstChunk;
+
+		/**
+		 * One past the last chunk this task covers.
+		 */
+		private final int lastChunk;
+
+		/**
+		 * Constructor for a new ChunkTask.
+		 *
+		 * @param cmd the command to run
+		 * @param size the total number of particles
+		 * @param chunkSize the number of particles in a chunk
+		 * @param firstChunk the first chunk this task covers
+		 * @param lastChunk one past the last chunk this task covers
+		 */
+		private ChunkTask(IRangeCmd cmd, int size, int chunkSize, int firstChunk, int lastChunk) {
+			this.cmd = cmd;
+			this.size = size;
+			this.chunkSize = chunkSize;
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.lastChunk - this.firstChunk == 1) {
+				this.cmd.apply(this.firstChunk * this.chunkSize,
+						Math.min(this.lastChunk * this.chunkSize, this.size));
+			} else {
+				int middle = (this.firstChunk + this.lastChunk) >>> 1;
+				invokeAll(new ChunkTask(this.cmd, this.size, this.chunkSize, this.firstChunk, middle),
+						new ChunkTask(this.cmd, this.size, this.chunkSize, middle, this.lastChunk));
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package model.ensemble;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import model.BallModel;
+import model.SimulationParameters;
+import model.analysis.KirkwoodAnalysis;
+import model.strategies.update.IIntegratorStrategy;
+
+/**
+ * One simulation in an ensemble: a headless model of its own, drawn from its own seed and parameters, run
+ * for a fixed number of steps and sampled once at the end.
+ */
+public class EnsembleMember implements Callable<KirkwoodAnalysis> {
+	/**
+	 * The seed the asteroids are drawn from.
+	 */
+	private final long seed;
+
+	/**
+	 * The physical setup of the simulation.
+	 */
+	private final SimulationParameters parameters;
+
+	/**
+	 * The number of asteroids.
+	 */
+	private final int asteroidCount;
+
+	/**
+	 * The name of the integrator, made afresh for each member since some of them keep state.
+	 */
+	private final String integrator;
+
+	/**
+	 * The time step, in ticks.
+	 */
+	private final double dt;
+
+	/**
+	 * The number of steps to run.
+	 */
+	private final long steps;
+
+	/**
+	 * The pool the member's asteroid updates are split across, or null to run them on the calling thread.
+	 */
+	private ForkJoinPool pool = null;
+
+	/**
+	 * Constructor for a new EnsembleMember.
+	 *
+	 * @param seed the seed the asteroids are drawn from
+	 * @param parameters the physical setup of the simulation
+	 * @param asteroidCount the number of asteroids
+	 * @param integrator the name of the integrator
+	 * @param dt the time step, in ticks
+	 * @param steps the number of steps to run
+	 */
+	public EnsembleMember(long seed, SimulationParameters parameters, int asteroidCount, String integrator,
+			double dt, long steps) {
+		this.seed = seed;
+		this.parameters = parameters;
+		this.asteroidCount = asteroidCount;
+		this.integrator = integrator;
+		this.dt = dt;
+		this.steps = steps;
+		// Fails now rather than part way through the ensemble if the name is wrong
+		IIntegratorStrategy.MakeByName(integrator);
+	}
+
+	/**
+	 * Builds the model, runs it and samples the gaps.
+	 *
+	 * @return the analysis of the final state
+	 */
+	@Override
+	public KirkwoodAnalysis call() {
+		BallModel model = new BallModel();
+		if (this.pool != null) {
+			model.setPool(this.pool);
+		} else {
+			model.setParallelism(1);
+		}
+		model.setSeed(this.seed);
+		model.setParameters(this.parameters);
+		model.setIntegrator(IIntegratorStrategy.MakeByName(this.integrator), this.dt);
+		model.getAnalysis().setInterval(Integer.MAX_VALUE);
+		model.makeBalls(this.asteroidCount);
+		while (model.getSystem().getSteps() < this.steps) {
+			model.update();
+		}
+		model.getAnalysis().sample(model.getSystem());
+		return model.getAnalysis();
+	}
+
+	/**
+	 * @param pool the pool the member's asteroid updates are split across, or null for the calling thread
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the seed the asteroids are drawn from
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * @return the physical setup of the simulation
+	 */
+	public SimulationParameters getParameters() {
+		return this.parameters;
+	}
+
+	/**
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount() {
+		return this.asteroidCount;
+	}
+
+	/**
+	 * @return the number of steps to run
+	 */
+	public long getSteps() {
+		return this.steps;
+	}
+}
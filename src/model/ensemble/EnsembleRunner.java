@@ -0,0 +1,81 @@
+package model.ensemble;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import model.analysis.AxisHistogram;
+import model.analysis.KirkwoodAnalysis;
+
+/**
+ * Runs the members of an ensemble side by side on one work-stealing pool. Each member runs as a task on the
+ * pool and splits its own asteroid updates onto the same pool, so a few large members and many small ones
+ * both keep every thread busy without oversubscribing the machine.
+ */
+public class EnsembleRunner implements AutoCloseable {
+	/**
+	 * The pool shared by every member.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor for a new EnsembleRunner.
+	 *
+	 * @param parallelism the number of threads to run on
+	 */
+	public EnsembleRunner(int parallelism) {
+		this.pool = new ForkJoinPool(Math.max(parallelism, 1));
+	}
+
+	/**
+	 * Runs every member and waits for them all to finish.
+	 *
+	 * @param members the members to run
+	 * @return the analysis of each member's final state, in the same order as the members
+	 * @throws ExecutionException if a member fails
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public List<KirkwoodAnalysis> run(List<EnsembleMember> members) throws ExecutionException, InterruptedException {
+		List<ForkJoinTask<KirkwoodAnalysis>> tasks = new ArrayList<ForkJoinTask<KirkwoodAnalysis>>();
+		for (EnsembleMember member : members) {
+			member.setPool(this.pool.getParallelism() > 1 ? this.pool : null);
+			tasks.add(this.pool.submit(member));
+		}
+		List<KirkwoodAnalysis> results = new ArrayList<KirkwoodAnalysis>();
+		for (ForkJoinTask<KirkwoodAnalysis> task : tasks) {
+			results.add(task.get());
+		}
+		return results;
+	}
+
+	/**
+	 * Adds the histograms of every member together.
+	 *
+	 * @param results the analyses of the members, at least one, which must all have the same bins
+	 * @return the merged histogram
+	 */
+	public static AxisHistogram merge(List<KirkwoodAnalysis> results) {
+		AxisHistogram merged = new AxisHistogram(results.get(0).getHistogram());
+		for (int i = 1; i < results.size(); i++) {
+			merged.merge(results.get(i).getHistogram());
+		}
+		return merged;
+	}
+
+	/**
+	 * @return the number of threads the members run on
+	 */
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Shuts down the pool.
+	 */
+	@Override
+	public void close() {
+		this.pool.shutdown();
+	}
+}
@@ -0,0 +1,292 @@
+package model.export;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import model.Constants;
+import model.engine.GravitySystem;
+import model.engine.Snapshot;
+import model.metrics.OutputWriteEvent;
+import model.metrics.Phase;
+import model.metrics.SimulationMetrics;
+import model.strategies.paint.AsteroidRasterStrategy;
+import model.strategies.paint.IAsteroidPaintStrategy;
+
+/**
+ * Exports frames of the simulation to files at regular intervals of simulated time. The simulation thread
+ * only copies the state into a recycled snapshot; a small pool of encoder threads renders each snapshot
+ * offscreen at the export resolution and writes it out as a PNG or as raw 24-bit RGB. At most a fixed
+ * number of frames can be waiting, and frames that come due while they are all taken are dropped rather
+ * than holding up the simulation. Nothing here needs a screen, so it works headless.
+ */
+public class FrameExporter {
+	/**
+	 * Writes each frame as a PNG.
+	 */
+	public static final String PNG = "png";
+
+	/**
+	 * Writes each frame as raw 24-bit RGB, row by row with no header, e.g. for
+	 * <code>ffmpeg -f rawvideo -pixel_format rgb24 -video_size WIDTHxHEIGHT</code>.
+	 */
+	public static final String RAW = "rgb";
+
+	/**
+	 * The directory the frames are written to.
+	 */
+	private final File dir;
+
+	/**
+	 * The simulated time between frames, in ticks.
+	 */
+	private final double interval;
+
+	/**
+	 * The width of the frames in pixels.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the frames in pixels.
+	 */
+	private final int height;
+
+	/**
+	 * The file format, {@link #PNG} or {@link #RAW}.
+	 */
+	private final String format;
+
+	/**
+	 * Renders and writes the frames.
+	 */
+	private final ExecutorService encoders;
+
+	/**
+	 * Snapshots that aren't waiting to be written, which bounds the number of frames in flight.
+	 */
+	private final Queue<Snapshot> free = new ConcurrentLinkedQueue<Snapshot>();
+
+	/**
+	 * The image each encoder renders into.
+	 */
+	private final ThreadLocal<BufferedImage> image;
+
+	/**
+	 * The asteroid paint strategy each encoder renders with.
+	 */
+	private final ThreadLocal<IAsteroidPaintStrategy> painter = ThreadLocal.withInitial(AsteroidRasterStrategy::new);
+
+	/**
+	 * The simulated time the next frame is due at, or NaN before the first step is seen.
+	 */
+	private double nextTime = Double.NaN;
+
+	/**
+	 * Where the encoders' timings go.
+	 */
+	private volatile SimulationMetrics metrics = new SimulationMetrics();
+
+	/**
+	 * The number of frames that have come due.
+	 */
+	private long frames = 0;
+
+	/**
+	 * The number of frames written.
+	 */
+	private final AtomicLong written = new AtomicLong();
+
+	/**
+	 * The number of frames dropped because the encoders were too far behind.
+	 */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Constructor for a new FrameExporter.
+	 *
+	 * @param dir the directory to write the frames to
+	 * @param interval the simulated time between frames, in ticks
+	 * @param width the width of the frames in pixels
+	 * @param height the height of the frames in pixels
+	 * @param format {@link #PNG} or {@link #RAW}
+	 * @param capacity the most frames that can be waiting to be written
+	 * @param encoderThreads the number of threads rendering and writing frames
+	 */
+	public FrameExporter(File dir, double interval, int width, int height, String format, int capacity,
+			int encoderThreads) {
+		if (!PNG.equals(format) && !RAW.equals(format)) {
+			throw new IllegalArgumentException("Unknown frame format: " + format);
+		}
+		if (!(interval > 0) || width < 1 || height < 1 || capacity < 1 || encoderThreads < 1) {
+			throw new IllegalArgumentException("Bad frame export settings");
+		}
+		this.dir = dir;
+		this.interval = interval;
+		this.width = width;
+		this.height = height;
+		this.format = format;
+		this.image = ThreadLocal.withInitial(() -> new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+		for (int i = 0; i < capacity; i++) {
+			this.free.add(new Snapshot());
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.encoders = Executors.newFixedThreadPool(encoderThreads, (r) -> {
+			Thread thread = new Thread(r, "Frame encoder " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Exports a frame if the system has reached the next one. The first step seen starts the schedule.
+	 * Called after every step.
+	 *
+	 * @param system the system that was stepped
+	 * @return <code>true</code> if a frame came due, <code>false</code> otherwise
+	 */
+	public boolean afterStep(GravitySystem system) {
+		double time = system.getTime();
+		if (Double.isNaN(this.nextTime)) {
+			this.nextTime = time;
+		}
+		if (time >= this.nextTime) {
+			this.export(system);
+			// Skip frames a big step jumped past rather than exporting them all at once.
+			this.nextTime += Math.max(Math.floor((time - this.nextTime) / this.interval) + 1, 1) * this.interval;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Exports a frame of the system as it is now. Must be called on the thread that steps the system.
+	 *
+	 * @param system the system to export
+	 * @return <code>true</code> if the frame was queued, <code>false</code> if it was dropped
+	 */
+	public boolean export(GravitySystem system) {
+		long index = this.frames++;
+		Snapshot snapshot = this.free.poll();
+		if (snapshot == null) {
+			this.dropped.incrementAndGet();
+			return false;
+		}
+		snapshot.capture(system);
+		File file = new File(this.dir, String.format("frame-%06d.%s", index, this.format));
+		this.encoders.execute(() -> {
+			OutputWriteEvent event = new OutputWriteEvent();
+			event.begin();
+			long start = SimulationMetrics.start();
+			try {
+				this.write(snapshot, file);
+				this.metrics.end(Phase.EXPORT, start);
+				event.end();
+				if (event.shouldCommit()) {
+					event.kind = "frame";
+					event.path = file.getPath();
+					event.bytes = file.length();
+					event.commit();
+				}
+				this.written.incrementAndGet();
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				this.free.add(snapshot);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Renders a snapshot and writes it to a file. Runs on an encoder thread.
+	 *
+	 * @param snapshot the snapshot to write
+	 * @param file the file to write to
+	 * @throws IOException if it can't be written
+	 */
+	private void write(Snapshot snapshot, File file) throws IOException {
+		BufferedImage frame = this.image.get();
+		Graphics2D g = frame.createGraphics();
+		try {
+			g.clearRect(0, 0, this.width, this.height);
+			g.scale((double) this.width / Constants.canvasWidth, (double) this.height / Constants.canvasHeight);
+			g.setClip(0, 0, Constants.canvasWidth, Constants.canvasHeight);
+			snapshot.paint(g, this.painter.get());
+		} finally {
+			g.dispose();
+		}
+
+		if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+			throw new IOException("Can't create " + this.dir);
+		}
+		if (PNG.equals(this.format)) {
+			if (!ImageIO.write(frame, "png", file)) {
+				throw new IOException("No PNG writer");
+			}
+		} else {
+			int[] pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+			byte[] row = new byte[3 * this.width];
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+				for (int y = 0; y < this.height; y++) {
+					for (int x = 0; x < this.width; x++) {
+						int rgb = pixels[y * this.width + x];
+						row[3 * x] = (byte) (rgb >> 16);
+						row[3 * x + 1] = (byte) (rgb >> 8);
+						row[3 * x + 2] = (byte) rgb;
+					}
+					out.write(row);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for every queued frame to be written and stops the encoders.
+	 */
+	public void close() {
+		this.encoders.shutdown();
+		try {
+			this.encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @param metrics where the encoders' timings go
+	 */
+	public void setMetrics(SimulationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return the number of frames written
+	 */
+	public long getWritten() {
+		return this.written.get();
+	}
+
+	/**
+	 * @return the number of frames dropped because the encoders were too far behind
+	 */
+	public long getDropped() {
+		return this.dropped.get();
+	}
+}
@@ -0,0 +1,34 @@
+package model.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for one sample of the Kirkwood gaps.
+ */
+@Name("kirkwood.AnalysisSample")
+@Label("Analysis Sample")
+@Category({ "Kirkwood", "Simulation" })
+@Description("Binning the asteroids' semi-major axes and measuring the gaps")
+public class AnalysisSampleEvent extends Event {
+	/**
+	 * The step the sample was taken after.
+	 */
+	@Label("Step")
+	public long step;
+
+	/**
+	 * The number of asteroids binned.
+	 */
+	@Label("Asteroid Count")
+	public int asteroidCount;
+
+	/**
+	 * The semi-major axis of the perturbing body, in AU.
+	 */
+	@Label("Perturber Axis")
+	public double perturberAxis;
+}
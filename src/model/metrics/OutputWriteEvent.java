@@ -0,0 +1,37 @@
+package model.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for writing a checkpoint, an exported frame or a chunk of a recorded trajectory.
+ * They are written on background threads, so these show whether the writers are keeping up.
+ */
+@Name("kirkwood.OutputWrite")
+@Label("Output Write")
+@Category({ "Kirkwood", "Output" })
+@Description("Writing a checkpoint, an exported frame or a trajectory chunk")
+public class OutputWriteEvent extends Event {
+	/**
+	 * What was written: "checkpoint", "frame" or "trajectory".
+	 */
+	@Label("Kind")
+	public String kind;
+
+	/**
+	 * The file written to.
+	 */
+	@Label("Path")
+	public String path;
+
+	/**
+	 * The number of bytes written.
+	 */
+	@Label("Size")
+	@DataAmount
+	public long bytes;
+}
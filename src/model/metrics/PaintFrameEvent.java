@@ -0,0 +1,34 @@
+package model.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for painting one frame of the simulation onto the canvas.
+ */
+@Name("kirkwood.PaintFrame")
+@Label("Paint Frame")
+@Category({ "Kirkwood", "View" })
+@Description("Painting the latest snapshot onto the canvas")
+public class PaintFrameEvent extends Event {
+	/**
+	 * The step the snapshot was taken after.
+	 */
+	@Label("Step")
+	public long step;
+
+	/**
+	 * The number of asteroids painted.
+	 */
+	@Label("Asteroid Count")
+	public int asteroidCount;
+
+	/**
+	 * How the asteroids were painted.
+	 */
+	@Label("Asteroid Painter")
+	public String painter;
+}
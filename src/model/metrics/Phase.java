@@ -0,0 +1,77 @@
+package model.metrics;
+
+/**
+ * The parts of a run that are timed.
+ */
+public enum Phase {
+	/**
+	 * A whole call to BallModel.update: the step plus everything done after it.
+	 */
+	STEP,
+
+	/**
+	 * The massive bodies moving, interacting and updating their state as ABalls, on the legacy tick.
+	 */
+	BODIES,
+
+	/**
+	 * Calculating the gravitational accelerations of the bodies and asteroids.
+	 */
+	FORCES,
+
+	/**
+	 * Rebuilding the Barnes-Hut tree for the asteroids' self-gravity.
+	 */
+	TREE,
+
+	/**
+	 * Finding overlapping asteroids and merging them.
+	 */
+	COLLIDE,
+
+	/**
+	 * Assigning step levels, finding close encounters with the planets and sub-stepping the asteroids given
+	 * a level.
+	 */
+	SUBSTEP,
+
+	/**
+	 * Changing the velocities by the accelerations.
+	 */
+	KICK,
+
+	/**
+	 * Moving the bodies and asteroids, along their velocities or their Kepler orbits.
+	 */
+	DRIFT,
+
+	/**
+	 * The legacy tick's asteroid kernel, which pulls and moves each asteroid in one pass.
+	 */
+	TICK,
+
+	/**
+	 * Sampling the gaps.
+	 */
+	ANALYSIS,
+
+	/**
+	 * Handing state to the checkpoint writer, frame exporter and recorder on the simulation thread.
+	 */
+	OUTPUT,
+
+	/**
+	 * Painting a frame on the view.
+	 */
+	PAINT,
+
+	/**
+	 * Rendering and writing an exported frame on an encoder thread.
+	 */
+	EXPORT;
+
+	/**
+	 * The phases, cached since values() copies the array.
+	 */
+	static final Phase[] ALL = values();
+}
@@ -0,0 +1,121 @@
+package model.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A summary of the timings of one phase, as published over JMX.
+ */
+public class PhaseStats {
+	/**
+	 * The number of times the phase was timed.
+	 */
+	private final long count;
+
+	/**
+	 * The mean time, in microseconds.
+	 */
+	private final double meanMicros;
+
+	/**
+	 * The median time, in microseconds.
+	 */
+	private final double p50Micros;
+
+	/**
+	 * The 99th percentile time, in microseconds.
+	 */
+	private final double p99Micros;
+
+	/**
+	 * The longest time, in microseconds.
+	 */
+	private final double maxMicros;
+
+	/**
+	 * The share of the run's wall clock time spent in the phase.
+	 */
+	private final double share;
+
+	/**
+	 * Constructor for a new PhaseStats.
+	 *
+	 * @param count the number of times the phase was timed
+	 * @param meanMicros the mean time, in microseconds
+	 * @param p50Micros the median time, in microseconds
+	 * @param p99Micros the 99th percentile time, in microseconds
+	 * @param maxMicros the longest time, in microseconds
+	 * @param share the share of the run's wall clock time spent in the phase
+	 */
+	@ConstructorProperties({ "count", "meanMicros", "p50Micros", "p99Micros", "maxMicros", "share" })
+	public PhaseStats(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros,
+			double share) {
+		this.count = count;
+		this.meanMicros = meanMicros;
+		this.p50Micros = p50Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+		this.share = share;
+	}
+
+	/**
+	 * Summarizes a histogram.
+	 *
+	 * @param histogram the histogram
+	 * @param elapsedNanos the wall clock time the histogram covers
+	 * @return the summary
+	 */
+	static PhaseStats of(TimingHistogram histogram, long elapsedNanos) {
+		return new PhaseStats(histogram.getCount(), histogram.getMeanNanos() / 1e3,
+				histogram.getPercentileNanos(50) / 1e3, histogram.getPercentileNanos(99) / 1e3,
+				histogram.getMaxNanos() / 1e3,
+				elapsedNanos > 0 ? (double) histogram.getTotalNanos() / elapsedNanos : 0);
+	}
+
+	/**
+	 * @return the number of times the phase was timed
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the mean time, in microseconds
+	 */
+	public double getMeanMicros() {
+		return this.meanMicros;
+	}
+
+	/**
+	 * @return the median time, in microseconds
+	 */
+	public double getP50Micros() {
+		return this.p50Micros;
+	}
+
+	/**
+	 * @return the 99th percentile time, in microseconds
+	 */
+	public double getP99Micros() {
+		return this.p99Micros;
+	}
+
+	/**
+	 * @return the longest time, in microseconds
+	 */
+	public double getMaxMicros() {
+		return this.maxMicros;
+	}
+
+	/**
+	 * @return the share of the run's wall clock time spent in the phase
+	 */
+	public double getShare() {
+		return this.share;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus share=%.1f%%", this.count,
+				this.meanMicros, this.p50Micros, this.p99Micros, this.maxMicros, 100 * this.share);
+	}
+}
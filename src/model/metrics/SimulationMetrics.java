@@ -0,0 +1,263 @@
+package model.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import model.Constants;
+import model.engine.GravitySystem;
+
+/**
+ * Timings of each phase of a run and its throughput. The simulation, the view and the encoders time
+ * themselves into it with {@link #start} and {@link #end}, which costs two clock reads and a few atomic adds.
+ * The rates are worked out over a window of wall clock time from the simulation thread. It can be
+ * published as a platform MXBean for monitoring.
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+	/**
+	 * How often the rates are recalculated, in nanoseconds.
+	 */
+	private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Numbers the runs published in this JVM.
+	 */
+	private static final AtomicInteger RUNS = new AtomicInteger();
+
+	/**
+	 * The histogram of each phase, by ordinal.
+	 */
+	private final TimingHistogram[] histograms = new TimingHistogram[Phase.ALL.length];
+
+	/**
+	 * Reads how much each thread has allocated.
+	 */
+	private final com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The number of ticks in a year.
+	 */
+	private final double ticksPerYear = Constants.calculateTicksPerYear();
+
+	/**
+	 * When the timings were last reset.
+	 */
+	private volatile long since = System.nanoTime();
+
+	/**
+	 * The name the metrics are published under, or null if they aren't.
+	 */
+	private ObjectName name = null;
+
+	/**
+	 * When the current window started.
+	 */
+	private long windowStart = 0;
+
+	/**
+	 * The steps taken when the current window started.
+	 */
+	private long windowSteps = 0;
+
+	/**
+	 * The simulated time when the current window started.
+	 */
+	private double windowTime = 0;
+
+	/**
+	 * The bytes allocated when the current window started.
+	 */
+	private long windowAllocated = 0;
+
+	/**
+	 * The number of steps taken.
+	 */
+	private volatile long steps = 0;
+
+	/**
+	 * The simulated time, in ticks.
+	 */
+	private volatile double time = 0;
+
+	/**
+	 * The number of asteroids.
+	 */
+	private volatile int asteroidCount = 0;
+
+	/**
+	 * The steps per second over the last window.
+	 */
+	private volatile double stepsPerSecond = 0;
+
+	/**
+	 * The years per second over the last window.
+	 */
+	private volatile double yearsPerSecond = 0;
+
+	/**
+	 * The bytes allocated per second over the last window.
+	 */
+	private volatile double allocationRate = 0;
+
+	/**
+	 * Constructor for a new SimulationMetrics.
+	 */
+	public SimulationMetrics() {
+		for (Phase phase : Phase.ALL) {
+			this.histograms[phase.ordinal()] = new TimingHistogram();
+		}
+	}
+
+	/**
+	 * Publishes the metrics on the platform MBean server, under a name unique to this run.
+	 */
+	public synchronized void register() {
+		if (this.name != null) {
+			return;
+		}
+		try {
+			ObjectName name = new ObjectName("kirkwood:type=SimulationMetrics,run=" + RUNS.incrementAndGet());
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, name);
+			this.name = name;
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Stops publishing the metrics.
+	 */
+	public synchronized void unregister() {
+		if (this.name == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+		this.name = null;
+	}
+
+	/**
+	 * @return the time to pass to {@link #end}
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the time taken by a phase.
+	 *
+	 * @param phase the phase
+	 * @param start the time from {@link #start} when the phase began
+	 */
+	public void end(Phase phase, long start) {
+		this.histograms[phase.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Updates the counts and, once a window has passed, the rates. Called on the simulation thread after
+	 * every step.
+	 *
+	 * @param system the system that was stepped
+	 */
+	public void afterStep(GravitySystem system) {
+		this.steps = system.getSteps();
+		this.time = system.getTime();
+		this.asteroidCount = system.getAsteroids().size();
+
+		long now = System.nanoTime();
+		long elapsed = now - this.windowStart;
+		if (elapsed >= WINDOW || this.windowStart == 0) {
+			long allocated = this.allocatedBytes();
+			if (this.windowStart != 0) {
+				double seconds = elapsed / 1e9;
+				this.stepsPerSecond = (this.steps - this.windowSteps) / seconds;
+				this.yearsPerSecond = (this.time - this.windowTime) / this.ticksPerYear / seconds;
+				this.allocationRate = (allocated - this.windowAllocated) / seconds;
+			}
+			this.windowStart = now;
+			this.windowSteps = this.steps;
+			this.windowTime = this.time;
+			this.windowAllocated = allocated;
+		}
+	}
+
+	/**
+	 * @return the bytes allocated so far by every live thread
+	 */
+	private long allocatedBytes() {
+		long total = 0;
+		for (long allocated : this.threadBean.getThreadAllocatedBytes(this.threadBean.getAllThreadIds())) {
+			if (allocated > 0) {
+				total += allocated;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @param phase the phase
+	 * @return the histogram of the phase's timings
+	 */
+	public TimingHistogram getHistogram(Phase phase) {
+		return this.histograms[phase.ordinal()];
+	}
+
+	@Override
+	public long getSteps() {
+		return this.steps;
+	}
+
+	@Override
+	public double getSimulatedYears() {
+		return this.time / this.ticksPerYear;
+	}
+
+	@Override
+	public int getAsteroidCount() {
+		return this.asteroidCount;
+	}
+
+	@Override
+	public double getStepsPerSecond() {
+		return this.stepsPerSecond;
+	}
+
+	@Override
+	public double getYearsPerSecond() {
+		return this.yearsPerSecond;
+	}
+
+	@Override
+	public double getAllocationBytesPerSecond() {
+		return this.allocationRate;
+	}
+
+	@Override
+	public Map<String, PhaseStats> getPhases() {
+		long elapsed = System.nanoTime() - this.since;
+		Map<String, PhaseStats> phases = new LinkedHashMap<String, PhaseStats>();
+		for (Phase phase : Phase.ALL) {
+			phases.put(phase.name().toLowerCase(), PhaseStats.of(this.histograms[phase.ordinal()], elapsed));
+		}
+		return phases;
+	}
+
+	@Override
+	public void resetTimings() {
+		for (TimingHistogram histogram : this.histograms) {
+			histogram.clear();
+		}
+		this.since = System.nanoTime();
+	}
+}
@@ -0,0 +1,48 @@
+package model.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface a run's metrics are published through, so monitoring can watch its throughput.
+ */
+public interface SimulationMetricsMXBean {
+	/**
+	 * @return the number of steps taken
+	 */
+	public long getSteps();
+
+	/**
+	 * @return the simulated time, in years
+	 */
+	public double getSimulatedYears();
+
+	/**
+	 * @return the number of asteroids
+	 */
+	public int getAsteroidCount();
+
+	/**
+	 * @return the steps per second over the last window
+	 */
+	public double getStepsPerSecond();
+
+	/**
+	 * @return the simulated years per second over the last window
+	 */
+	public double getYearsPerSecond();
+
+	/**
+	 * @return the bytes allocated per second by every thread over the last window
+	 */
+	public double getAllocationBytesPerSecond();
+
+	/**
+	 * @return a summary of the timings of each phase, by name
+	 */
+	public Map<String, PhaseStats> getPhases();
+
+	/**
+	 * Forgets the timings so far.
+	 */
+	public void resetTimings();
+}
@@ -0,0 +1,41 @@
+package model.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for one step of the simulation, from the integrator advancing the system to the
+ * last of its output.
+ */
+@Name("kirkwood.Step")
+@Label("Simulation Step")
+@Category({ "Kirkwood", "Simulation" })
+@Description("One step of the simulation")
+public class StepEvent extends Event {
+	/**
+	 * The step that was taken.
+	 */
+	@Label("Step")
+	public long step;
+
+	/**
+	 * The number of massive bodies.
+	 */
+	@Label("Body Count")
+	public int bodyCount;
+
+	/**
+	 * The number of asteroids.
+	 */
+	@Label("Asteroid Count")
+	public int asteroidCount;
+
+	/**
+	 * The integrator that took the step.
+	 */
+	@Label("Integrator")
+	public String integrator;
+}
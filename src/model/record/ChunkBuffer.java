@@ -0,0 +1,169 @@
+package model.record;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that a chunk of frames is encoded into, reused from chunk to chunk.
+ */
+class ChunkBuffer {
+	/**
+	 * The bytes written so far, and room for more.
+	 */
+	private byte[] data;
+
+	/**
+	 * The number of bytes written.
+	 */
+	private int length = 0;
+
+	/**
+	 * The step of the first frame in the chunk.
+	 */
+	private long firstStep;
+
+	/**
+	 * The time of the first frame in the chunk.
+	 */
+	private double firstTime;
+
+	/**
+	 * The number of frames in the chunk.
+	 */
+	private int frames = 0;
+
+	/**
+	 * Constructor for a new ChunkBuffer.
+	 *
+	 * @param capacity the number of bytes to make room for up front
+	 */
+	ChunkBuffer(int capacity) {
+		this.data = new byte[Math.max(capacity, 16)];
+	}
+
+	/**
+	 * Empties the buffer, keeping its storage.
+	 */
+	void clear() {
+		this.length = 0;
+		this.frames = 0;
+	}
+
+	/**
+	 * Notes that a frame is starting.
+	 *
+	 * @param step the step of the frame
+	 * @param time the time of the frame
+	 */
+	void startFrame(long step, double time) {
+		if (this.frames++ == 0) {
+			this.firstStep = step;
+			this.firstTime = time;
+		}
+	}
+
+	/**
+	 * Makes room for at least the given number of bytes more.
+	 *
+	 * @param extra the number of bytes
+	 */
+	void ensure(int extra) {
+		if (this.length + extra > this.data.length) {
+			this.data = Arrays.copyOf(this.data, Math.max(this.length + extra, 2 * this.data.length));
+		}
+	}
+
+	/**
+	 * @param value the byte to write
+	 */
+	void writeByte(int value) {
+		this.ensure(1);
+		this.data[this.length++] = (byte) value;
+	}
+
+	/**
+	 * @param value the short to write, big-endian
+	 */
+	void writeShort(int value) {
+		this.ensure(2);
+		this.data[this.length++] = (byte) (value >>> 8);
+		this.data[this.length++] = (byte) value;
+	}
+
+	/**
+	 * @param value the int to write, big-endian
+	 */
+	void writeInt(int value) {
+		this.ensure(4);
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			this.data[this.length++] = (byte) (value >>> shift);
+		}
+	}
+
+	/**
+	 * @param value the long to write, big-endian
+	 */
+	void writeLong(long value) {
+		this.ensure(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			this.data[this.length++] = (byte) (value >>> shift);
+		}
+	}
+
+	/**
+	 * @param value the double to write, big-endian
+	 */
+	void writeDouble(double value) {
+		this.writeLong(Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Writes an unsigned varint. The caller must have made room for ten bytes.
+	 *
+	 * @param value the value to write
+	 */
+	void writeVarLong(long value) {
+		byte[] data = this.data;
+		int length = this.length;
+		while ((value & ~0x7FL) != 0) {
+			data[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[length++] = (byte) value;
+		this.length = length;
+	}
+
+	/**
+	 * @return the bytes written, followed by unused room
+	 */
+	byte[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return the step of the first frame
+	 */
+	long getFirstStep() {
+		return this.firstStep;
+	}
+
+	/**
+	 * @return the time of the first frame
+	 */
+	double getFirstTime() {
+		return this.firstTime;
+	}
+
+	/**
+	 * @return the number of frames
+	 */
+	int getFrames() {
+		return this.frames;
+	}
+}
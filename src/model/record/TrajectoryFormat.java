@@ -0,0 +1,193 @@
+package model.record;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The layout of a recorded trajectory file, shared by the recorder and the players.
+ * <p>
+ * Everything is big-endian. The file starts with a header: the magic number, version, flags, the number of
+ * bodies and each body's type (as in {@link model.checkpoint.Checkpoint}), the steps between frames, the
+ * time step, the seed and the position and velocity quanta. Then come the chunks, each a stored length and
+ * raw length followed by the frames, deflated if {@link #FLAG_DEFLATE} is set. Last comes the index, with
+ * the offset, first step, first time and frame count of every chunk, and a fixed size trailer giving the
+ * number of chunks and where the index starts, so a player can jump straight to any chunk.
+ * <p>
+ * Each frame has its kind, step, time and number of asteroids, then the bodies as raw doubles, then the
+ * asteroids column by column: x, y, vx and vy, each quantized to a multiple of its quantum. A key frame
+ * also has the color classes and stores the quantized values as they are. Any other frame stores, as a
+ * zigzag varint, how far each value is from a prediction based on the frame before and the pull of the
+ * bodies (see {@link #predictPositions} and {@link #predictVelocities}), which is usually a byte or
+ * two even far apart. Every chunk starts with a key frame, as does any frame where the number of asteroids
+ * changed, so a chunk decodes on its own.
+ */
+public class TrajectoryFormat {
+	/**
+	 * Marks a trajectory file.
+	 */
+	public static final int MAGIC = 0x4B475452;
+
+	/**
+	 * Marks the end of a finished trajectory file.
+	 */
+	public static final int END_MAGIC = 0x4B474E44;
+
+	/**
+	 * The version of the format written.
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * Set in the flags when the chunks are deflated.
+	 */
+	public static final byte FLAG_DEFLATE = 1;
+
+	/**
+	 * A frame whose asteroid values are stored as they are.
+	 */
+	public static final byte KEY_FRAME = 0;
+
+	/**
+	 * A frame whose asteroid values are stored as changes from the frame before.
+	 */
+	public static final byte DELTA_FRAME = 1;
+
+	/**
+	 * The size of a chunk's index entry in bytes: offset, first step, first time and frame count.
+	 */
+	public static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4;
+
+	/**
+	 * The size of the trailer in bytes: chunk count, index offset and end magic.
+	 */
+	public static final int TRAILER_SIZE = 4 + 8 + 4;
+
+	/**
+	 * The size of a chunk's header in bytes: stored length and raw length.
+	 */
+	public static final int CHUNK_HEADER_SIZE = 4 + 4;
+
+	/**
+	 * Predicts where the asteroids will be after some time, from their quantized positions and velocities in
+	 * the previous frame and the pull of the bodies, the same way when recording and playing. Fills in the
+	 * accelerations for {@link #predictVelocities}.
+	 *
+	 * @param x the quantized x positions in the previous frame
+	 * @param y the quantized y positions in the previous frame
+	 * @param vx the quantized x velocities in the previous frame
+	 * @param vy the quantized y velocities in the previous frame
+	 * @param count the number of asteroids
+	 * @param bodyX the x positions of the bodies in the previous frame
+	 * @param bodyY the y positions of the bodies in the previous frame
+	 * @param gm the gravitational parameters of the bodies
+	 * @param elapsed the time since the previous frame
+	 * @param positionQuantum the size of a position quantum
+	 * @param velocityQuantum the size of a velocity quantum
+	 * @param ax filled in with the x accelerations in the previous frame
+	 * @param ay filled in with the y accelerations in the previous frame
+	 * @param predictedX filled in with the predicted quantized x positions
+	 * @param predictedY filled in with the predicted quantized y positions
+	 */
+	public static void predictPositions(long[] x, long[] y, long[] vx, long[] vy, int count, double[] bodyX,
+			double[] bodyY, double[] gm, double elapsed, double positionQuantum, double velocityQuantum, double[] ax,
+			double[] ay, long[] predictedX, long[] predictedY) {
+		double half = 0.5 * elapsed;
+		for (int i = 0; i < count; i++) {
+			double px = x[i] * positionQuantum;
+			double py = y[i] * positionQuantum;
+			double sumX = 0;
+			double sumY = 0;
+			for (int j = 0; j < gm.length; j++) {
+				double dx = bodyX[j] - px;
+				double dy = bodyY[j] - py;
+				double r2 = dx * dx + dy * dy;
+				double pull = r2 > 0 ? gm[j] / (r2 * Math.sqrt(r2)) : 0;
+				sumX += dx * pull;
+				sumY += dy * pull;
+			}
+			ax[i] = sumX;
+			ay[i] = sumY;
+			predictedX[i] = Math.round((px + (vx[i] * velocityQuantum + sumX * half) * elapsed) / positionQuantum);
+			predictedY[i] = Math.round((py + (vy[i] * velocityQuantum + sumY * half) * elapsed) / positionQuantum);
+		}
+	}
+
+	/**
+	 * Predicts the asteroids' velocities from their velocities in the previous frame and the mean of the
+	 * bodies' pull then and now, the same way when recording and playing.
+	 *
+	 * @param x the quantized x positions in this frame
+	 * @param y the quantized y positions in this frame
+	 * @param vx the quantized x velocities in the previous frame
+	 * @param vy the quantized y velocities in the previous frame
+	 * @param count the number of asteroids
+	 * @param bodyX the x positions of the bodies in this frame
+	 * @param bodyY the y positions of the bodies in this frame
+	 * @param gm the gravitational parameters of the bodies
+	 * @param elapsed the time since the previous frame
+	 * @param positionQuantum the size of a position quantum
+	 * @param velocityQuantum the size of a velocity quantum
+	 * @param ax the x accelerations in the previous frame, from {@link #predictPositions}
+	 * @param ay the y accelerations in the previous frame, from {@link #predictPositions}
+	 * @param predictedVx filled in with the predicted quantized x velocities
+	 * @param predictedVy filled in with the predicted quantized y velocities
+	 */
+	public static void predictVelocities(long[] x, long[] y, long[] vx, long[] vy, int count, double[] bodyX,
+			double[] bodyY, double[] gm, double elapsed, double positionQuantum, double velocityQuantum, double[] ax,
+			double[] ay, long[] predictedVx, long[] predictedVy) {
+		double half = 0.5 * elapsed;
+		for (int i = 0; i < count; i++) {
+			double px = x[i] * positionQuantum;
+			double py = y[i] * positionQuantum;
+			double sumX = ax[i];
+			double sumY = ay[i];
+			for (int j = 0; j < gm.length; j++) {
+				double dx = bodyX[j] - px;
+				double dy = bodyY[j] - py;
+				double r2 = dx * dx + dy * dy;
+				double pull = r2 > 0 ? gm[j] / (r2 * Math.sqrt(r2)) : 0;
+				sumX += dx * pull;
+				sumY += dy * pull;
+			}
+			predictedVx[i] = Math.round((vx[i] * velocityQuantum + sumX * half) / velocityQuantum);
+			predictedVy[i] = Math.round((vy[i] * velocityQuantum + sumY * half) / velocityQuantum);
+		}
+	}
+
+	/**
+	 * Maps a signed value to an unsigned one so small magnitudes of either sign encode small.
+	 *
+	 * @param value the value
+	 * @return the zigzag encoded value
+	 */
+	public static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Undoes {@link #zigzag}.
+	 *
+	 * @param value the zigzag encoded value
+	 * @return the value
+	 */
+	public static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a varint, seven bits at a time, least significant first.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the value
+	 */
+	public static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+}
@@ -0,0 +1,533 @@
+package model.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import model.balls.IBall;
+import model.engine.Snapshot;
+
+/**
+ * Reads frames back out of a recorded trajectory file (see {@link TrajectoryFormat}). The file is memory
+ * mapped a chunk at a time, so nothing is read that isn't needed. Only stored chunks are decoded straight from
+ * the mapping without a copy. Deflated chunks, which the recorder writes unless told to store them raw, are
+ * inflated into a reused heap buffer first, so each chunk loaded is copied once; record with
+ * <code>--record-raw</code> for copy-free playback at the cost of a bigger file. Frames are found through the
+ * chunk index, so reaching any frame means decoding at most one chunk, and reading on from there decodes one
+ * frame at a time.
+ */
+public class TrajectoryReader implements AutoCloseable {
+	/**
+	 * The file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Whether the chunks are deflated.
+	 */
+	private final boolean deflated;
+
+	/**
+	 * The type of each body.
+	 */
+	private final byte[] bodyTypes;
+
+	/**
+	 * The gravitational parameters of the bodies.
+	 */
+	private final double[] gm;
+
+	/**
+	 * The number of steps between frames.
+	 */
+	private final int interval;
+
+	/**
+	 * The time step of the run.
+	 */
+	private final double dt;
+
+	/**
+	 * The seed of the run.
+	 */
+	private final long seed;
+
+	/**
+	 * The size of a position quantum.
+	 */
+	private final double positionQuantum;
+
+	/**
+	 * The size of a velocity quantum.
+	 */
+	private final double velocityQuantum;
+
+	/**
+	 * Where each chunk starts in the file.
+	 */
+	private final long[] chunkOffset;
+
+	/**
+	 * The step of the first frame in each chunk.
+	 */
+	private final long[] chunkStep;
+
+	/**
+	 * The index of the first frame in each chunk, plus the total number of frames at the end.
+	 */
+	private final int[] chunkFrame;
+
+	/**
+	 * Inflates deflated chunks.
+	 */
+	private final Inflater inflater = new Inflater();
+
+	/**
+	 * The inflated chunk, reused.
+	 */
+	private byte[] inflated = new byte[0];
+
+	/**
+	 * The chunk being decoded, or -1 for none.
+	 */
+	private int chunk = -1;
+
+	/**
+	 * The frames of the chunk being decoded, positioned at the next frame.
+	 */
+	private ByteBuffer data;
+
+	/**
+	 * The index of the frame last decoded, or -1 for none.
+	 */
+	private int frame = -1;
+
+	/**
+	 * The step of the frame last decoded.
+	 */
+	private long step;
+
+	/**
+	 * The time of the frame last decoded.
+	 */
+	private double time;
+
+	/**
+	 * The number of asteroids in the frame last decoded.
+	 */
+	private int count = 0;
+
+	/**
+	 * The body states in the frame last decoded: x, y, vx and vy for each body.
+	 */
+	private final double[] bodyState;
+
+	/**
+	 * The x positions of the bodies in the frame last decoded.
+	 */
+	private double[] bodyX;
+
+	/**
+	 * The y positions of the bodies in the frame last decoded.
+	 */
+	private double[] bodyY;
+
+	/**
+	 * The x positions of the bodies in the frame before, swapped with {@link #bodyX} each frame.
+	 */
+	private double[] previousBodyX;
+
+	/**
+	 * The y positions of the bodies in the frame before, swapped with {@link #bodyY} each frame.
+	 */
+	private double[] previousBodyY;
+
+	/**
+	 * The color classes of the asteroids.
+	 */
+	private byte[] colorClass = new byte[0];
+
+	/**
+	 * The quantized x positions.
+	 */
+	private long[] qx = new long[0];
+
+	/**
+	 * The quantized y positions.
+	 */
+	private long[] qy = new long[0];
+
+	/**
+	 * The quantized x velocities.
+	 */
+	private long[] qvx = new long[0];
+
+	/**
+	 * The quantized y velocities.
+	 */
+	private long[] qvy = new long[0];
+
+	/**
+	 * The predicted x values, reused each frame.
+	 */
+	private long[] predictedX = new long[0];
+
+	/**
+	 * The predicted y values, reused each frame.
+	 */
+	private long[] predictedY = new long[0];
+
+	/**
+	 * The x accelerations, reused each frame.
+	 */
+	private double[] ax = new double[0];
+
+	/**
+	 * The y accelerations, reused each frame.
+	 */
+	private double[] ay = new double[0];
+
+	/**
+	 * Constructor for a new TrajectoryReader, which reads the header and index.
+	 *
+	 * @param file the recorded trajectory
+	 * @throws IOException if the file can't be read or isn't a finished recording
+	 */
+	public TrajectoryReader(File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long size = this.channel.size();
+			if (size < TrajectoryFormat.TRAILER_SIZE) {
+				throw new IOException("Not a trajectory file: " + file);
+			}
+
+			ByteBuffer trailer = this.channel.map(FileChannel.MapMode.READ_ONLY, size - TrajectoryFormat.TRAILER_SIZE,
+					TrajectoryFormat.TRAILER_SIZE);
+			int chunkCount = trailer.getInt();
+			long indexOffset = trailer.getLong();
+			if (trailer.getInt() != TrajectoryFormat.END_MAGIC || chunkCount < 0
+					|| indexOffset + (long) chunkCount * TrajectoryFormat.INDEX_ENTRY_SIZE != size
+							- TrajectoryFormat.TRAILER_SIZE) {
+				throw new IOException("Unfinished or damaged trajectory file: " + file);
+			}
+
+			ByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(indexOffset, 4096));
+			if (header.getInt() != TrajectoryFormat.MAGIC) {
+				throw new IOException("Not a trajectory file: " + file);
+			}
+			short version = header.getShort();
+			if (version != TrajectoryFormat.VERSION) {
+				throw new IOException("Unsupported trajectory version " + version);
+			}
+			this.deflated = (header.get() & TrajectoryFormat.FLAG_DEFLATE) != 0;
+			this.bodyTypes = new byte[header.get()];
+			header.get(this.bodyTypes);
+			this.interval = header.getInt();
+			this.dt = header.getDouble();
+			this.seed = header.getLong();
+			this.positionQuantum = header.getDouble();
+			this.velocityQuantum = header.getDouble();
+			this.gm = new double[this.bodyTypes.length];
+			for (int j = 0; j < this.gm.length; j++) {
+				this.gm[j] = header.getDouble();
+			}
+
+			ByteBuffer index = this.channel.map(FileChannel.MapMode.READ_ONLY, indexOffset,
+					(long) chunkCount * TrajectoryFormat.INDEX_ENTRY_SIZE);
+			this.chunkOffset = new long[chunkCount];
+			this.chunkStep = new long[chunkCount];
+			this.chunkFrame = new int[chunkCount + 1];
+			for (int c = 0; c < chunkCount; c++) {
+				this.chunkOffset[c] = index.getLong();
+				this.chunkStep[c] = index.getLong();
+				index.getDouble();
+				this.chunkFrame[c + 1] = this.chunkFrame[c] + index.getInt();
+			}
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+
+		int bodies = this.bodyTypes.length;
+		this.bodyState = new double[4 * bodies];
+		this.bodyX = new double[bodies];
+		this.bodyY = new double[bodies];
+		this.previousBodyX = new double[bodies];
+		this.previousBodyY = new double[bodies];
+	}
+
+	/**
+	 * Fills in a snapshot with a frame. Reading the frames in order is quickest; any other frame means
+	 * decoding from the start of its chunk.
+	 *
+	 * @param frame the index of the frame
+	 * @param snapshot the snapshot to fill in
+	 * @param bodies the bodies to paint, one for each of {@link #getBodyTypes}
+	 * @throws IOException if the frame can't be read
+	 */
+	public void read(int frame, Snapshot snapshot, IBall[] bodies) throws IOException {
+		this.seek(frame);
+		snapshot.reset(bodies, this.count, this.step, this.time);
+		for (int j = 0; j < bodies.length; j++) {
+			snapshot.getBodyX()[j] = this.bodyState[4 * j];
+			snapshot.getBodyY()[j] = this.bodyState[4 * j + 1];
+			snapshot.getBodyVx()[j] = this.bodyState[4 * j + 2];
+			snapshot.getBodyVy()[j] = this.bodyState[4 * j + 3];
+		}
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		for (int i = 0; i < this.count; i++) {
+			x[i] = this.qx[i] * this.positionQuantum;
+			y[i] = this.qy[i] * this.positionQuantum;
+		}
+		System.arraycopy(this.colorClass, 0, snapshot.getColorClass(), 0, this.count);
+	}
+
+	/**
+	 * Decodes up to the given frame.
+	 *
+	 * @param frame the index of the frame
+	 * @throws IOException if the frame can't be read
+	 */
+	private void seek(int frame) throws IOException {
+		if (frame < 0 || frame >= this.getFrameCount()) {
+			throw new IndexOutOfBoundsException("No frame " + frame + " of " + this.getFrameCount());
+		}
+		int target = this.chunkOf(frame);
+		if (target != this.chunk || frame < this.frame) {
+			this.loadChunk(target);
+		}
+		try {
+			while (this.frame < frame) {
+				this.decodeFrame();
+			}
+		} catch (RuntimeException e) {
+			this.chunk = -1;
+			throw new IOException("Damaged trajectory chunk " + target, e);
+		}
+	}
+
+	/**
+	 * Finds the chunk a frame is in.
+	 *
+	 * @param frame the index of the frame
+	 * @return the index of the chunk
+	 */
+	private int chunkOf(int frame) {
+		int c = Arrays.binarySearch(this.chunkFrame, frame);
+		if (c < 0) {
+			return -c - 2;
+		}
+		// Skip any empty chunks that start at the same frame.
+		while (this.chunkFrame[c + 1] == frame) {
+			c++;
+		}
+		return c;
+	}
+
+	/**
+	 * Maps a chunk, ready to decode its first frame. A deflated chunk is inflated into {@link #inflated}, so only
+	 * a stored chunk is decoded from the mapping itself.
+	 *
+	 * @param c the index of the chunk
+	 * @throws IOException if it can't be read
+	 */
+	private void loadChunk(int c) throws IOException {
+		this.chunk = -1;
+		MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, this.chunkOffset[c],
+				TrajectoryFormat.CHUNK_HEADER_SIZE);
+		int stored = header.getInt();
+		int raw = header.getInt();
+		ByteBuffer mapped = this.channel.map(FileChannel.MapMode.READ_ONLY,
+				this.chunkOffset[c] + TrajectoryFormat.CHUNK_HEADER_SIZE, stored);
+		if (this.deflated) {
+			if (this.inflated.length < raw) {
+				this.inflated = new byte[raw];
+			}
+			this.inflater.reset();
+			this.inflater.setInput(mapped);
+			try {
+				int length = 0;
+				while (length < raw && !this.inflater.finished()) {
+					int n = this.inflater.inflate(this.inflated, length, raw - length);
+					if (n == 0 && this.inflater.needsInput()) {
+						break;
+					}
+					length += n;
+				}
+				if (length != raw) {
+					throw new IOException("Damaged trajectory chunk " + c);
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Damaged trajectory chunk " + c, e);
+			}
+			this.data = ByteBuffer.wrap(this.inflated, 0, raw);
+		} else {
+			this.data = mapped;
+		}
+		this.chunk = c;
+		this.frame = this.chunkFrame[c] - 1;
+	}
+
+	/**
+	 * Decodes the next frame in the chunk.
+	 */
+	private void decodeFrame() {
+		ByteBuffer data = this.data;
+		boolean key = data.get() == TrajectoryFormat.KEY_FRAME;
+		double previousTime = this.time;
+		this.step = data.getLong();
+		this.time = data.getDouble();
+		int count = (int) TrajectoryFormat.readVarLong(data);
+		if (!key && count != this.count) {
+			throw new IllegalStateException("Asteroid count changed without a key frame");
+		}
+
+		double[] swap = this.previousBodyX;
+		this.previousBodyX = this.bodyX;
+		this.bodyX = swap;
+		swap = this.previousBodyY;
+		this.previousBodyY = this.bodyY;
+		this.bodyY = swap;
+		for (int j = 0; j < this.bodyX.length; j++) {
+			for (int k = 0; k < 4; k++) {
+				this.bodyState[4 * j + k] = data.getDouble();
+			}
+			this.bodyX[j] = this.bodyState[4 * j];
+			this.bodyY[j] = this.bodyState[4 * j + 1];
+		}
+
+		if (key) {
+			this.count = count;
+			if (this.qx.length < count) {
+				this.colorClass = new byte[count];
+				this.qx = new long[count];
+				this.qy = new long[count];
+				this.qvx = new long[count];
+				this.qvy = new long[count];
+				this.predictedX = new long[count];
+				this.predictedY = new long[count];
+				this.ax = new double[count];
+				this.ay = new double[count];
+			}
+			data.get(this.colorClass, 0, count);
+			readColumn(data, this.qx, null, count);
+			readColumn(data, this.qy, null, count);
+			readColumn(data, this.qvx, null, count);
+			readColumn(data, this.qvy, null, count);
+		} else {
+			double elapsed = this.time - previousTime;
+			TrajectoryFormat.predictPositions(this.qx, this.qy, this.qvx, this.qvy, count, this.previousBodyX,
+					this.previousBodyY, this.gm, elapsed, this.positionQuantum, this.velocityQuantum, this.ax, this.ay,
+					this.predictedX, this.predictedY);
+			readColumn(data, this.qx, this.predictedX, count);
+			readColumn(data, this.qy, this.predictedY, count);
+			TrajectoryFormat.predictVelocities(this.qx, this.qy, this.qvx, this.qvy, count, this.bodyX, this.bodyY,
+					this.gm, elapsed, this.positionQuantum, this.velocityQuantum, this.ax, this.ay, this.predictedX,
+					this.predictedY);
+			readColumn(data, this.qvx, this.predictedX, count);
+			readColumn(data, this.qvy, this.predictedY, count);
+		}
+		this.frame++;
+	}
+
+	/**
+	 * Reads a column of quantized values, as they are or as errors in a prediction.
+	 *
+	 * @param data the buffer to read from
+	 * @param quantized filled in with the quantized values
+	 * @param predicted the predicted values, or null for a key frame
+	 * @param count the number of values
+	 */
+	private static void readColumn(ByteBuffer data, long[] quantized, long[] predicted, int count) {
+		for (int i = 0; i < count; i++) {
+			long value = TrajectoryFormat.unzigzag(TrajectoryFormat.readVarLong(data));
+			quantized[i] = predicted == null ? value : predicted[i] + value;
+		}
+	}
+
+	/**
+	 * Finds the frame nearest to a step, assuming the frames in each chunk are {@link #getInterval} steps apart.
+	 *
+	 * @param step the step
+	 * @return the index of the frame
+	 */
+	public int frameOfStep(long step) {
+		int chunks = this.chunkOffset.length;
+		if (chunks == 0) {
+			return -1;
+		}
+		int c = Arrays.binarySearch(this.chunkStep, step);
+		if (c < 0) {
+			c = Math.max(-c - 2, 0);
+		}
+		int offset = (int) Math.max(Math.round((double) (step - this.chunkStep[c]) / this.interval), 0);
+		return Math.min(this.chunkFrame[c] + offset, this.chunkFrame[c + 1] - 1);
+	}
+
+	/**
+	 * @return the number of frames
+	 */
+	public int getFrameCount() {
+		return this.chunkFrame[this.chunkFrame.length - 1];
+	}
+
+	/**
+	 * @return the type of each body, as in {@link model.checkpoint.Checkpoint}
+	 */
+	public byte[] getBodyTypes() {
+		return this.bodyTypes.clone();
+	}
+
+	/**
+	 * @return the number of steps between frames
+	 */
+	public int getInterval() {
+		return this.interval;
+	}
+
+	/**
+	 * @return the time step of the run
+	 */
+	public double getDt() {
+		return this.dt;
+	}
+
+	/**
+	 * @return the seed of the run
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * @return the step of the frame last read
+	 */
+	public long getStep() {
+		return this.step;
+	}
+
+	/**
+	 * @return the simulated time of the frame last read, in ticks
+	 */
+	public double getTime() {
+		return this.time;
+	}
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException if it can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.inflater.end();
+		this.channel.close();
+	}
+}
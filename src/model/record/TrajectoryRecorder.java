@@ -0,0 +1,553 @@
+package model.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import model.Constants;
+import model.balls.AsteroidField;
+import model.balls.IBall;
+import model.checkpoint.Checkpoint;
+import model.engine.GravitySystem;
+import model.metrics.OutputWriteEvent;
+
+/**
+ * Records a run to a file every so many steps, in the compact format described in {@link TrajectoryFormat}.
+ * Frames are quantized and encoded into a chunk buffer on the simulation thread; full chunks are handed to a
+ * background thread that deflates and writes them, and the buffers come back to a small pool to be filled
+ * again. A recording can't skip frames without breaking the deltas, so if the writer falls a whole pool
+ * behind the simulation waits for it.
+ */
+public class TrajectoryRecorder {
+	/**
+	 * The number of chunk buffers, which is the most chunks that can be waiting to be written plus one.
+	 */
+	private static final int POOL_SIZE = 3;
+
+	/**
+	 * The default size of a position quantum, in pixels (about 2000 km).
+	 */
+	public static final double POSITION_QUANTUM = 1e-3;
+
+	/**
+	 * The default size of a velocity quantum, in pixels per tick.
+	 */
+	public static final double VELOCITY_QUANTUM = 1e-6;
+
+	/**
+	 * The file being written.
+	 */
+	private final File file;
+
+	/**
+	 * The channel writing the file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The number of steps between frames.
+	 */
+	private final int interval;
+
+	/**
+	 * The most frames in a chunk.
+	 */
+	private final int framesPerChunk;
+
+	/**
+	 * Whether the chunks are deflated.
+	 */
+	private final boolean deflate;
+
+	/**
+	 * The size of a position quantum.
+	 */
+	private final double positionQuantum;
+
+	/**
+	 * The size of a velocity quantum.
+	 */
+	private final double velocityQuantum;
+
+	/**
+	 * The time step recorded in the header.
+	 */
+	private final double dt;
+
+	/**
+	 * The seed recorded in the header.
+	 */
+	private final long seed;
+
+	/**
+	 * Writes the chunks, one at a time and in order.
+	 */
+	private final ExecutorService writer = Executors.newSingleThreadExecutor((r) -> {
+		Thread thread = new Thread(r, "Trajectory writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Chunk buffers that can be filled.
+	 */
+	private final BlockingQueue<ChunkBuffer> free = new ArrayBlockingQueue<ChunkBuffer>(POOL_SIZE);
+
+	/**
+	 * The chunk being filled, or null before the first frame.
+	 */
+	private ChunkBuffer chunk = null;
+
+	/**
+	 * The number of bodies, fixed by the first frame.
+	 */
+	private int bodyCount = -1;
+
+	/**
+	 * The number of asteroids in the previous frame, or -1 to force a key frame.
+	 */
+	private int previousCount = -1;
+
+	/**
+	 * The quantized x positions in the previous frame.
+	 */
+	private long[] qx = new long[0];
+
+	/**
+	 * The quantized y positions in the previous frame.
+	 */
+	private long[] qy = new long[0];
+
+	/**
+	 * The quantized x velocities in the previous frame.
+	 */
+	private long[] qvx = new long[0];
+
+	/**
+	 * The quantized y velocities in the previous frame.
+	 */
+	private long[] qvy = new long[0];
+
+	/**
+	 * The predicted x values, reused each frame.
+	 */
+	private long[] predictedX = new long[0];
+
+	/**
+	 * The predicted y values, reused each frame.
+	 */
+	private long[] predictedY = new long[0];
+
+	/**
+	 * The x accelerations in the previous frame, reused each frame.
+	 */
+	private double[] ax = new double[0];
+
+	/**
+	 * The y accelerations in the previous frame, reused each frame.
+	 */
+	private double[] ay = new double[0];
+
+	/**
+	 * The gravitational parameters of the bodies.
+	 */
+	private double[] gm = new double[0];
+
+	/**
+	 * The x positions of the bodies in this frame.
+	 */
+	private double[] bodyX = new double[0];
+
+	/**
+	 * The y positions of the bodies in this frame.
+	 */
+	private double[] bodyY = new double[0];
+
+	/**
+	 * The x positions of the bodies in the previous frame, swapped with {@link #bodyX} each frame.
+	 */
+	private double[] previousBodyX = new double[0];
+
+	/**
+	 * The y positions of the bodies in the previous frame, swapped with {@link #bodyY} each frame.
+	 */
+	private double[] previousBodyY = new double[0];
+
+	/**
+	 * The time of the previous frame.
+	 */
+	private double previousTime = 0;
+
+	/**
+	 * Reused by the writer to deflate the chunks.
+	 */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * The deflated chunk, reused by the writer.
+	 */
+	private byte[] deflated = new byte[0];
+
+	/**
+	 * Where the next chunk goes in the file. Only touched by the writer.
+	 */
+	private long position = 0;
+
+	/**
+	 * The index entries of the chunks written so far. Only touched by the writer.
+	 */
+	private ChunkBuffer index = new ChunkBuffer(1024);
+
+	/**
+	 * The number of chunks written so far. Only touched by the writer.
+	 */
+	private int chunkCount = 0;
+
+	/**
+	 * The first error the writer ran into, after which it stops writing.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Constructor for a new TrajectoryRecorder, replacing the file if it exists.
+	 *
+	 * @param file the file to record to
+	 * @param interval the number of steps between frames
+	 * @param framesPerChunk the most frames in a chunk, which is how far a player may have to decode to reach
+	 * a frame
+	 * @param deflate whether to deflate the chunks
+	 * @param dt the time step the run advances by
+	 * @param seed the seed the run was drawn from
+	 * @throws IOException if the file can't be opened
+	 */
+	public TrajectoryRecorder(File file, int interval, int framesPerChunk, boolean deflate, double dt, long seed)
+			throws IOException {
+		this(file, interval, framesPerChunk, deflate, dt, seed, POSITION_QUANTUM, VELOCITY_QUANTUM);
+	}
+
+	/**
+	 * Constructor for a new TrajectoryRecorder, replacing the file if it exists.
+	 *
+	 * @param file the file to record to
+	 * @param interval the number of steps between frames
+	 * @param framesPerChunk the most frames in a chunk
+	 * @param deflate whether to deflate the chunks
+	 * @param dt the time step the run advances by
+	 * @param seed the seed the run was drawn from
+	 * @param positionQuantum the size of a position quantum, in pixels
+	 * @param velocityQuantum the size of a velocity quantum, in pixels per tick
+	 * @throws IOException if the file can't be opened
+	 */
+	public TrajectoryRecorder(File file, int interval, int framesPerChunk, boolean deflate, double dt, long seed,
+			double positionQuantum, double velocityQuantum) throws IOException {
+		if (interval < 1 || framesPerChunk < 1 || !(positionQuantum > 0) || !(velocityQuantum > 0)) {
+			throw new IllegalArgumentException("Bad recording settings");
+		}
+		this.interval = interval;
+		this.framesPerChunk = framesPerChunk;
+		this.deflate = deflate;
+		this.dt = dt;
+		this.seed = seed;
+		this.positionQuantum = positionQuantum;
+		this.velocityQuantum = velocityQuantum;
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		for (int i = 0; i < POOL_SIZE; i++) {
+			this.free.add(new ChunkBuffer(1 << 16));
+		}
+	}
+
+	/**
+	 * Records a frame if this step is due for one. Called after every step.
+	 *
+	 * @param system the system that was stepped
+	 * @return <code>true</code> if a frame was recorded, <code>false</code> otherwise
+	 */
+	public boolean afterStep(GravitySystem system) {
+		if (system.getSteps() % this.interval == 0) {
+			this.record(system);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records a frame of the system as it is now. Must be called on the thread that steps the system.
+	 *
+	 * @param system the system to record
+	 */
+	public void record(GravitySystem system) {
+		if (this.chunk == null) {
+			this.start(system.getBodies());
+			this.chunk = this.take();
+			this.previousCount = -1;
+		}
+
+		List<IBall> bodies = system.getBodies();
+		if (bodies.size() != this.bodyCount) {
+			throw new IllegalStateException("The number of bodies changed while recording");
+		}
+		AsteroidField asteroids = system.getAsteroids();
+		int count = asteroids.size();
+		boolean key = count != this.previousCount;
+		if (this.qx.length < count) {
+			int capacity = Math.max(count, 2 * this.qx.length);
+			this.qx = Arrays.copyOf(this.qx, capacity);
+			this.qy = Arrays.copyOf(this.qy, capacity);
+			this.qvx = Arrays.copyOf(this.qvx, capacity);
+			this.qvy = Arrays.copyOf(this.qvy, capacity);
+			this.predictedX = new long[capacity];
+			this.predictedY = new long[capacity];
+			this.ax = new double[capacity];
+			this.ay = new double[capacity];
+		}
+
+		ChunkBuffer chunk = this.chunk;
+		chunk.startFrame(system.getSteps(), system.getTime());
+		chunk.ensure(1 + 8 + 8 + 5 + 32 * this.bodyCount + (key ? count : 0) + 40 * count);
+		chunk.writeByte(key ? TrajectoryFormat.KEY_FRAME : TrajectoryFormat.DELTA_FRAME);
+		chunk.writeLong(system.getSteps());
+		chunk.writeDouble(system.getTime());
+		chunk.writeVarLong(count);
+		double[] swap = this.previousBodyX;
+		this.previousBodyX = this.bodyX;
+		this.bodyX = swap;
+		swap = this.previousBodyY;
+		this.previousBodyY = this.bodyY;
+		this.bodyY = swap;
+		for (int j = 0; j < this.bodyCount; j++) {
+			IBall body = bodies.get(j);
+			this.bodyX[j] = body.getX();
+			this.bodyY[j] = body.getY();
+			chunk.writeDouble(body.getX());
+			chunk.writeDouble(body.getY());
+			chunk.writeDouble(body.getVelocityX());
+			chunk.writeDouble(body.getVelocityY());
+		}
+		if (key) {
+			byte[] colorClass = asteroids.getColorClass();
+			for (int i = 0; i < count; i++) {
+				chunk.writeByte(colorClass[i]);
+			}
+			writeColumn(chunk, asteroids.getX(), this.qx, null, count, this.positionQuantum);
+			writeColumn(chunk, asteroids.getY(), this.qy, null, count, this.positionQuantum);
+			writeColumn(chunk, asteroids.getVx(), this.qvx, null, count, this.velocityQuantum);
+			writeColumn(chunk, asteroids.getVy(), this.qvy, null, count, this.velocityQuantum);
+		} else {
+			double elapsed = system.getTime() - this.previousTime;
+			TrajectoryFormat.predictPositions(this.qx, this.qy, this.qvx, this.qvy, count, this.previousBodyX,
+					this.previousBodyY, this.gm, elapsed, this.positionQuantum, this.velocityQuantum, this.ax,
+					this.ay, this.predictedX, this.predictedY);
+			writeColumn(chunk, asteroids.getX(), this.qx, this.predictedX, count, this.positionQuantum);
+			writeColumn(chunk, asteroids.getY(), this.qy, this.predictedY, count, this.positionQuantum);
+			TrajectoryFormat.predictVelocities(this.qx, this.qy, this.qvx, this.qvy, count, this.bodyX, this.bodyY,
+					this.gm, elapsed, this.positionQuantum, this.velocityQuantum, this.ax, this.ay, this.predictedX,
+					this.predictedY);
+			writeColumn(chunk, asteroids.getVx(), this.qvx, this.predictedX, count, this.velocityQuantum);
+			writeColumn(chunk, asteroids.getVy(), this.qvy, this.predictedY, count, this.velocityQuantum);
+		}
+		this.previousCount = count;
+		this.previousTime = system.getTime();
+
+		if (chunk.getFrames() >= this.framesPerChunk) {
+			this.submit(chunk);
+			this.chunk = this.take();
+			this.previousCount = -1;
+		}
+	}
+
+	/**
+	 * Quantizes a column and writes it, as it is or as the error in a prediction.
+	 *
+	 * @param chunk the chunk to write to
+	 * @param values the values
+	 * @param quantized filled in with the quantized values
+	 * @param predicted the predicted quantized values, or null for a key frame
+	 * @param count the number of values
+	 * @param quantum the size of a quantum
+	 */
+	private static void writeColumn(ChunkBuffer chunk, double[] values, long[] quantized, long[] predicted, int count,
+			double quantum) {
+		double scale = 1 / quantum;
+		for (int i = 0; i < count; i++) {
+			long q = Math.round(values[i] * scale);
+			chunk.writeVarLong(TrajectoryFormat.zigzag(predicted == null ? q : q - predicted[i]));
+			quantized[i] = q;
+		}
+	}
+
+	/**
+	 * Writes the header, which needs the bodies from the first frame.
+	 *
+	 * @param bodies the bodies being recorded
+	 */
+	private void start(List<IBall> bodies) {
+		this.bodyCount = bodies.size();
+		this.gm = new double[this.bodyCount];
+		this.bodyX = new double[this.bodyCount];
+		this.bodyY = new double[this.bodyCount];
+		this.previousBodyX = new double[this.bodyCount];
+		this.previousBodyY = new double[this.bodyCount];
+		ChunkBuffer header = new ChunkBuffer(64);
+		header.writeInt(TrajectoryFormat.MAGIC);
+		header.writeShort(TrajectoryFormat.VERSION);
+		header.writeByte(this.deflate ? TrajectoryFormat.FLAG_DEFLATE : 0);
+		header.writeByte(this.bodyCount);
+		for (IBall body : bodies) {
+			header.writeByte(Checkpoint.typeOf(body));
+		}
+		header.writeInt(this.interval);
+		header.writeDouble(this.dt);
+		header.writeLong(this.seed);
+		header.writeDouble(this.positionQuantum);
+		header.writeDouble(this.velocityQuantum);
+		for (int j = 0; j < this.bodyCount; j++) {
+			this.gm[j] = Constants.calculateGM(bodies.get(j).getMass());
+			header.writeDouble(this.gm[j]);
+		}
+		this.writer.execute(() -> this.write(header.getData(), header.getLength()));
+	}
+
+	/**
+	 * @return an empty chunk buffer, waiting for the writer if they are all in use
+	 */
+	private ChunkBuffer take() {
+		try {
+			ChunkBuffer chunk = this.free.take();
+			chunk.clear();
+			return chunk;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while recording", e);
+		}
+	}
+
+	/**
+	 * Hands a full chunk to the writer.
+	 *
+	 * @param chunk the chunk
+	 */
+	private void submit(ChunkBuffer chunk) {
+		this.writer.execute(() -> {
+			try {
+				this.writeChunk(chunk);
+			} finally {
+				this.free.add(chunk);
+			}
+		});
+	}
+
+	/**
+	 * Deflates a chunk if needed, writes it and adds it to the index. Runs on the writer.
+	 *
+	 * @param chunk the chunk
+	 */
+	private void writeChunk(ChunkBuffer chunk) {
+		OutputWriteEvent event = new OutputWriteEvent();
+		event.begin();
+		byte[] data = chunk.getData();
+		int length = chunk.getLength();
+		if (this.deflate) {
+			this.deflater.reset();
+			this.deflater.setInput(data, 0, length);
+			this.deflater.finish();
+			if (this.deflated.length < length + 64) {
+				this.deflated = new byte[length + length / 8 + 64];
+			}
+			int stored = 0;
+			while (!this.deflater.finished()) {
+				if (stored == this.deflated.length) {
+					this.deflated = Arrays.copyOf(this.deflated, 2 * stored);
+				}
+				stored += this.deflater.deflate(this.deflated, stored, this.deflated.length - stored);
+			}
+			data = this.deflated;
+			length = stored;
+		}
+
+		this.index.writeLong(this.position);
+		this.index.writeLong(chunk.getFirstStep());
+		this.index.writeDouble(chunk.getFirstTime());
+		this.index.writeInt(chunk.getFrames());
+		this.chunkCount++;
+
+		ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.CHUNK_HEADER_SIZE);
+		header.putInt(length).putInt(chunk.getLength()).flip();
+		this.write(header.array(), header.limit());
+		this.write(data, length);
+		event.end();
+		if (event.shouldCommit()) {
+			event.kind = "trajectory";
+			event.path = this.file.getPath();
+			event.bytes = TrajectoryFormat.CHUNK_HEADER_SIZE + length;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Writes bytes at the end of the file. Runs on the writer.
+	 *
+	 * @param data the bytes
+	 * @param length the number of bytes
+	 */
+	private void write(byte[] data, int length) {
+		if (this.failure != null) {
+			return;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+			while (buffer.hasRemaining()) {
+				this.position += this.channel.write(buffer, this.position);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.failure = e;
+		}
+	}
+
+	/**
+	 * Writes the last chunk and the index, waits for everything to be written and closes the file. Must be
+	 * called on the thread that steps the system, or once it has stopped. If no frame was ever recorded the
+	 * file still gets a header, with no bodies, so it opens as an empty recording.
+	 *
+	 * @throws IOException if anything couldn't be written
+	 */
+	public void close() throws IOException {
+		if (this.bodyCount < 0) {
+			this.start(Collections.<IBall>emptyList());
+		}
+		if (this.chunk != null && this.chunk.getFrames() > 0) {
+			this.submit(this.chunk);
+		}
+		this.chunk = null;
+		this.writer.execute(() -> {
+			this.index.writeInt(this.chunkCount);
+			this.index.writeLong(this.position);
+			this.index.writeInt(TrajectoryFormat.END_MAGIC);
+			this.write(this.index.getData(), this.index.getLength());
+			this.deflater.end();
+		});
+		this.writer.shutdown();
+		try {
+			this.writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.channel.close();
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+}
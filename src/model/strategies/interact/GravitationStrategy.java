@@ -1,7 +1,5 @@
 package model.strategies.interact;
 
-import java.awt.geom.Point2D;
-
 import model.Constants;
 import model.balls.IBall;
 import model.visitors.cmds.IBallCmd;
@@ -15,9 +13,10 @@ import provided.utils.dispatcher.IDispatcher;
 public class GravitationStrategy implements IInteractStrategy<IBallCmd> {
 
 	/**
-	 * The gravitational constant G.
+	 * The pull handed back by {@link #interact}, reused so interacting doesn't allocate.
+	 * The ball applies it immediately, before its next interaction.
 	 */
-	private double gravitationalConstant = Constants.gravitationalConstant / 1e17;
+	private final PullCmd pull = new PullCmd();
 
 	@Override
 	public void init(IBall context) {
@@ -26,62 +25,52 @@ public class GravitationStrategy implements IInteractStrategy<IBallCmd> {
 
 	@Override
 	public IBallCmd interact(IBall context, IBall target, IDispatcher<IBallCmd> dispatcher) {
-		// Model the ball's "mass" as desired, e.g. proportional to ball's area
-		double contextMass = context.getMass();
-		double dist = context.getLocation().distance(target.getLocation());
+		double dx = target.getX() - context.getX();
+		double dy = target.getY() - context.getY();
+		double dist = Math.sqrt(dx * dx + dy * dy);
+		double acceleration = calcAcceleration(Constants.calculateGM(context.getMass()), dist);
 
-		return new IBallCmd() {
-			@Override
-			public void apply(IBall contextBall, IDispatcher<IBallCmd> disp) {
-	
-				// Get the direction of the force
-	
-				Point2D.Double unitVector = calcUnitVec(target.getLocation(), context.getLocation(), dist);
-	
-				// Get the target's change in velocity.
-	
-				Point2D.Double dV = calcdV(contextMass, unitVector, dist);
-				Point2D.Double newVelocity = target.getVelocity();
-				newVelocity.x += dV.x;
-				newVelocity.y += dV.y;
-	
-				// Apply the acceleration.
-	
-				target.setVelocity(newVelocity);
-			}
-		};
+		// The change in velocity points from the target towards the context.
+		this.pull.target = target;
+		this.pull.dvx = (context.getX() - target.getX()) / dist * acceleration;
+		this.pull.dvy = (context.getY() - target.getY()) / dist * acceleration;
+		return this.pull;
 	}
 
 	/**
-	 * Calculate the unit vector (normalized vector) from the location of the source ball to the location of the target ball.
-	 * 
-	 * @param lSource Location of the source ball
-	 * @param lTarget Location of the target ball
-	 * @param distance Distance from the source ball to the target ball
-	 * @return A double-precision vector (point)
+	 * Calculates the magnitude of the acceleration due to gravity.
+	 *
+	 * @param gm the gravitational parameter (G times mass) of the gravitational source
+	 * @param distance the distance to the source
+	 * @return the acceleration towards the source
 	 */
-	private Point2D.Double calcUnitVec(Point2D.Double lSource, Point2D.Double lTarget, double distance) {
-		// Calculate the normalized vector, from source to target
-		double nx = (lTarget.x - lSource.x) / distance;
-		double ny = (lTarget.y - lSource.y) / distance;
-
-		return new Point2D.Double(nx, ny);
+	public static double calcAcceleration(double gm, double distance) {
+		return gm / (distance * distance);
 	}
 
 	/**
-	 * Calculates the change in velocity as a result of the acceleration due to gravity.
-	 *
-	 * @param mass the mass of the gravitational source
-	 * @param unitVector the direction towards the source
-	 * @param distance the distance to the source
-	 * @return a Point2D.Double vector representing the change in velocity
+	 * A command that applies a precomputed change in velocity to its target.
 	 */
-	private Point2D.Double calcdV(double mass, Point2D.Double unitVector, double distance) {
-		double acceleration = (this.gravitationalConstant * mass) / Math.pow(distance, 2);
-		Point2D.Double dV = new Point2D.Double(unitVector.x, unitVector.y);
-		dV.x *= acceleration;
-		dV.y *= acceleration;
-		return dV;
+	private static class PullCmd implements IBallCmd {
+		/**
+		 * The ball being pulled.
+		 */
+		private IBall target;
+
+		/**
+		 * The change in x velocity.
+		 */
+		private double dvx;
+
+		/**
+		 * The change in y velocity.
+		 */
+		private double dvy;
+
+		@Override
+		public void apply(IBall contextBall, IDispatcher<IBallCmd> disp) {
+			this.target.accelerate(this.dvx, this.dvy);
+		}
 	}
 
 }
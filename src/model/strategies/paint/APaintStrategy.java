@@ -33,10 +33,19 @@ public abstract class APaintStrategy implements IPaintStrategy {
 
 	@Override
 	public void paint(Graphics g, IBall context) {
+		this.paintAt(g, context, context.getX(), context.getY(), context.getVelocityX(), context.getVelocityY());
+	}
+
+	/**
+	 * Synchronized because the view and the frame exporter can paint the same ball at the same time, and
+	 * they share the affine transform.
+	 */
+	@Override
+	public synchronized void paintAt(Graphics g, IBall context, double x, double y, double vx, double vy) {
 		double scale = context.getRadius();
-		this.at.setToTranslation(context.getLocation().x, context.getLocation().y);
+		this.at.setToTranslation(x, y);
 		this.at.scale(scale, scale);
-		this.at.rotate(context.getVelocity().x, context.getVelocity().y);
+		this.at.rotate(vx, vy);
 		this.paintCfg(g, context);
 		this.paintTransform(g, context, this.at);
 	}
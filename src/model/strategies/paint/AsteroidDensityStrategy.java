@@ -0,0 +1,38 @@
+package model.strategies.paint;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import model.engine.Snapshot;
+
+/**
+ * Paints the density heat map the simulation made for the snapshot, which keeps the gaps visible when there
+ * are far too many asteroids to tell apart as dots. Until a snapshot with a heat map arrives, the asteroids
+ * are painted as pixels instead.
+ */
+public class AsteroidDensityStrategy implements IAsteroidPaintStrategy {
+	/**
+	 * Paints snapshots that don't have a heat map yet.
+	 */
+	private final IAsteroidPaintStrategy fallback = new AsteroidRasterStrategy();
+
+	@Override
+	public void paint(Graphics g, Snapshot snapshot) {
+		BufferedImage density = snapshot.getDensity();
+		if (density == null) {
+			this.fallback.paint(g, snapshot);
+		} else {
+			g.drawImage(density, 0, 0, null);
+		}
+	}
+
+	@Override
+	public boolean usesDensity() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "Density";
+	}
+}
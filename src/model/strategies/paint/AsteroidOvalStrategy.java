@@ -0,0 +1,37 @@
+package model.strategies.paint;
+
+import java.awt.Graphics;
+
+import model.Constants;
+import model.balls.AsteroidField;
+import model.engine.Snapshot;
+
+/**
+ * Paints each asteroid as a filled circle with Java2D, the way BallStrategy paints an AsteroidBall.
+ */
+public class AsteroidOvalStrategy implements IAsteroidPaintStrategy {
+	/**
+	 * The radius every asteroid is painted with.
+	 */
+	private static final int RADIUS = (int) Constants.calculateRadius(20);
+
+	@Override
+	public void paint(Graphics g, Snapshot snapshot) {
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		byte[] colorClass = snapshot.getColorClass();
+		int lastClass = -1;
+		for (int i = 0; i < snapshot.getAsteroidCount(); i++) {
+			if (colorClass[i] != lastClass) {
+				lastClass = colorClass[i];
+				g.setColor(AsteroidField.COLORS[lastClass]);
+			}
+			g.fillOval((int) (x[i] - RADIUS), (int) (y[i] - RADIUS), 2 * RADIUS, 2 * RADIUS);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Dots";
+	}
+}
@@ -0,0 +1,136 @@
+package model.strategies.paint;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import model.Constants;
+import model.balls.AsteroidField;
+import model.engine.Snapshot;
+
+/**
+ * Paints the asteroids by writing their pixels straight into the int buffer of an offscreen image and then
+ * drawing that image once, instead of making a Java2D call per asteroid. The image covers the area being
+ * painted and replaces the background there, so anything painted over the asteroids has to come after.
+ */
+public class AsteroidRasterStrategy implements IAsteroidPaintStrategy {
+	/**
+	 * The packed RGB of each color class.
+	 */
+	private static final int[] RGB = new int[AsteroidField.COLORS.length];
+
+	static {
+		for (int colorClass = 0; colorClass < RGB.length; colorClass++) {
+			RGB[colorClass] = AsteroidField.COLORS[colorClass].getRGB() & 0xFFFFFF;
+		}
+	}
+
+	/**
+	 * The packed RGB of the background.
+	 */
+	private final int background;
+
+	/**
+	 * The width and height of the square each asteroid is splatted as, in pixels.
+	 */
+	private int splat;
+
+	/**
+	 * The offscreen image, kept between frames while the painted area stays the same size.
+	 */
+	private BufferedImage image;
+
+	/**
+	 * The pixels of {@link #image}.
+	 */
+	private int[] pixels;
+
+	/**
+	 * Constructor for a new AsteroidRasterStrategy with a black background and 2 by 2 splats, about the size
+	 * of the circles BallStrategy paints.
+	 */
+	public AsteroidRasterStrategy() {
+		this(Color.BLACK, 2);
+	}
+
+	/**
+	 * Constructor for a new AsteroidRasterStrategy.
+	 *
+	 * @param background the background color
+	 * @param splat the width and height of each asteroid, from 1 to 3 pixels
+	 */
+	public AsteroidRasterStrategy(Color background, int splat) {
+		this.background = background.getRGB() & 0xFFFFFF;
+		this.setSplat(splat);
+	}
+
+	@Override
+	public void paint(Graphics g, Snapshot snapshot) {
+		Rectangle area = g.getClipBounds();
+		if (area == null) {
+			// Unclipped, so assume the whole canvas.
+			area = new Rectangle(0, 0, Constants.canvasWidth, Constants.canvasHeight);
+		}
+		if (area.width <= 0 || area.height <= 0) {
+			return;
+		}
+		if (this.image == null || this.image.getWidth() != area.width || this.image.getHeight() != area.height) {
+			this.image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+			this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+		}
+
+		int width = area.width;
+		int height = area.height;
+		int[] pixels = this.pixels;
+		Arrays.fill(pixels, this.background);
+
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		byte[] colorClass = snapshot.getColorClass();
+		int splat = this.splat;
+		// Splats start at the same corner fillOval would, half a splat up and to the left.
+		double left = area.x + splat / 2;
+		double top = area.y + splat / 2;
+		for (int i = 0; i < snapshot.getAsteroidCount(); i++) {
+			int px = (int) Math.floor(x[i] - left);
+			int py = (int) Math.floor(y[i] - top);
+			if (px <= -splat || py <= -splat || px >= width || py >= height) {
+				continue;
+			}
+			int rgb = RGB[colorClass[i]];
+			int fromX = Math.max(px, 0);
+			int toX = Math.min(px + splat, width);
+			int toY = Math.min(py + splat, height);
+			for (int row = Math.max(py, 0); row < toY; row++) {
+				int offset = row * width;
+				for (int column = fromX; column < toX; column++) {
+					pixels[offset + column] = rgb;
+				}
+			}
+		}
+
+		g.drawImage(this.image, area.x, area.y, null);
+	}
+
+	/**
+	 * @param splat the width and height of each asteroid, from 1 to 3 pixels
+	 */
+	public void setSplat(int splat) {
+		this.splat = Math.min(Math.max(splat, 1), 3);
+	}
+
+	/**
+	 * @return the width and height of each asteroid, in pixels
+	 */
+	public int getSplat() {
+		return this.splat;
+	}
+
+	@Override
+	public String toString() {
+		return "Pixels";
+	}
+}
@@ -0,0 +1,47 @@
+package model.strategies.paint;
+
+import java.awt.Graphics;
+
+import model.engine.Snapshot;
+
+/**
+ * A strategy for painting the whole asteroid population of a snapshot at once.
+ */
+public interface IAsteroidPaintStrategy {
+	/**
+	 * Paints the asteroids in the snapshot.
+	 *
+	 * @param g the Graphics object to paint on
+	 * @param snapshot the snapshot to paint
+	 */
+	public void paint(Graphics g, Snapshot snapshot);
+
+	/**
+	 * Says whether this strategy paints the density heat map, so the simulation has to make one for each
+	 * snapshot.
+	 *
+	 * @return <code>true</code> if the snapshots need a heat map, <code>false</code> otherwise
+	 */
+	public default boolean usesDensity() {
+		return false;
+	}
+
+	/**
+	 * Makes the strategy with the given name.
+	 *
+	 * @param name one of pixels, dots or density
+	 * @return a new strategy
+	 */
+	public static IAsteroidPaintStrategy MakeByName(String name) {
+		switch (name.toLowerCase()) {
+		case "pixels":
+			return new AsteroidRasterStrategy();
+		case "dots":
+			return new AsteroidOvalStrategy();
+		case "density":
+			return new AsteroidDensityStrategy();
+		default:
+			throw new IllegalArgumentException("Unknown asteroid view: " + name);
+		}
+	}
+}
@@ -26,4 +26,19 @@ public interface IPaintStrategy {
 	 */
 	public void paint(Graphics g, IBall context);
 
+	/**
+	 * Paints according to the strategy as if the ball were at the given position and velocity, e.g. from a
+	 * snapshot of the ball taken on another thread. By default this just paints the ball where it is.
+	 *
+	 * @param g a Graphics object
+	 * @param context a ABall object
+	 * @param x the x position to paint at
+	 * @param y the y position to paint at
+	 * @param vx the x velocity to paint with
+	 * @param vy the y velocity to paint with
+	 */
+	public default void paintAt(Graphics g, IBall context, double x, double y, double vx, double vy) {
+		this.paint(g, context);
+	}
+
 }
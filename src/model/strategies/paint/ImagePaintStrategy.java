@@ -1,15 +1,25 @@
 package model.strategies.paint;
 
+import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Toolkit;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
 
 import model.balls.IBall;
 import provided.utils.displayModel.IATImage;
 
 /**
- * Paint strategy that paints an image from a file, scaled to the host ABall's radius.
+ * Paint strategy that paints an image from a file, scaled to the host ABall's radius. With no view to get the
+ * image from, e.g. when exporting frames headless, it draws the file's image itself, or a plain circle if the
+ * file can't be read.
  * 
  * @author Phoebe Scaccia
  *
@@ -31,6 +41,16 @@ public class ImagePaintStrategy extends APaintStrategy {
 	 */
 	private double scaleFactor = 1.0;
 
+	/**
+	 * The unit circle drawn when there is no image at all.
+	 */
+	private static final Ellipse2D UNIT_CIRCLE = new Ellipse2D.Double(-1, -1, 2, 2);
+
+	/**
+	 * Where the image is read from.
+	 */
+	private URL resource;
+
 	/**
 	 * The loaded in image.
 	 */
@@ -41,6 +61,11 @@ public class ImagePaintStrategy extends APaintStrategy {
 	 */
 	private IATImage image;
 
+	/**
+	 * The image read straight from the file, drawn when there is no view, or null if it couldn't be read.
+	 */
+	private BufferedImage offscreenImage;
+
 	/**
 	 * Constructor for a new ImagePaintStrategy.
 	 * 
@@ -50,25 +75,68 @@ public class ImagePaintStrategy extends APaintStrategy {
 	public ImagePaintStrategy(String fileName, double fillFactor) {
 		super(new AffineTransform());
 		this.fillFactor = fillFactor;
-		this.loadedImage = Toolkit.getDefaultToolkit().getImage(this.getClass().getResource(fileName));
+		this.resource = this.getClass().getResource(fileName);
+		this.loadedImage = Toolkit.getDefaultToolkit().getImage(this.resource);
 	}
 
+	@Override
 	public void init(IBall context) {
 		this.image = context.getIatImage(this.loadedImage);
+		double width;
+		double height;
+		if (this.image != null) {
+			width = this.image.getWidth();
+			height = this.image.getHeight();
+		} else {
+			// There is no view to draw on, e.g. when running headless, so draw the file's image directly.
+			if (this.offscreenImage == null) {
+				this.offscreenImage = readImage(this.resource);
+			}
+			if (this.offscreenImage == null) {
+				return;
+			}
+			width = this.offscreenImage.getWidth();
+			height = this.offscreenImage.getHeight();
+		}
 
-		this.scaleFactor = 2.0 / (fillFactor * (this.image.getWidth() + this.image.getHeight()) / 2.0);
+		this.scaleFactor = 2.0 / (fillFactor * (width + height) / 2.0);
 
 		this.unitAT.setToScale(scaleFactor, scaleFactor);
-		this.unitAT.translate(-1 * this.image.getWidth() / 2.0, -1 * this.image.getHeight() / 2.0);
+		this.unitAT.translate(-1 * width / 2.0, -1 * height / 2.0);
+	}
+
+	/**
+	 * Reads an image without going through a view.
+	 *
+	 * @param resource where to read it from
+	 * @return the image, or null if it couldn't be read
+	 */
+	private static BufferedImage readImage(URL resource) {
+		if (resource == null) {
+			return null;
+		}
+		try {
+			return ImageIO.read(resource);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
 	}
 
 	@Override
 	public void paintTransform(Graphics g, IBall context, AffineTransform at) {
-		AffineTransform tempAT = new AffineTransform();
-		tempAT.setToScale(scaleFactor, scaleFactor);
-		tempAT.translate(-image.getWidth() / 2.0, -image.getHeight() / 2.0);
+		if (this.image == null && this.offscreenImage == null) {
+			g.setColor(Color.LIGHT_GRAY);
+			((Graphics2D) g).fill(at.createTransformedShape(UNIT_CIRCLE));
+			return;
+		}
+		AffineTransform tempAT = new AffineTransform(this.unitAT);
 		tempAT.preConcatenate(at);
-		this.image.draw(g, tempAT);
+		if (this.image != null) {
+			this.image.draw(g, tempAT);
+		} else {
+			((Graphics2D) g).drawImage(this.offscreenImage, tempAT, null);
+		}
 	}
 
 }
@@ -0,0 +1,55 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * An interface for the strategies that advance the whole system by a time step.
+ */
+public interface IIntegratorStrategy {
+
+	/**
+	 * Advances the system by one step.
+	 *
+	 * @param system the massive bodies and asteroids to advance
+	 * @param dt the time step, in ticks
+	 */
+	public void step(IGravitySystem system, double dt);
+
+	/**
+	 * Checks that the integrator can advance by the given time step, so the clock stays in step with it.
+	 *
+	 * @param dt the time step, in ticks
+	 * @throws IllegalArgumentException if the integrator can't take that step
+	 */
+	public default void checkDt(double dt) {
+		if (!(dt > 0) || Double.isInfinite(dt)) {
+			throw new IllegalArgumentException("Bad time step for " + this + ": " + dt);
+		}
+	}
+
+	/**
+	 * Makes the integrator with the given name.
+	 *
+	 * @param name one of tick, leapfrog, verlet, yoshida or wh, or the toString of an integrator
+	 * @return a new integrator
+	 */
+	public static IIntegratorStrategy MakeByName(String name) {
+		switch (name.toLowerCase()) {
+		case "tick":
+			return new TickStrategy();
+		case "leapfrog":
+			return new LeapfrogStrategy();
+		case "verlet":
+		case "velocity verlet":
+			return new VelocityVerletStrategy();
+		case "yoshida":
+			return new YoshidaStrategy();
+		case "wh":
+		case "wisdom-holman":
+			return new WisdomHolmanStrategy();
+		default:
+			throw new IllegalArgumentException("Unknown integrator: " + name);
+		}
+	}
+
+}
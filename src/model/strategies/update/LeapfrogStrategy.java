@@ -0,0 +1,28 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * A second order symplectic kick-drift-kick leapfrog.
+ * The accelerations at the end of a step are reused at the start of the next, so each step costs one
+ * force evaluation.
+ */
+public class LeapfrogStrategy implements IIntegratorStrategy {
+
+	@Override
+	public void step(IGravitySystem system, double dt) {
+		if (!system.hasAccelerations()) {
+			system.computeAccelerations();
+		}
+		system.kick(dt / 2);
+		system.drift(dt);
+		system.computeAccelerations();
+		system.kick(dt / 2);
+	}
+
+	@Override
+	public String toString() {
+		return "Leapfrog";
+	}
+
+}
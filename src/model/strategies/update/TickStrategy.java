@@ -0,0 +1,34 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * The original fixed tick: each ball moves by its velocity and is then pulled on.
+ * This is first order and always advances by one tick, so it only accepts a time step of one.
+ */
+public class TickStrategy implements IIntegratorStrategy {
+
+	/**
+	 * Advances the system by one tick.
+	 */
+	@Override
+	public void step(IGravitySystem system, double dt) {
+		system.tick();
+	}
+
+	/**
+	 * Only allows a time step of one tick, since that is what every step advances by.
+	 */
+	@Override
+	public void checkDt(double dt) {
+		if (dt != 1) {
+			throw new IllegalArgumentException("The tick integrator always steps by one tick, not " + dt);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Tick";
+	}
+
+}
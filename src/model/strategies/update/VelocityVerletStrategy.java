@@ -0,0 +1,27 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * A second order symplectic velocity Verlet integrator: the positions are advanced with the old
+ * accelerations, then the velocities with the average of the old and new accelerations.
+ */
+public class VelocityVerletStrategy implements IIntegratorStrategy {
+
+	@Override
+	public void step(IGravitySystem system, double dt) {
+		if (!system.hasAccelerations()) {
+			system.computeAccelerations();
+		}
+		system.drift(dt, dt * dt / 2);
+		system.kick(dt / 2);
+		system.computeAccelerations();
+		system.kick(dt / 2);
+	}
+
+	@Override
+	public String toString() {
+		return "Velocity Verlet";
+	}
+
+}
@@ -0,0 +1,28 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * A Wisdom-Holman mixed-variable symplectic integrator. Everything moves along its exact Kepler orbit around
+ * the sun, and the pulls of the other massive bodies are applied as half-step kicks on either side. The Kepler
+ * part carries no truncation error, so the step can be a sizeable fraction of an orbital period.
+ */
+public class WisdomHolmanStrategy implements IIntegratorStrategy {
+
+	@Override
+	public void step(IGravitySystem system, double dt) {
+		if (!system.hasPerturbations()) {
+			system.computePerturbations();
+		}
+		system.kick(dt / 2);
+		system.keplerDrift(dt);
+		system.computePerturbations();
+		system.kick(dt / 2);
+	}
+
+	@Override
+	public String toString() {
+		return "Wisdom-Holman";
+	}
+
+}
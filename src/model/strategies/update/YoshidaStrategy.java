@@ -0,0 +1,46 @@
+package model.strategies.update;
+
+import model.engine.IGravitySystem;
+
+/**
+ * Yoshida's fourth order symplectic integrator, made of three leapfrog stages with weights chosen to cancel
+ * the third order error. Each step costs three force evaluations.
+ */
+public class YoshidaStrategy implements IIntegratorStrategy {
+
+	/**
+	 * The weight of the outer stages.
+	 */
+	private static final double W1 = 1 / (2 - Math.cbrt(2));
+
+	/**
+	 * The weight of the middle stage, which steps backwards.
+	 */
+	private static final double W0 = -Math.cbrt(2) * W1;
+
+	/**
+	 * The drift coefficients.
+	 */
+	private static final double[] DRIFTS = { W1 / 2, (W0 + W1) / 2, (W0 + W1) / 2, W1 / 2 };
+
+	/**
+	 * The kick coefficients.
+	 */
+	private static final double[] KICKS = { W1, W0, W1 };
+
+	@Override
+	public void step(IGravitySystem system, double dt) {
+		for (int stage = 0; stage < KICKS.length; stage++) {
+			system.drift(DRIFTS[stage] * dt);
+			system.computeAccelerations();
+			system.kick(KICKS[stage] * dt);
+		}
+		system.drift(DRIFTS[KICKS.length] * dt);
+	}
+
+	@Override
+	public String toString() {
+		return "Yoshida";
+	}
+
+}
@@ -18,7 +18,17 @@ public class ConfigAsteroidBallAlgo extends AConfigBallAlgo {
 	private static final long serialVersionUID = -6218703835883810795L;
 
 	/**
-	 * Constructor for a new ConfigSunBallAlgo.
+	 * The one configuration every asteroid shares, since configuring one doesn't depend on anything but its type.
+	 */
+	public static final ConfigAsteroidBallAlgo Singleton = new ConfigAsteroidBallAlgo();
+
+	/**
+	 * The paint strategy every asteroid shares, since it keeps no state of its own.
+	 */
+	private static final BallStrategy PAINT_STRATEGY = new BallStrategy();
+
+	/**
+	 * Constructor for a new ConfigAsteroidBallAlgo.
 	 */
 	public ConfigAsteroidBallAlgo() {
 		setDefaultCmd(new ABallAlgoCmd<Void, Void>() {
@@ -30,7 +40,7 @@ public class ConfigAsteroidBallAlgo extends AConfigBallAlgo {
 
 			@Override
 			public Void apply(IBallHostID index, IBall host, Void... params) {
-				installPaintStrategy(host, new BallStrategy());
+				installPaintStrategy(host, PAINT_STRATEGY);
 				return null;
 			}
 		});		
@@ -8,4 +8,6 @@
  */
 module f22_hw06_comp310_f22_hw06_03 {
 	requires java.desktop;
+	requires jdk.management;
+	requires jdk.jfr;
 }
\ No newline at end of file
@@ -7,8 +7,12 @@ import java.awt.Graphics;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.border.EmptyBorder;
 
 import java.awt.GridBagLayout;
@@ -60,6 +64,42 @@ public class BallGUI extends JFrame {
 	 * Makes a ABall with the strategy of boxType1.
 	 */
 	private final JButton btnStart = new JButton("Start");
+	/**
+	 * Pauses and resumes the simulation.
+	 */
+	private final JButton btnPause = new JButton("Pause");
+	/**
+	 * Takes a single step while paused.
+	 */
+	private final JButton btnStep = new JButton("Step");
+	/**
+	 * The label for the steps per second spinner.
+	 */
+	private final JLabel lblStepsPerSecond = new JLabel("Steps/s (0 = max)");
+	/**
+	 * The target number of steps per second.
+	 */
+	private final JSpinner spnStepsPerSecond = new JSpinner(new SpinnerNumberModel(0, 0, 1000000, 10));
+	/**
+	 * The label for the steps per paint spinner.
+	 */
+	private final JLabel lblStepsPerPaint = new JLabel("Steps/paint");
+	/**
+	 * The number of steps between repaints.
+	 */
+	private final JSpinner spnStepsPerPaint = new JSpinner(new SpinnerNumberModel(1, 1, 1000000, 1));
+	/**
+	 * Shows the achieved throughput.
+	 */
+	private final JLabel lblStatus = new JLabel(" ");
+	/**
+	 * The label for the asteroid view.
+	 */
+	private final JLabel lblView = new JLabel("Asteroids");
+	/**
+	 * Chooses how the asteroids are shown.
+	 */
+	private final JComboBox<String> cbxView = new JComboBox<String>(new String[] { "Pixels", "Dots", "Density" });
 	/**
 	 * The view to model control adapter.
 	 */
@@ -130,9 +170,73 @@ public class BallGUI extends JFrame {
 				GridBagConstraints gbc_btnClear = new GridBagConstraints();
 				gbc_btnClear.fill = GridBagConstraints.BOTH;
 				gbc_btnClear.anchor = GridBagConstraints.NORTHWEST;
+				gbc_btnClear.insets = new Insets(0, 0, 5, 0);
 				gbc_btnClear.gridx = 0;
 				gbc_btnClear.gridy = 1;
 				controlPnl.add(btnClear, gbc_btnClear);
+
+		btnPause.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (modelCtrlAdpt.isPaused()) {
+					modelCtrlAdpt.resume();
+				} else {
+					modelCtrlAdpt.pause();
+				}
+				setPaused(modelCtrlAdpt.isPaused());
+			}
+		});
+		btnPause.setToolTipText("Pauses or resumes the simulation.");
+		controlPnl.add(btnPause, makeConstraints(2));
+
+		btnStep.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				modelCtrlAdpt.step();
+			}
+		});
+		btnStep.setToolTipText("Takes a single step while paused.");
+		controlPnl.add(btnStep, makeConstraints(3));
+
+		lblStepsPerSecond.setForeground(Color.WHITE);
+		controlPnl.add(lblStepsPerSecond, makeConstraints(4));
+		spnStepsPerSecond.addChangeListener((e) -> modelCtrlAdpt
+				.setStepsPerSecond(((Number) spnStepsPerSecond.getValue()).doubleValue()));
+		spnStepsPerSecond.setToolTipText("The target number of steps per second, or 0 to run as fast as possible.");
+		controlPnl.add(spnStepsPerSecond, makeConstraints(5));
+
+		lblStepsPerPaint.setForeground(Color.WHITE);
+		controlPnl.add(lblStepsPerPaint, makeConstraints(6));
+		spnStepsPerPaint.addChangeListener(
+				(e) -> modelCtrlAdpt.setStepsPerPaint(((Number) spnStepsPerPaint.getValue()).intValue()));
+		spnStepsPerPaint.setToolTipText("The number of steps the simulation takes between repaints.");
+		controlPnl.add(spnStepsPerPaint, makeConstraints(7));
+
+		lblView.setForeground(Color.WHITE);
+		controlPnl.add(lblView, makeConstraints(8));
+		cbxView.addActionListener((e) -> modelCtrlAdpt.setAsteroidView((String) cbxView.getSelectedItem()));
+		cbxView.setToolTipText("Shows each asteroid as pixels or dots, or their density as a heat map.");
+		controlPnl.add(cbxView, makeConstraints(9));
+
+		lblStatus.setForeground(Color.WHITE);
+		lblStatus.setToolTipText("The throughput the simulation is achieving.");
+		controlPnl.add(lblStatus, makeConstraints(10));
+	}
+
+	/**
+	 * Makes the layout constraints for a control in the given row.
+	 *
+	 * @param row the row of the control panel
+	 * @return the constraints
+	 */
+	private GridBagConstraints makeConstraints(int row) {
+		GridBagConstraints gbc = new GridBagConstraints();
+		gbc.fill = GridBagConstraints.BOTH;
+		gbc.anchor = GridBagConstraints.NORTHWEST;
+		gbc.insets = new Insets(0, 0, 5, 0);
+		gbc.gridx = 0;
+		gbc.gridy = row;
+		return gbc;
 	}
 
 	/**
@@ -142,6 +246,24 @@ public class BallGUI extends JFrame {
 		return this.canvasPnl;
 	}
 
+	/**
+	 * Shows the given status under the controls.
+	 *
+	 * @param status the status to show
+	 */
+	public void setStatus(String status) {
+		lblStatus.setText(status);
+	}
+
+	/**
+	 * Labels the pause button to match whether the simulation is paused.
+	 *
+	 * @param paused whether the simulation is paused
+	 */
+	public void setPaused(boolean paused) {
+		btnPause.setText(paused ? "Resume" : "Pause");
+	}
+
 	/**
 	 * Repaints the center panel.
 	 */
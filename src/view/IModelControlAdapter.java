@@ -15,6 +15,49 @@ public interface IModelControlAdapter {
 	 */
 	public void makeBalls();
 
+	/**
+	 * Tells the model to pause the simulation.
+	 */
+	public void pause();
+
+	/**
+	 * Tells the model to resume the simulation.
+	 */
+	public void resume();
+
+	/**
+	 * Tells the model to take a single step while paused.
+	 */
+	public void step();
+
+	/**
+	 * Asks the model whether the simulation is paused.
+	 *
+	 * @return <code>true</code> if the simulation is paused, <code>false</code> otherwise
+	 */
+	public boolean isPaused();
+
+	/**
+	 * Tells the model how fast to run.
+	 *
+	 * @param stepsPerSecond the target number of steps per second, or 0 to run as fast as possible
+	 */
+	public void setStepsPerSecond(double stepsPerSecond);
+
+	/**
+	 * Tells the model how many steps to take between repaints.
+	 *
+	 * @param stepsPerPaint the number of steps between repaints
+	 */
+	public void setStepsPerPaint(int stepsPerPaint);
+
+	/**
+	 * Changes how the asteroids are shown.
+	 *
+	 * @param view the name of the view, one of Pixels, Dots or Density
+	 */
+	public void setAsteroidView(String view);
+
 	/**
 	 * Default null object for the adapter.
 	 * @return an instance of the adapter that does nothing.
@@ -29,6 +72,35 @@ public interface IModelControlAdapter {
 			@Override
 			public void makeBalls() {
 			}
+
+			@Override
+			public void pause() {
+			}
+
+			@Override
+			public void resume() {
+			}
+
+			@Override
+			public void step() {
+			}
+
+			@Override
+			public boolean isPaused() {
+				return false;
+			}
+
+			@Override
+			public void setStepsPerSecond(double stepsPerSecond) {
+			}
+
+			@Override
+			public void setStepsPerPaint(int stepsPerPaint) {
+			}
+
+			@Override
+			public void setAsteroidView(String view) {
+			}
 		};
 	}
 
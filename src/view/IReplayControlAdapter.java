@@ -0,0 +1,92 @@
+package view;
+
+import java.io.File;
+
+/**
+ * The replay view to model control adapter.
+ */
+public interface IReplayControlAdapter {
+
+	/**
+	 * Tells the model to open a recording.
+	 *
+	 * @param file the recording
+	 */
+	public void open(File file);
+
+	/**
+	 * Tells the model to start playing.
+	 */
+	public void play();
+
+	/**
+	 * Tells the model to stop playing.
+	 */
+	public void pause();
+
+	/**
+	 * Tells the model how fast to play.
+	 *
+	 * @param speed the number of recorded frames to advance on each displayed frame
+	 */
+	public void setSpeed(int speed);
+
+	/**
+	 * Tells the model to show a frame.
+	 *
+	 * @param frame the index of the frame
+	 */
+	public void seek(int frame);
+
+	/**
+	 * Tells the model to show the frame nearest a simulated time.
+	 *
+	 * @param years the simulated time in years
+	 */
+	public void seekYears(double years);
+
+	/**
+	 * Changes how the asteroids are shown.
+	 *
+	 * @param view the name of the view, Pixels or Dots
+	 */
+	public void setAsteroidView(String view);
+
+	/**
+	 * Default null object for the adapter.
+	 * @return an instance of the adapter that does nothing.
+	 */
+	public static IReplayControlAdapter MAKE_NULL() {
+		return new IReplayControlAdapter() {
+
+			@Override
+			public void open(File file) {
+			}
+
+			@Override
+			public void play() {
+			}
+
+			@Override
+			public void pause() {
+			}
+
+			@Override
+			public void setSpeed(int speed) {
+			}
+
+			@Override
+			public void seek(int frame) {
+			}
+
+			@Override
+			public void seekYears(double years) {
+			}
+
+			@Override
+			public void setAsteroidView(String view) {
+			}
+		};
+	}
+
+}
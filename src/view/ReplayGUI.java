@@ -0,0 +1,255 @@
+package view;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * The GUI for playing back a recorded run.
+ */
+public class ReplayGUI extends JFrame {
+
+	/**
+	 * The serial version ID for ReplayGUI.
+	 */
+	private static final long serialVersionUID = -2385049613624771452L;
+	/**
+	 * The content panel.
+	 */
+	private JPanel contentPane;
+	/**
+	 * The JPanel where the frames are displayed.
+	 */
+	private final JPanel canvasPnl = new JPanel() {
+		/**
+		 * Auto-generated serial ID.
+		 */
+		private static final long serialVersionUID = 4469195226413390151L;
+
+		/**
+		* Overridden paintComponent method to paint the frame in the panel.
+		* @param g The Graphics object to paint on.
+		**/
+		@Override
+		public void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			modelUpdtAdpt.update(g);
+		}
+	};
+	/**
+	 * The JPanel where the controls are.
+	 */
+	private final JPanel controlPnl = new JPanel();
+	/**
+	 * Opens a recording.
+	 */
+	private final JButton btnOpen = new JButton("Open...");
+	/**
+	 * Plays and pauses.
+	 */
+	private final JButton btnPlay = new JButton("Play");
+	/**
+	 * The label for the speed.
+	 */
+	private final JLabel lblSpeed = new JLabel("Speed");
+	/**
+	 * Chooses how many recorded frames to advance on each displayed frame.
+	 */
+	private final JComboBox<String> cbxSpeed = new JComboBox<String>(
+			new String[] { "1x", "2x", "4x", "8x", "16x", "32x", "64x" });
+	/**
+	 * The label for the year spinner.
+	 */
+	private final JLabel lblYears = new JLabel("Go to year");
+	/**
+	 * Jumps to a simulated time.
+	 */
+	private final JSpinner spnYears = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 1e9, 100.0));
+	/**
+	 * The label for the asteroid view.
+	 */
+	private final JLabel lblView = new JLabel("Asteroids");
+	/**
+	 * Chooses how the asteroids are shown.
+	 */
+	private final JComboBox<String> cbxView = new JComboBox<String>(new String[] { "Pixels", "Dots" });
+	/**
+	 * Shows the step and time of the frame.
+	 */
+	private final JLabel lblStatus = new JLabel(" ");
+	/**
+	 * Scrubs through the recording.
+	 */
+	private final JSlider sldFrame = new JSlider(0, 0, 0);
+	/**
+	 * Whether the slider is being moved to match the model, rather than by the user.
+	 */
+	private boolean syncing = false;
+	/**
+	 * The view to model control adapter.
+	 */
+	private IReplayControlAdapter modelCtrlAdpt = IReplayControlAdapter.MAKE_NULL();
+	/**
+	 * The view to model update adapter.
+	 */
+	private IModelUpdateAdapter modelUpdtAdpt = IModelUpdateAdapter.NULL_OBJECT;
+
+	/**
+	 * Create the GUI.
+	 * @param modelCtrlAdpt : the initialized control adapter.
+	 * @param modelUpdtAdpt : the initialized update adapter.
+	 */
+	public ReplayGUI(IReplayControlAdapter modelCtrlAdpt, IModelUpdateAdapter modelUpdtAdpt) {
+		this.modelCtrlAdpt = modelCtrlAdpt;
+		this.modelUpdtAdpt = modelUpdtAdpt;
+		initGUI();
+	}
+
+	/**
+	 * Initializes the GUI.
+	 */
+	private void initGUI() {
+		setTitle("Replay");
+		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		setBounds(100, 100, 1200, 500);
+
+		contentPane = new JPanel();
+		contentPane.setBorder(new EmptyBorder(5, 5, 5, 5));
+		contentPane.setLayout(new BorderLayout(0, 0));
+		setContentPane(contentPane);
+
+		canvasPnl.setBackground(Color.BLACK);
+		canvasPnl.setToolTipText("This is where the recording is played.");
+		contentPane.add(canvasPnl, BorderLayout.CENTER);
+
+		controlPnl.setBackground(Color.BLACK);
+		controlPnl.setToolTipText("The panel with the controls.");
+		contentPane.add(controlPnl, BorderLayout.WEST);
+		controlPnl.setLayout(new GridBagLayout());
+
+		btnOpen.addActionListener((e) -> {
+			JFileChooser chooser = new JFileChooser();
+			if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+				modelCtrlAdpt.open(chooser.getSelectedFile());
+			}
+		});
+		btnOpen.setToolTipText("Opens a recorded run.");
+		controlPnl.add(btnOpen, makeConstraints(0));
+
+		btnPlay.setBackground(Color.GREEN);
+		btnPlay.addActionListener((e) -> {
+			if ("Play".equals(btnPlay.getText())) {
+				modelCtrlAdpt.play();
+			} else {
+				modelCtrlAdpt.pause();
+			}
+		});
+		btnPlay.setToolTipText("Plays or pauses the recording.");
+		controlPnl.add(btnPlay, makeConstraints(1));
+
+		lblSpeed.setForeground(Color.WHITE);
+		controlPnl.add(lblSpeed, makeConstraints(2));
+		cbxSpeed.addActionListener((e) -> {
+			String speed = (String) cbxSpeed.getSelectedItem();
+			modelCtrlAdpt.setSpeed(Integer.parseInt(speed.substring(0, speed.length() - 1)));
+		});
+		cbxSpeed.setToolTipText("The number of recorded frames to advance on each displayed frame.");
+		controlPnl.add(cbxSpeed, makeConstraints(3));
+
+		lblYears.setForeground(Color.WHITE);
+		controlPnl.add(lblYears, makeConstraints(4));
+		spnYears.addChangeListener((e) -> modelCtrlAdpt.seekYears(((Number) spnYears.getValue()).doubleValue()));
+		spnYears.setToolTipText("Jumps to the frame nearest this many simulated years.");
+		controlPnl.add(spnYears, makeConstraints(5));
+
+		lblView.setForeground(Color.WHITE);
+		controlPnl.add(lblView, makeConstraints(6));
+		cbxView.addActionListener((e) -> modelCtrlAdpt.setAsteroidView((String) cbxView.getSelectedItem()));
+		cbxView.setToolTipText("Shows each asteroid as pixels or dots.");
+		controlPnl.add(cbxView, makeConstraints(7));
+
+		lblStatus.setForeground(Color.WHITE);
+		lblStatus.setToolTipText("The step and simulated time of the frame.");
+		controlPnl.add(lblStatus, makeConstraints(8));
+
+		sldFrame.setBackground(Color.BLACK);
+		sldFrame.addChangeListener((e) -> {
+			if (!syncing) {
+				modelCtrlAdpt.seek(sldFrame.getValue());
+			}
+		});
+		sldFrame.setToolTipText("Drag to scrub through the recording.");
+		contentPane.add(sldFrame, BorderLayout.SOUTH);
+	}
+
+	/**
+	 * Makes the layout constraints for a control in the given row.
+	 *
+	 * @param row the row of the control panel
+	 * @return the constraints
+	 */
+	private GridBagConstraints makeConstraints(int row) {
+		GridBagConstraints gbc = new GridBagConstraints();
+		gbc.fill = GridBagConstraints.BOTH;
+		gbc.anchor = GridBagConstraints.NORTHWEST;
+		gbc.insets = new Insets(0, 0, 5, 0);
+		gbc.gridx = 0;
+		gbc.gridy = row;
+		return gbc;
+	}
+
+	/**
+	 * @return the canvas panel.
+	 */
+	public Container getCanvas() {
+		return this.canvasPnl;
+	}
+
+	/**
+	 * Shows the given status under the controls.
+	 *
+	 * @param status the status to show
+	 */
+	public void setStatus(String status) {
+		lblStatus.setText(status);
+	}
+
+	/**
+	 * Moves the slider to the frame being shown and updates the play button, then repaints the center panel.
+	 *
+	 * @param frame the index of the frame being shown
+	 * @param frameCount the number of frames
+	 * @param playing whether the recording is playing
+	 */
+	public void update(int frame, int frameCount, boolean playing) {
+		syncing = true;
+		sldFrame.setMaximum(Math.max(frameCount - 1, 0));
+		sldFrame.setValue(Math.max(frame, 0));
+		syncing = false;
+		btnPlay.setText(playing ? "Pause" : "Play");
+		btnPlay.setBackground(playing ? Color.YELLOW : Color.GREEN);
+		canvasPnl.repaint();
+	}
+
+	/**
+	 * Starts the GUI.
+	 */
+	public void start() {
+		setVisible(true);
+	}
+}